@@ -0,0 +1,109 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.controllers.ProductApiController;
+import com.example.demo.controllers.ProductController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение пропускной способности HTML-страниц {@link ProductController} и JSON-ответов
+ * {@link ProductApiController} для страницы каталога и страницы продукта.
+ * JSON-ответы сериализуются общим {@link ObjectMapper} приложения (с модулем Blackbird),
+ * как это делает конвертер сообщений Spring MVC; HTML-страницы отдаются из кеша отрисованных страниц.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ApiBenchmarks {
+    private ConfigurableApplicationContext context;
+
+    private ProductController productController;
+
+    private ProductApiController productApiController;
+
+    private ObjectMapper objectMapper;
+
+    private Long productId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(1000);
+        productController = context.getBean(ProductController.class);
+        productApiController = context.getBean(ProductApiController.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        productId = context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT MIN(product_id) FROM images", Long.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int htmlCatalogPage() {
+        return productController.products(null, null, webRequest("/")).getBody().length;
+    }
+
+    @Benchmark
+    public int jsonCatalogPage() throws IOException {
+        return write(productApiController.listProducts(null, null, null, webRequest("/api/v1/products")));
+    }
+
+    @Benchmark
+    public int jsonCatalogPageSparse() throws IOException {
+        return write(productApiController.listProducts(null, null, "id,title",
+                webRequest("/api/v1/products")));
+    }
+
+    @Benchmark
+    public int htmlProductPage() {
+        return productController.productInfo(productId, webRequest("/product/" + productId)).getBody().length;
+    }
+
+    @Benchmark
+    public int jsonProductPage() throws IOException {
+        return write(productApiController.getProduct(productId, null,
+                webRequest("/api/v1/products/" + productId)));
+    }
+
+    /**
+     * Создает запрос так же, как это делает DispatcherServlet.
+     *
+     * @param path путь запроса
+     * @return запрос
+     */
+    private static ServletWebRequest webRequest(String path) {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", path), new MockHttpServletResponse());
+    }
+
+    /**
+     * Сериализует ответ с фильтром выбранных полей, как MappingJackson2HttpMessageConverter.
+     *
+     * @param response ответ контроллера
+     * @return размер JSON в байтах
+     * @throws IOException если не удалось сериализовать ответ
+     */
+    private int write(ResponseEntity<MappingJacksonValue> response) throws IOException {
+        MappingJacksonValue value = response.getBody();
+        ObjectWriter writer = value.getFilters() == null ? objectMapper.writer() : objectMapper.writer(value.getFilters());
+        return writer.writeValueAsBytes(value.getValue()).length;
+    }
+}
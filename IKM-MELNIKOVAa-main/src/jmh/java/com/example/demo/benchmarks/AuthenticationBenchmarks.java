@@ -0,0 +1,65 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.models.User;
+import com.example.demo.services.PrincipalCache;
+import com.example.demo.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки аутентификации: вычисление прав {@link User#getAuthorities()}
+ * и загрузка пользователя {@link UserService#loadUserByUsername} из кеша и из базы данных.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthenticationBenchmarks {
+    private ConfigurableApplicationContext context;
+
+    private UserService userService;
+
+    private PrincipalCache principalCache;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(100);
+        userService = context.getBean(UserService.class);
+        principalCache = context.getBean(PrincipalCache.class);
+        user = new User(BenchmarkContext.USERNAME, "benchmark-password-hash", List.of("ROLE_USER", "ROLE_ADMIN"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> userAuthorities() {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public UserDetails loadUserCached() {
+        return userService.loadUserByUsername(BenchmarkContext.USERNAME);
+    }
+
+    @Benchmark
+    public UserDetails loadUserUncached() {
+        principalCache.evict(BenchmarkContext.USERNAME);
+        return userService.loadUserByUsername(BenchmarkContext.USERNAME);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.SoftaApplication;
+import com.example.demo.models.Image;
+import com.example.demo.models.Product;
+import com.example.demo.models.ProductSearchDocument;
+import com.example.demo.models.User;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.ImageStorage;
+import com.example.demo.services.ProductSearchEngine;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Запуск приложения для бенчмарков с профилем {@code benchmark} (H2 в памяти)
+ * и заполнение каталога детерминированными данными: при одинаковом размере каталога
+ * каждый запуск получает одни и те же продукты, поэтому результаты разных версий можно сравнивать.
+ */
+final class BenchmarkContext {
+    static final String USERNAME = "bench-user";
+
+    static final String SEARCH_QUERY = "blue";
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final int PRODUCTS_WITH_COVERS = 50;
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final String[] WORDS = {
+            "blue", "night", "river", "electric", "silent", "golden", "summer", "winter", "velvet", "city",
+            "dream", "fire", "ocean", "echo", "wild", "paper", "stone", "glass", "midnight", "sun"
+    };
+
+    private static final String[] GENRES = {"rock", "jazz", "blues", "pop", "classical", "folk", "electronic"};
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Запускает приложение и заполняет каталог.
+     *
+     * @param catalogSize количество продуктов
+     * @return контекст приложения
+     */
+    static ConfigurableApplicationContext start(int catalogSize) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SoftaApplication.class)
+                .profiles("benchmark")
+                .run();
+
+        seed(context, catalogSize);
+        return context;
+    }
+
+    /**
+     * Заполняет каталог порциями в отдельных транзакциях и индексирует продукты для поиска.
+     *
+     * @param context     контекст приложения
+     * @param catalogSize количество продуктов
+     */
+    private static void seed(ConfigurableApplicationContext context, int catalogSize) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        ProductSearchEngine searchEngine = context.getBean(ProductSearchEngine.class);
+        ImageStorage imageStorage = context.getBean(ImageStorage.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        User owner = userRepository.save(new User(USERNAME, "benchmark-password-hash", List.of("ROLE_USER")));
+        byte[] cover = cover();
+        String coverHash = store(imageStorage, cover);
+        Random random = new Random(42);
+
+        for (int from = 0; from < catalogSize; from += CHUNK_SIZE) {
+            List<Product> chunk = new ArrayList<>();
+
+            for (int i = from; i < Math.min(catalogSize, from + CHUNK_SIZE); i++) {
+                Product product = new Product();
+                product.setTitle(word(random) + " " + word(random) + " " + i);
+                product.setAuthor(capitalize(word(random)) + " " + capitalize(word(random)));
+                product.setGenre(GENRES[random.nextInt(GENRES.length)]);
+                product.setDescription("Album " + i + ": " + word(random) + " " + word(random) + " " + word(random));
+                product.setPrice(100 + random.nextInt(5_000));
+                product.setDateOfCreated(BASE_TIME.plusMinutes(i));
+                product.setUser(owner);
+
+                if (i < PRODUCTS_WITH_COVERS) {
+                    Image image = new Image();
+                    image.setName("file1");
+                    image.setOriginalFilename("cover" + i + ".png");
+                    image.setContentType("image/png");
+                    image.setSize((long) cover.length);
+                    image.setContentHash(coverHash);
+                    image.setPreviewImage(true);
+                    product.addImageToProduct(image);
+                }
+
+                chunk.add(product);
+            }
+
+            transaction.executeWithoutResult(status -> chunk.forEach(productRepository::saveNew));
+            chunk.forEach(product -> searchEngine.index(ProductSearchDocument.of(product)));
+        }
+    }
+
+    /**
+     * Создает обложку PNG размером 600x600.
+     *
+     * @return содержимое PNG
+     */
+    private static byte[] cover() {
+        BufferedImage image = new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(30, 60, 120));
+        graphics.fillRect(0, 0, 600, 600);
+        graphics.setColor(Color.ORANGE);
+        graphics.fillOval(150, 150, 300, 300);
+        graphics.dispose();
+
+        try {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", output);
+            return output.toByteArray();
+        }
+
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Сохраняет содержимое в хранилище изображений.
+     *
+     * @param storage хранилище
+     * @param content содержимое
+     * @return хеш содержимого
+     */
+    private static String store(ImageStorage storage, byte[] content) {
+        try {
+            return storage.store(new ByteArrayInputStream(content));
+        }
+
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.models.ProductSummary;
+import com.example.demo.services.ProductPage;
+import com.example.demo.services.ProductService;
+import freemarker.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.servlet.view.freemarker.FreeMarkerConfig;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки каталога: первая и следующая страницы списка, поиск по названию
+ * и отрисовка шаблона {@code products.ftlh} при разных размерах каталога.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogBenchmarks {
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    private Template productsTemplate;
+
+    private String secondPageCursor;
+
+    private Map<String, Object> model;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(catalogSize);
+        productService = context.getBean(ProductService.class);
+        productsTemplate = context.getBean(FreeMarkerConfig.class).getConfiguration().getTemplate("products.ftlh");
+
+        ProductPage<ProductSummary> firstPage = productService.listProducts(null, null);
+        secondPageCursor = firstPage.nextCursor();
+        model = new HashMap<>();
+        model.put("products", firstPage.items());
+        model.put("nextCursor", firstPage.nextCursor());
+        model.put("title", null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductPage<ProductSummary> listFirstPage() {
+        return productService.listProducts(null, null);
+    }
+
+    @Benchmark
+    public ProductPage<ProductSummary> listNextPage() {
+        return productService.listProducts(null, secondPageCursor);
+    }
+
+    @Benchmark
+    public ProductPage<ProductSummary> searchByTitle() {
+        return productService.listProducts(BenchmarkContext.SEARCH_QUERY, null);
+    }
+
+    @Benchmark
+    public String renderProductsPage() throws Exception {
+        StringWriter output = new StringWriter(16 * 1024);
+        productsTemplate.process(model, output);
+        return output.toString();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.controllers.ImageController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки выдачи изображений {@link ImageController#getImageById}: полный ответ с содержимым,
+ * условный запрос с совпадающим ETag (304) и уменьшенная копия.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ImageServingBenchmarks {
+    private ConfigurableApplicationContext context;
+
+    private ImageController imageController;
+
+    private Long imageId;
+
+    private String eTag;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start(100);
+        imageController = context.getBean(ImageController.class);
+        imageId = context.getBean(JdbcTemplate.class).queryForObject("SELECT MIN(id) FROM images", Long.class);
+        eTag = serve(null, null).getHeaders().getETag();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long serveOriginal() throws IOException {
+        return drain(serve(null, null));
+    }
+
+    @Benchmark
+    public Object serveNotModified() throws IOException {
+        return serve(null, eTag);
+    }
+
+    @Benchmark
+    public long serveVariant() throws IOException {
+        return drain(serve(180, null));
+    }
+
+    /**
+     * Вызывает контроллер так же, как это делает DispatcherServlet.
+     *
+     * @param width       требуемая ширина или null для оригинала
+     * @param ifNoneMatch значение If-None-Match или null
+     * @return ответ контроллера (null для 304)
+     */
+    private ResponseEntity<?> serve(Integer width, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/" + imageId);
+
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+
+        return imageController.getImageById(imageId, width,
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+    /**
+     * Читает содержимое ответа целиком, как при отправке клиенту.
+     *
+     * @param response ответ контроллера
+     * @return количество прочитанных байт
+     * @throws IOException если не удалось прочитать содержимое
+     */
+    private static long drain(ResponseEntity<?> response) throws IOException {
+        if (!(response.getBody() instanceof Resource resource)) {
+            return 0;
+        }
+
+        try (InputStream input = resource.getInputStream()) {
+            return input.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Генератор синтетического музыкального каталога для нагрузочного тестирования.
+ * Создает файл NDJSON в формате массового импорта и ZIP-архив обложек.
+ * Распределения приближены к реальному магазину: жанры неравномерны, небольшая часть исполнителей
+ * выпускает большую часть альбомов (распределение Ципфа), названия имеют разную длину,
+ * цены распределены логнормально. При одинаковом зерне генерируется один и тот же каталог.
+ */
+final class CatalogGenerator {
+    private static final String[] GENRES = {"rock", "pop", "jazz", "electronic", "hip-hop", "classical", "folk", "blues", "metal", "soul"};
+
+    private static final double[] GENRE_WEIGHTS = {0.24, 0.2, 0.1, 0.12, 0.1, 0.06, 0.06, 0.04, 0.05, 0.03};
+
+    private static final String[] TITLE_WORDS = {
+            "blue", "night", "river", "electric", "silent", "golden", "summer", "winter", "velvet", "city",
+            "dream", "fire", "ocean", "echo", "wild", "paper", "stone", "glass", "midnight", "sun",
+            "heart", "road", "shadow", "light", "rain", "northern", "broken", "young", "endless", "home"
+    };
+
+    private static final String[] FIRST_NAMES = {"Anna", "Boris", "Clara", "David", "Elena", "Felix", "Grace", "Ivan", "Julia", "Leo"};
+
+    private static final String[] LAST_NAMES = {"Stone", "Rivers", "Volkova", "Hart", "Lane", "Moreau", "Novak", "Reed", "Sokolov", "West"};
+
+    private static final int AUTHORS = 2_000;
+
+    private static final int MAX_COVERS = 300;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Random random;
+
+    private final double[] authorCdf;
+
+    /**
+     * Конструктор генератора.
+     *
+     * @param seed зерно генератора случайных чисел
+     */
+    CatalogGenerator(long seed) {
+        this.random = new Random(seed);
+        this.authorCdf = zipfCdf(AUTHORS, 1.1);
+    }
+
+    /**
+     * Создает файлы каталога.
+     *
+     * @param directory каталог для файлов
+     * @param albums    количество альбомов
+     * @return пути к файлу каталога и архиву обложек
+     * @throws IOException если не удалось записать файлы
+     */
+    GeneratedCatalog generate(Path directory, int albums) throws IOException {
+        Files.createDirectories(directory);
+        Path catalog = directory.resolve("catalog.ndjson");
+        Path covers = directory.resolve("covers.zip");
+        int coverCount = Math.max(1, Math.min(albums, MAX_COVERS));
+
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(covers))) {
+            for (int i = 0; i < coverCount; i++) {
+                zip.putNextEntry(new ZipEntry(coverName(i)));
+                writeCover(zip, i);
+                zip.closeEntry();
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(catalog, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < albums; i++) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                String genre = GENRES[pick(GENRE_WEIGHTS)];
+                row.put("title", title());
+                row.put("description", "A " + genre + " album with " + (6 + random.nextInt(10)) + " tracks");
+                row.put("price", Math.round(Math.exp(6.5 + random.nextGaussian() * 0.6) * 100) / 100.0);
+                row.put("genre", genre);
+                row.put("author", author());
+                row.put("cover", coverName(random.nextInt(coverCount)));
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.newLine();
+            }
+        }
+
+        return new GeneratedCatalog(catalog, covers);
+    }
+
+    private String title() {
+        int words = 1 + Math.min(3, (int) Math.abs(random.nextGaussian() * 1.5));
+        StringBuilder title = new StringBuilder();
+
+        for (int i = 0; i < words; i++) {
+            String word = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)];
+            title.append(i == 0 ? "" : " ").append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+        }
+
+        return title.toString();
+    }
+
+    private String author() {
+        double value = random.nextDouble();
+        int index = 0;
+
+        while (index < authorCdf.length - 1 && authorCdf[index] < value) {
+            index++;
+        }
+
+        return FIRST_NAMES[index % FIRST_NAMES.length] + " " + LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length]
+                + (index < FIRST_NAMES.length * LAST_NAMES.length ? "" : " " + (index / (FIRST_NAMES.length * LAST_NAMES.length)));
+    }
+
+    private int pick(double[] weights) {
+        double value = random.nextDouble();
+        double total = 0;
+
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+
+            if (value < total) {
+                return i;
+            }
+        }
+
+        return weights.length - 1;
+    }
+
+    /**
+     * Записывает обложку PNG 600x600 с градиентом, зависящим от номера обложки.
+     *
+     * @param output поток для записи
+     * @param index  номер обложки
+     * @throws IOException если не удалось записать изображение
+     */
+    private static void writeCover(OutputStream output, int index) throws IOException {
+        BufferedImage image = new BufferedImage(600, 600, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        Color from = Color.getHSBColor((index * 0.618f) % 1f, 0.6f, 0.9f);
+        Color to = Color.getHSBColor((index * 0.618f + 0.3f) % 1f, 0.8f, 0.4f);
+        graphics.setPaint(new GradientPaint(0, 0, from, 600, 600, to));
+        graphics.fillRect(0, 0, 600, 600);
+        graphics.dispose();
+        ImageIO.write(image, "png", output);
+    }
+
+    private static String coverName(int index) {
+        return "cover-" + index + ".png";
+    }
+
+    private static double[] zipfCdf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double total = 0;
+
+        for (int i = 0; i < size; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cdf[i] = total;
+        }
+
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= total;
+        }
+
+        return cdf;
+    }
+
+    /**
+     * Сгенерированные файлы каталога.
+     *
+     * @param catalog файл NDJSON
+     * @param covers  архив обложек
+     */
+    record GeneratedCatalog(Path catalog, Path covers) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Накопитель времен ответа одной операции.
+ * Хранит все измерения, чтобы перцентили были точными, а не приближенными гистограммой.
+ */
+final class LatencyRecorder {
+    private long[] samples = new long[1024];
+
+    private int count;
+
+    private long errors;
+
+    /**
+     * Добавляет успешное измерение.
+     *
+     * @param nanos время ответа в наносекундах
+     */
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+
+        samples[count++] = nanos;
+    }
+
+    /**
+     * Учитывает неуспешный запрос (ошибку соединения или неожиданный код ответа).
+     */
+    synchronized void recordError() {
+        errors++;
+    }
+
+    /**
+     * Вычисляет итоговую статистику.
+     *
+     * @param seconds длительность измерения в секундах
+     * @return статистика операции
+     */
+    synchronized EndpointResult result(double seconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new EndpointResult(count, errors, count / seconds, percentile(sorted, 0.5), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Статистика операции.
+     *
+     * @param requests   количество успешных запросов
+     * @param errors     количество неуспешных запросов
+     * @param throughput успешных запросов в секунду
+     * @param p50Ms      медиана времени ответа в миллисекундах
+     * @param p99Ms      99-й перцентиль времени ответа в миллисекундах
+     */
+    record EndpointResult(long requests, long errors, double throughput, double p50Ms, double p99Ms) {
+    }
+}
@@ -0,0 +1,502 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Нагрузочный тест магазина.
+ * Заполняет каталог синтетическими альбомами через массовый импорт, затем заданное число виртуальных
+ * пользователей выполняет смесь операций: просмотр каталога, поиск, страница альбома, обложки,
+ * вход и создание альбомов. После прогрева измеряются p50/p99 и пропускная способность каждой операции;
+ * отчет записывается в JSON и сравнивается с сохраненным базовым отчетом. Если p99 или пропускная
+ * способность хуже базовых больше чем на допустимую долю, либо доля ошибок больше 1%, тест завершается с кодом 1.
+ * <p>
+ * Параметры задаются системными свойствами {@code loadtest.*}, см. {@link Settings}.
+ */
+public final class LoadTest {
+    private static final Pattern PRODUCT_LINK = Pattern.compile("/product/(\\d+)");
+
+    private static final Pattern IMAGE_LINK = Pattern.compile("/images/(\\d+)");
+
+    private static final Pattern NEXT_PAGE = Pattern.compile("href=\"/\\?cursor=([^\"]+)\"");
+
+    private static final String[] SEARCH_TERMS = {"blue", "night", "river", "golden", "ocean", "heart", "rain", "zz-no-match"};
+
+    private static final double MAX_ERROR_RATE = 0.01;
+
+    private final Settings settings;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    private final List<Long> imageIds = new ArrayList<>();
+
+    private LoadTest(Settings settings) {
+        this.settings = settings;
+
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new LatencyRecorder());
+        }
+    }
+
+    /**
+     * Точка входа.
+     *
+     * @param args не используются
+     * @throws Exception если тест не удалось выполнить
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest(Settings.fromSystemProperties());
+        System.exit(test.run() ? 0 : 1);
+    }
+
+    /**
+     * Выполняет тест.
+     *
+     * @return true если регрессий нет
+     * @throws Exception если тест не удалось выполнить
+     */
+    private boolean run() throws Exception {
+        ShopClient owner = new ShopClient(settings.baseUrl());
+        owner.registerAndLogin("loadtest-owner", settings.password());
+
+        if (settings.albums() > 0) {
+            importCatalog(owner);
+        }
+
+        discoverCatalog(owner);
+        Path cover = new CatalogGenerator(settings.seed()).generate(settings.workDirectory().resolve("create"), 1).covers();
+        Path coverImage = extractFirstCover(cover);
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+
+        System.out.printf("Нагрузка: %d пользователей, прогрев %d с, измерение %d с, профили приложения: %s%n",
+                settings.users(), settings.warmupSeconds(), settings.durationSeconds(), settings.serverProfiles());
+
+        try (ExecutorService executor = newExecutor()) {
+            for (int i = 0; i < settings.users(); i++) {
+                int user = i;
+                executor.execute(() -> virtualUser(user, coverImage, measureFrom, end));
+            }
+        }
+
+        Map<String, LatencyRecorder.EndpointResult> results = new LinkedHashMap<>();
+        recorders.forEach((operation, recorder) ->
+                results.put(operation.name().toLowerCase(), recorder.result(settings.durationSeconds())));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("serverProfiles", settings.serverProfiles());
+        report.put("users", settings.users());
+        report.put("durationSeconds", settings.durationSeconds());
+        report.put("albums", settings.albums());
+        report.put("endpoints", results);
+
+        Files.createDirectories(settings.report().toAbsolutePath().getParent());
+        objectMapper.writeValue(settings.report().toFile(), report);
+        printResults(results);
+        System.out.println("Отчет: " + settings.report().toAbsolutePath());
+
+        boolean passed = checkErrors(results) & compareWithBaseline(results);
+
+        if (settings.updateBaseline()) {
+            Files.createDirectories(settings.baseline().toAbsolutePath().getParent());
+            objectMapper.writeValue(settings.baseline().toFile(), report);
+            System.out.println("Базовый отчет обновлен: " + settings.baseline().toAbsolutePath());
+        }
+
+        return passed;
+    }
+
+    /**
+     * Создает исполнитель виртуальных пользователей: по виртуальному потоку на пользователя.
+     * Сотни пользователей не требуют сотен потоков платформы, поэтому при высокой конкурентности
+     * ограничением остается приложение, а не клиент нагрузки.
+     *
+     * @return исполнитель
+     */
+    private static ExecutorService newExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Генерирует каталог и загружает его через массовый импорт, дожидаясь завершения импорта.
+     *
+     * @param owner клиент владельца импортируемых альбомов
+     * @throws Exception если импорт не выполнен
+     */
+    private void importCatalog(ShopClient owner) throws Exception {
+        CatalogGenerator.GeneratedCatalog catalog = new CatalogGenerator(settings.seed())
+                .generate(settings.workDirectory().resolve("catalog"), settings.albums());
+
+        HttpResponse<byte[]> accepted = owner.postMultipart("/products/import", Map.of(),
+                Map.of("catalog", catalog.catalog(), "covers", catalog.covers()));
+
+        if (accepted.statusCode() != 202) {
+            throw new IOException("Импорт не принят: " + accepted.statusCode() + " "
+                    + new String(accepted.body(), StandardCharsets.UTF_8));
+        }
+
+        String location = accepted.headers().firstValue("Location").orElseThrow();
+        System.out.printf("Импорт %d альбомов: %s%n", settings.albums(), location);
+
+        while (true) {
+            Thread.sleep(1_000);
+            JsonNode report = objectMapper.readTree(owner.get(location).body());
+            String state = report.path("state").asText();
+
+            if ("COMPLETED".equals(state)) {
+                System.out.printf("Импортировано %d из %d строк%n",
+                        report.path("rowsImported").asLong(), report.path("rowsRead").asLong());
+                return;
+            }
+
+            if ("FAILED".equals(state)) {
+                throw new IOException("Импорт завершился с ошибкой: " + report.path("error").asText());
+            }
+        }
+    }
+
+    /**
+     * Собирает идентификаторы альбомов и обложек с первых страниц каталога.
+     *
+     * @param client клиент
+     * @throws Exception если каталог не удалось прочитать
+     */
+    private void discoverCatalog(ShopClient client) throws Exception {
+        Set<Long> products = new LinkedHashSet<>();
+        Set<Long> images = new LinkedHashSet<>();
+        String path = "/";
+
+        for (int page = 0; page < 25 && path != null; page++) {
+            String html = new String(client.get(path).body(), StandardCharsets.UTF_8);
+            collect(PRODUCT_LINK.matcher(html), products);
+            collect(IMAGE_LINK.matcher(html), images);
+            Matcher next = NEXT_PAGE.matcher(html);
+            path = next.find() ? "/?cursor=" + next.group(1) : null;
+        }
+
+        if (products.isEmpty()) {
+            throw new IllegalStateException("Каталог пуст: нечего нагружать");
+        }
+
+        productIds.addAll(products);
+        imageIds.addAll(images);
+        System.out.printf("Найдено альбомов: %d, обложек: %d%n", productIds.size(), imageIds.size());
+    }
+
+    /**
+     * Цикл одного виртуального пользователя.
+     *
+     * @param user        номер пользователя
+     * @param cover       обложка для создаваемых альбомов
+     * @param measureFrom момент начала измерения ({@link System#nanoTime()})
+     * @param end         момент окончания теста ({@link System#nanoTime()})
+     */
+    private void virtualUser(int user, Path cover, long measureFrom, long end) {
+        Random random = new Random(settings.seed() + user);
+        ShopClient client = new ShopClient(settings.baseUrl());
+        String username = "loadtest-user-" + user;
+
+        try {
+            client.registerAndLogin(username, settings.password());
+        }
+
+        catch (Exception e) {
+            System.err.println("Пользователь " + username + " не смог войти: " + e.getMessage());
+            return;
+        }
+
+        while (System.nanoTime() < end) {
+            Operation operation = Operation.pick(random);
+            long started = System.nanoTime();
+            boolean success;
+
+            try {
+                success = operation.expectedStatus() == execute(operation, client, username, cover, random).statusCode();
+            }
+
+            catch (Exception e) {
+                success = false;
+            }
+
+            if (started < measureFrom) {
+                continue;
+            }
+
+            if (success) {
+                recorders.get(operation).record(System.nanoTime() - started);
+            }
+
+            else {
+                recorders.get(operation).recordError();
+            }
+        }
+    }
+
+    /**
+     * Выполняет операцию.
+     *
+     * @param operation операция
+     * @param client    клиент виртуального пользователя
+     * @param username  имя виртуального пользователя
+     * @param cover     обложка для создаваемых альбомов
+     * @param random    генератор случайных чисел пользователя
+     * @return ответ приложения
+     * @throws IOException          если запрос не выполнен
+     * @throws InterruptedException если ожидание прервано
+     */
+    private HttpResponse<byte[]> execute(Operation operation, ShopClient client, String username, Path cover,
+                                         Random random) throws IOException, InterruptedException {
+        return switch (operation) {
+            case BROWSE -> client.get("/");
+            case SEARCH -> client.get("/?title=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+            case PRODUCT -> client.get("/product/" + productIds.get(random.nextInt(productIds.size())));
+            case IMAGE -> client.get(imageIds.isEmpty()
+                    ? "/"
+                    : "/images/" + imageIds.get(random.nextInt(imageIds.size())) + "?w=180");
+            case LOGIN -> client.postForm("/login", Map.of("username", username, "password", settings.password()));
+            case CREATE -> client.postMultipart("/product/create",
+                    Map.of("title", "Load " + random.nextInt(1_000_000), "description", "Load test album",
+                            "price", String.valueOf(100 + random.nextInt(5_000)), "genre", "rock",
+                            "author", "Load Tester"),
+                    Map.of("file1", cover));
+        };
+    }
+
+    /**
+     * Проверяет долю ошибок каждой операции.
+     *
+     * @param results результаты теста
+     * @return true если доля ошибок допустима
+     */
+    private static boolean checkErrors(Map<String, LatencyRecorder.EndpointResult> results) {
+        boolean passed = true;
+
+        for (Map.Entry<String, LatencyRecorder.EndpointResult> entry : results.entrySet()) {
+            LatencyRecorder.EndpointResult result = entry.getValue();
+            long total = result.requests() + result.errors();
+
+            if (total > 0 && (double) result.errors() / total > MAX_ERROR_RATE) {
+                System.out.printf("ОШИБКИ %s: %d из %d запросов%n", entry.getKey(), result.errors(), total);
+                passed = false;
+            }
+        }
+
+        return passed;
+    }
+
+    /**
+     * Сравнивает результаты с базовым отчетом.
+     *
+     * @param results результаты теста
+     * @return true если регрессий нет или базового отчета нет
+     * @throws IOException если базовый отчет не удалось прочитать
+     */
+    private boolean compareWithBaseline(Map<String, LatencyRecorder.EndpointResult> results) throws IOException {
+        if (!Files.exists(settings.baseline())) {
+            System.out.println("Базовый отчет не найден (" + settings.baseline()
+                    + "), сравнение пропущено; сохранить текущий: -Dloadtest.update-baseline=true");
+            return true;
+        }
+
+        JsonNode baselineReport = objectMapper.readTree(settings.baseline().toFile());
+        JsonNode baseline = baselineReport.path("endpoints");
+        double tolerance = settings.tolerance();
+        boolean passed = true;
+
+        printChanges(results, baseline, baselineReport.path("serverProfiles").asText("?"),
+                baselineReport.path("users").asInt());
+
+        for (Map.Entry<String, LatencyRecorder.EndpointResult> entry : results.entrySet()) {
+            JsonNode base = baseline.path(entry.getKey());
+
+            if (base.isMissingNode()) {
+                continue;
+            }
+
+            LatencyRecorder.EndpointResult current = entry.getValue();
+            double baseP99 = base.path("p99Ms").asDouble();
+            double baseThroughput = base.path("throughput").asDouble();
+
+            if (baseP99 > 0 && current.p99Ms() > baseP99 * (1 + tolerance)) {
+                System.out.printf("РЕГРЕССИЯ %s: p99 %.1f мс, базовый %.1f мс%n", entry.getKey(), current.p99Ms(), baseP99);
+                passed = false;
+            }
+
+            if (baseThroughput > 0 && current.throughput() < baseThroughput * (1 - tolerance)) {
+                System.out.printf("РЕГРЕССИЯ %s: %.1f запросов/с, базовая %.1f запросов/с%n",
+                        entry.getKey(), current.throughput(), baseThroughput);
+                passed = false;
+            }
+        }
+
+        return passed;
+    }
+
+    /**
+     * Выводит изменение пропускной способности и времени ответа каждой операции относительно базового отчета.
+     *
+     * @param results          результаты теста
+     * @param baseline         операции базового отчета
+     * @param baselineProfiles профили приложения базового отчета
+     * @param baselineUsers    количество пользователей базового отчета
+     */
+    private void printChanges(Map<String, LatencyRecorder.EndpointResult> results, JsonNode baseline,
+                              String baselineProfiles, int baselineUsers) {
+        System.out.printf("Изменение относительно базового отчета (профили %s, %d пользователей -> профили %s, %d пользователей):%n",
+                baselineProfiles, baselineUsers, settings.serverProfiles(), settings.users());
+        System.out.printf("%-10s %12s %10s %10s%n", "операция", "запросов/с", "p50", "p99");
+
+        results.forEach((name, current) -> {
+            JsonNode base = baseline.path(name);
+
+            if (!base.isMissingNode()) {
+                System.out.printf("%-10s %12s %10s %10s%n", name,
+                        change(current.throughput(), base.path("throughput").asDouble()),
+                        change(current.p50Ms(), base.path("p50Ms").asDouble()),
+                        change(current.p99Ms(), base.path("p99Ms").asDouble()));
+            }
+        });
+    }
+
+    private static String change(double current, double base) {
+        return base > 0 ? String.format("%+.1f%%", (current / base - 1) * 100) : "-";
+    }
+
+    private static void printResults(Map<String, LatencyRecorder.EndpointResult> results) {
+        System.out.printf("%-10s %10s %8s %12s %10s %10s%n", "операция", "запросов", "ошибок", "запросов/с", "p50, мс", "p99, мс");
+        results.forEach((name, result) -> System.out.printf("%-10s %10d %8d %12.1f %10.1f %10.1f%n",
+                name, result.requests(), result.errors(), result.throughput(), result.p50Ms(), result.p99Ms()));
+    }
+
+    private static void collect(Matcher matcher, Set<Long> target) {
+        while (matcher.find()) {
+            target.add(Long.parseLong(matcher.group(1)));
+        }
+    }
+
+    /**
+     * Извлекает первую обложку из архива во временный файл.
+     *
+     * @param covers архив обложек
+     * @return файл обложки
+     * @throws IOException если архив не удалось прочитать
+     */
+    private static Path extractFirstCover(Path covers) throws IOException {
+        Path target = covers.resolveSibling("cover.png");
+
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(covers))) {
+            zip.getNextEntry();
+            Files.copy(zip, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return target;
+    }
+
+    /**
+     * Операции нагрузки и их доли в смеси.
+     */
+    enum Operation {
+        BROWSE(40, 200),
+        SEARCH(20, 200),
+        PRODUCT(15, 200),
+        IMAGE(15, 200),
+        LOGIN(5, 302),
+        CREATE(5, 302);
+
+        private static final int TOTAL_WEIGHT = 100;
+
+        private final int weight;
+
+        private final int expectedStatus;
+
+        Operation(int weight, int expectedStatus) {
+            this.weight = weight;
+            this.expectedStatus = expectedStatus;
+        }
+
+        int expectedStatus() {
+            return expectedStatus;
+        }
+
+        static Operation pick(Random random) {
+            int value = random.nextInt(TOTAL_WEIGHT);
+
+            for (Operation operation : values()) {
+                value -= operation.weight;
+
+                if (value < 0) {
+                    return operation;
+                }
+            }
+
+            return BROWSE;
+        }
+    }
+
+    /**
+     * Параметры теста.
+     *
+     * @param baseUrl         адрес приложения ({@code loadtest.base-url})
+     * @param users           количество виртуальных пользователей ({@code loadtest.users})
+     * @param warmupSeconds   длительность прогрева ({@code loadtest.warmup-seconds})
+     * @param durationSeconds длительность измерения ({@code loadtest.duration-seconds})
+     * @param albums          количество импортируемых альбомов, 0 - не импортировать ({@code loadtest.albums})
+     * @param seed            зерно генератора ({@code loadtest.seed})
+     * @param password        пароль виртуальных пользователей ({@code loadtest.password})
+     * @param workDirectory   каталог для сгенерированных файлов ({@code loadtest.work-dir})
+     * @param report          файл отчета ({@code loadtest.report})
+     * @param baseline        файл базового отчета ({@code loadtest.baseline})
+     * @param tolerance       допустимое ухудшение относительно базового отчета ({@code loadtest.tolerance})
+     * @param updateBaseline  сохранить ли отчет как базовый ({@code loadtest.update-baseline})
+     * @param serverProfiles  профили приложения, записываемые в отчет ({@code loadtest.server-profiles})
+     */
+    record Settings(URI baseUrl, int users, int warmupSeconds, int durationSeconds, int albums, long seed,
+                    String password, Path workDirectory, Path report, Path baseline, double tolerance,
+                    boolean updateBaseline, String serverProfiles) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    URI.create(System.getProperty("loadtest.base-url", "http://localhost:8080")),
+                    Integer.getInteger("loadtest.users", 16),
+                    Integer.getInteger("loadtest.warmup-seconds", 30),
+                    Integer.getInteger("loadtest.duration-seconds", 120),
+                    Integer.getInteger("loadtest.albums", 5_000),
+                    Long.getLong("loadtest.seed", 42L),
+                    System.getProperty("loadtest.password", "loadtest-password"),
+                    Path.of(System.getProperty("loadtest.work-dir", "target/loadtest")),
+                    Path.of(System.getProperty("loadtest.report", "target/loadtest/report.json")),
+                    Path.of(System.getProperty("loadtest.baseline", "src/loadtest/baseline.json")),
+                    Double.parseDouble(System.getProperty("loadtest.tolerance", "0.15")),
+                    Boolean.getBoolean("loadtest.update-baseline"),
+                    System.getProperty("loadtest.server-profiles", "default"));
+        }
+    }
+}
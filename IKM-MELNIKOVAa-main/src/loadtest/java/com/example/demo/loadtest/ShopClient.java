@@ -0,0 +1,152 @@
+package com.example.demo.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP-клиент магазина для одного виртуального пользователя.
+ * У каждого клиента свои cookie, поэтому сессии виртуальных пользователей не пересекаются.
+ * Перенаправления не выполняются: код 302 после входа или создания продукта считается успешным ответом.
+ */
+final class ShopClient {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUrl;
+
+    private final HttpClient httpClient;
+
+    /**
+     * Конструктор клиента.
+     *
+     * @param baseUrl адрес приложения
+     */
+    ShopClient(URI baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Выполняет GET-запрос, читая тело ответа целиком.
+     *
+     * @param path путь с параметрами
+     * @return ответ
+     * @throws IOException          если запрос не выполнен
+     * @throws InterruptedException если ожидание прервано
+     */
+    HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+        return httpClient.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Выполняет POST-запрос с формой.
+     *
+     * @param path   путь
+     * @param fields поля формы
+     * @return ответ
+     * @throws IOException          если запрос не выполнен
+     * @throws InterruptedException если ожидание прервано
+     */
+    HttpResponse<byte[]> postForm(String path, Map<String, String> fields) throws IOException, InterruptedException {
+        String body = fields.entrySet().stream()
+                .map(field -> URLEncoder.encode(field.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(field.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+
+        return httpClient.send(request(path)
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Выполняет POST-запрос multipart/form-data.
+     *
+     * @param path   путь
+     * @param fields текстовые поля
+     * @param files  файлы по именам полей
+     * @return ответ
+     * @throws IOException          если запрос не выполнен или файл не прочитан
+     * @throws InterruptedException если ожидание прервано
+     */
+    HttpResponse<byte[]> postMultipart(String path, Map<String, String> fields, Map<String, Path> files)
+            throws IOException, InterruptedException {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + field.getKey()
+                    + "\"\r\n\r\n" + field.getValue() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + file.getKey()
+                    + "\"; filename=\"" + file.getValue().getFileName() + "\"\r\nContent-Type: "
+                    + contentType(file.getValue()) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.write(Files.readAllBytes(file.getValue()));
+            body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        return httpClient.send(request(path)
+                        .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Регистрирует пользователя (повторная регистрация существующего пользователя не считается ошибкой)
+     * и входит в систему.
+     *
+     * @param username имя пользователя
+     * @param password пароль
+     * @throws IOException          если вход не выполнен
+     * @throws InterruptedException если ожидание прервано
+     */
+    void registerAndLogin(String username, String password) throws IOException, InterruptedException {
+        postForm("/register", Map.of("username", username, "password", password));
+        HttpResponse<byte[]> login = postForm("/login", Map.of("username", username, "password", password));
+        String location = login.headers().firstValue("Location").orElse("");
+
+        if (login.statusCode() != 302 || location.contains("error")) {
+            throw new IOException("Не удалось войти как " + username + ": " + login.statusCode() + " " + location);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUrl.resolve(path)).timeout(TIMEOUT);
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+
+        if (name.endsWith(".png")) {
+            return "image/png";
+        }
+
+        if (name.endsWith(".zip")) {
+            return "application/zip";
+        }
+
+        return name.endsWith(".ndjson") ? "application/x-ndjson" : "application/octet-stream";
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.configurations;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки аутентификации.
+ * Значения задаются в application.properties с префиксом {@code auth}.
+ */
+@Component
+@ConfigurationProperties(prefix = "auth")
+@Data
+public class AuthProperties {
+
+    /**
+     * Настройки кеша аутентифицированных пользователей.
+     */
+    private PrincipalCache principalCache = new PrincipalCache();
+
+    /**
+     * Настройки режима без серверных сессий.
+     */
+    private SessionToken sessionToken = new SessionToken();
+
+    /**
+     * Настройки хеширования паролей.
+     */
+    private PasswordHashing passwordHashing = new PasswordHashing();
+
+    /**
+     * Настройки кеша аутентифицированных пользователей.
+     */
+    @Data
+    public static class PrincipalCache {
+
+        /**
+         * Включен ли кеш.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Время жизни записи кеша. Изменения, сделанные в обход {@code UserService}
+         * (например, другим экземпляром приложения), становятся видны не позже чем через это время.
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * Максимальное количество пользователей в кеше.
+         */
+        private int maxSize = 10_000;
+    }
+
+    /**
+     * Настройки режима без серверных сессий.
+     * В этом режиме после входа пользователь получает подписанный токен в cookie,
+     * а HttpSession не создается, поэтому запросы можно направлять на любой экземпляр приложения.
+     */
+    @Data
+    public static class SessionToken {
+
+        /**
+         * Включен ли режим без серверных сессий.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Имя cookie с токеном.
+         */
+        private String cookieName = "SOFTA_SESSION";
+
+        /**
+         * Время жизни токена. Токен, прожитый больше чем наполовину, перевыпускается при очередном запросе.
+         */
+        private Duration ttl = Duration.ofHours(8);
+
+        /**
+         * Передавать ли cookie только по HTTPS.
+         */
+        private boolean secureCookie = true;
+
+        /**
+         * Ключи подписи HMAC-SHA256 в Base64 (не короче 32 байт) по их идентификаторам.
+         * Токены, подписанные любым из ключей, принимаются; для ротации новый ключ добавляется
+         * и назначается активным, а старый удаляется после истечения выпущенных им токенов.
+         * Все экземпляры приложения должны использовать одинаковый набор ключей.
+         */
+        private Map<String, String> keys = new LinkedHashMap<>();
+
+        /**
+         * Идентификатор ключа, которым подписываются новые токены.
+         */
+        private String activeKey;
+    }
+
+    /**
+     * Настройки хеширования паролей.
+     * Хеширование выполняется ограниченным пулом потоков, чтобы всплеск входов не занимал
+     * все потоки, обслуживающие остальные запросы.
+     */
+    @Data
+    public static class PasswordHashing {
+
+        /**
+         * Алгоритм для новых хешей: {@code bcrypt}, {@code pbkdf2} или {@code argon2}.
+         * Хеши, созданные другим алгоритмом или с меньшей стоимостью, пересчитываются при входе.
+         */
+        private String algorithm = "bcrypt";
+
+        /**
+         * Стоимость BCrypt (логарифм числа раундов, от 4 до 31).
+         */
+        private int bcryptStrength = 10;
+
+        /**
+         * Подбирать ли стоимость BCrypt при запуске по {@link #targetLatency} на текущем оборудовании
+         * вместо {@link #bcryptStrength}.
+         */
+        private boolean calibrate = false;
+
+        /**
+         * Целевое время вычисления одного хеша при подборе стоимости.
+         */
+        private Duration targetLatency = Duration.ofMillis(250);
+
+        /**
+         * Количество потоков хеширования. По умолчанию - половина доступных процессоров.
+         */
+        private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        /**
+         * Размер очереди ожидающих хеширования запросов. При заполненной очереди вход отклоняется сразу.
+         */
+        private int queueCapacity = 64;
+
+        /**
+         * Максимальное время ожидания результата хеширования, включая время в очереди.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * Время, через которое клиенту предлагается повторить отклоненный запрос.
+         */
+        private Duration retryAfter = Duration.ofSeconds(2);
+    }
+}
\ No newline at end of file
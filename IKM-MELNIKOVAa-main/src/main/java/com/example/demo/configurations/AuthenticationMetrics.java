@@ -0,0 +1,55 @@
+package com.example.demo.configurations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Счетчики результатов входа в систему ({@code softa.auth.logins} с тегом {@code result}).
+ * Время входа складывается из загрузки пользователя ({@code softa.users}) и проверки пароля
+ * ({@code softa.auth.password.hash}).
+ */
+@Component
+public class AuthenticationMetrics {
+    private final Counter successes;
+
+    private final Counter failures;
+
+    /**
+     * Конструктор счетчиков.
+     *
+     * @param registry реестр метрик (не может быть null)
+     * @throws IllegalArgumentException если реестр равен null
+     */
+    public AuthenticationMetrics(MeterRegistry registry) {
+        if (registry == null) {
+            throw new IllegalArgumentException("MeterRegistry не может быть null");
+        }
+
+        this.successes = Counter.builder("softa.auth.logins").tag("result", "success").register(registry);
+        this.failures = Counter.builder("softa.auth.logins").tag("result", "failure").register(registry);
+    }
+
+    /**
+     * Учитывает успешный вход.
+     *
+     * @param event событие успешной аутентификации
+     */
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        successes.increment();
+    }
+
+    /**
+     * Учитывает неудачный вход.
+     *
+     * @param event событие неудачной аутентификации
+     */
+    @EventListener
+    public void onFailure(AbstractAuthenticationFailureEvent event) {
+        failures.increment();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,196 @@
+package com.example.demo.configurations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Кодировщик паролей, выполняющий хеширование в ограниченном пуле потоков.
+ * Одновременно вычисляется не больше хешей, чем потоков в пуле, остальные запросы ждут в очереди
+ * ограниченного размера; если очередь заполнена или ожидание слишком долгое, запрос сразу
+ * отклоняется исключением {@link HashingRejectedException}. Благодаря этому всплеск входов
+ * не занимает процессор целиком и не останавливает обслуживание каталога.
+ * Потоки пула остаются потоками платформы и в режиме виртуальных потоков: хеширование занимает
+ * процессор, а не ждет ввода-вывода, и ограничивать его должно число ядер. Виртуальный поток запроса
+ * при ожидании хеша освобождает поток-носитель.
+ * Время хеширования, время ожидания в очереди и количество отказов публикуются в метриках
+ * {@code softa.auth.password.*}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration timeout;
+
+    private final Duration retryAfter;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Timer queueTimer;
+
+    private final Counter rejections;
+
+    /**
+     * Конструктор кодировщика.
+     *
+     * @param delegate кодировщик, выполняющий хеширование (не может быть null)
+     * @param settings настройки хеширования (не может быть null)
+     * @param registry реестр метрик (не может быть null)
+     * @throws IllegalArgumentException если параметры равны null или настройки некорректны
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, AuthProperties.PasswordHashing settings,
+                                  MeterRegistry registry) {
+        if (delegate == null || settings == null || registry == null) {
+            throw new IllegalArgumentException("Кодировщик, настройки хеширования и реестр метрик не могут быть null");
+        }
+
+        if (settings.getWorkers() <= 0 || settings.getQueueCapacity() <= 0) {
+            throw new IllegalArgumentException("Число потоков и размер очереди хеширования должны быть положительными");
+        }
+
+        this.delegate = delegate;
+        this.timeout = settings.getTimeout();
+        this.retryAfter = settings.getRetryAfter();
+        this.executor = new ThreadPoolExecutor(settings.getWorkers(), settings.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                new CustomizableThreadFactory("password-hash-"), new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = hashTimer(registry, "encode");
+        this.matchesTimer = hashTimer(registry, "matches");
+        this.queueTimer = Timer.builder("softa.auth.password.queue")
+                .description("Время ожидания хеширования в очереди")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejections = Counter.builder("softa.auth.password.rejected")
+                .description("Запросы, отклоненные из-за перегрузки пула хеширования")
+                .register(registry);
+        Gauge.builder("softa.auth.password.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Количество запросов, ожидающих хеширования")
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Проверка необходимости пересчета хеша не требует вычислений и выполняется в потоке запроса.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Останавливает потоки хеширования.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Выполняет вычисление в пуле хеширования и ждет результата.
+     *
+     * @param timer таймер времени вычисления
+     * @param task  вычисление
+     * @param <T>   тип результата
+     * @return результат вычисления
+     * @throws HashingRejectedException если очередь заполнена или результат не получен вовремя
+     */
+    private <T> T run(Timer timer, Callable<T> task) {
+        Future<T> future;
+        long submitted = System.nanoTime();
+
+        try {
+            future = executor.submit(() -> {
+                queueTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        }
+
+        catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new HashingRejectedException("Сервер перегружен проверкой паролей, повторите попытку позже", retryAfter);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new HashingRejectedException("Проверка пароля не выполнена вовремя, повторите попытку позже", retryAfter);
+        }
+
+        catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingRejectedException("Проверка пароля прервана", retryAfter);
+        }
+
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException("Ошибка хеширования пароля", e.getCause());
+        }
+    }
+
+    /**
+     * Создает таймер времени хеширования.
+     *
+     * @param registry  реестр метрик
+     * @param operation операция: {@code encode} или {@code matches}
+     * @return таймер
+     */
+    private static Timer hashTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("softa.auth.password.hash")
+                .tag("operation", operation)
+                .description("Время вычисления хеша пароля")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Исключение, выбрасываемое когда пул хеширования перегружен.
+     * Наследует {@link AuthenticationServiceException}, чтобы при входе оно обрабатывалось
+     * обработчиком неудачной аутентификации, а не приводило к ошибке 500.
+     */
+    public static class HashingRejectedException extends AuthenticationServiceException {
+        private final Duration retryAfter;
+
+        public HashingRejectedException(String message, Duration retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+}
\ No newline at end of file
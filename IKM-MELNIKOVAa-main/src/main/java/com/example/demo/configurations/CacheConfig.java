@@ -0,0 +1,39 @@
+package com.example.demo.configurations;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кешей приложения.
+ * Кеш второго уровня Hibernate и кеши Spring ({@link org.springframework.cache.annotation.Cacheable})
+ * используют один менеджер JCache, настроенный в {@code ehcache.xml}, поэтому все регионы
+ * ограничены в одном месте и публикуются в метриках {@code cache.gets}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    /**
+     * Имя кеша страниц каталога и результатов поиска.
+     */
+    public static final String CATALOG_PAGES = "catalogPages";
+
+    /**
+     * Имя кеша отрисованных HTML-страниц каталога и продуктов.
+     */
+    public static final String RENDERED_PAGES = "renderedPages";
+
+    /**
+     * Передает Hibernate менеджер кешей, созданный Spring, вместо создания отдельного менеджера.
+     *
+     * @param cacheManager менеджер кешей Spring
+     * @return настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCacheCustomizer(JCacheCacheManager cacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager.getCacheManager());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.example.demo.configurations;
+
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+/**
+ * Отдельная регистрация DispatcherServlet для массового импорта каталога.
+ * Ограничения multipart задаются контейнеру на уровне сервлета, поэтому общий лимит
+ * {@code spring.servlet.multipart.*} остается небольшим для форм продуктов, а большие файлы
+ * каталога и архивы обложек принимаются только по адресу {@code /products/import}
+ * с лимитами {@code catalog.bulk-import.max-file-size} и {@code catalog.bulk-import.max-request-size}.
+ * Сервлет использует тот же контекст приложения, контроллеры и цепочку фильтров безопасности.
+ */
+@Configuration
+public class CatalogImportServletConfig {
+    /**
+     * Путь массового импорта.
+     */
+    public static final String IMPORT_PATH = "/products/import";
+
+    /**
+     * Регистрирует сервлет импорта с собственными ограничениями multipart.
+     *
+     * @param context           контекст веб-приложения
+     * @param catalogProperties настройки каталога
+     * @return регистрация сервлета
+     */
+    @Bean
+    public ServletRegistrationBean<DispatcherServlet> catalogImportServlet(WebApplicationContext context,
+                                                                            CatalogProperties catalogProperties) {
+        CatalogProperties.BulkImport settings = catalogProperties.getBulkImport();
+        MultipartConfigFactory multipart = new MultipartConfigFactory();
+        multipart.setMaxFileSize(settings.getMaxFileSize());
+        multipart.setMaxRequestSize(settings.getMaxRequestSize());
+
+        ServletRegistrationBean<DispatcherServlet> registration =
+                new ServletRegistrationBean<>(new DispatcherServlet(context), IMPORT_PATH);
+        registration.setName("catalogImportDispatcherServlet");
+        registration.setMultipartConfig(multipart.createMultipartConfig());
+        return registration;
+    }
+}
\ No newline at end of file
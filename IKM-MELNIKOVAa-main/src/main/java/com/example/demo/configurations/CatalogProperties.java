@@ -0,0 +1,108 @@
+package com.example.demo.configurations;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import java.time.Duration;
+
+/**
+ * Настройки каталога продуктов.
+ * Значения задаются в application.properties с префиксом {@code catalog}.
+ */
+@Component
+@ConfigurationProperties(prefix = "catalog")
+@Data
+public class CatalogProperties {
+
+    /**
+     * Количество продуктов на одной странице каталога.
+     */
+    private int pageSize = 20;
+
+    /**
+     * Интервал сверки версии каталога с базой данных, см. {@link com.example.demo.services.CatalogVersion}.
+     * Ограничивает время, в течение которого экземпляр приложения отдает страницы каталога
+     * и продукты из кеша второго уровня без изменений, сделанных другими экземплярами.
+     */
+    private Duration versionRefreshInterval = Duration.ofSeconds(5);
+
+    /**
+     * Настройки поиска по каталогу.
+     */
+    private Search search = new Search();
+
+    /**
+     * Настройки массового импорта каталога.
+     */
+    private BulkImport bulkImport = new BulkImport();
+
+    /**
+     * Возвращает размер страницы, проверяя его корректность.
+     *
+     * @return размер страницы каталога
+     * @throws IllegalStateException если размер страницы не положителен
+     */
+    public int getPageSize() {
+        if (pageSize <= 0) {
+            throw new IllegalStateException("Размер страницы каталога должен быть положительным");
+        }
+
+        return pageSize;
+    }
+
+    /**
+     * Настройки поиска по каталогу.
+     */
+    @Data
+    public static class Search {
+
+        /**
+         * Поисковый движок: {@code jpa} - запросы к базе данных (по умолчанию; в PostgreSQL
+         * их ускоряют триграммные индексы миграции V3), {@code memory} - встроенный триграммный индекс.
+         * Индекс {@code memory} хранится в памяти каждого экземпляра и перестраивается целиком
+         * после изменений других экземпляров, поэтому подходит для одного экземпляра
+         * или редко изменяемого каталога.
+         */
+        private String engine = "jpa";
+
+        /**
+         * Количество продуктов, читаемых из базы за один запрос при построении индекса.
+         */
+        private int indexBatchSize = 1000;
+    }
+
+    /**
+     * Настройки массового импорта каталога.
+     */
+    @Data
+    public static class BulkImport {
+
+        /**
+         * Количество продуктов, сохраняемых в одной транзакции.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Максимальное количество ошибок строк, сохраняемых в отчете об импорте.
+         */
+        private int maxErrors = 1000;
+
+        /**
+         * Максимальное количество импортов, ожидающих выполнения.
+         * Импорты выполняются по одному; когда очередь заполнена, новые отклоняются с ответом 503.
+         */
+        private int queueCapacity = 2;
+
+        /**
+         * Максимальный размер одного файла в запросе импорта (файл каталога или архив обложек).
+         * Действует только для {@code /products/import}, см. {@link CatalogImportServletConfig}.
+         */
+        private DataSize maxFileSize = DataSize.ofMegabytes(512);
+
+        /**
+         * Максимальный размер всего запроса импорта.
+         */
+        private DataSize maxRequestSize = DataSize.ofGigabytes(1);
+    }
+}
\ No newline at end of file
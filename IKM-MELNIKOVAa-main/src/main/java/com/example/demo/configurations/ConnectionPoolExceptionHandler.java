@@ -0,0 +1,57 @@
+package com.example.demo.configurations;
+
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Обработка исчерпания пула соединений с базой данных.
+ * С виртуальными потоками число одновременно обрабатываемых запросов не ограничено пулом потоков
+ * Tomcat, поэтому ограничением служит пул соединений Hikari: запросы ждут соединение не дольше
+ * {@code spring.datasource.hikari.connection-timeout}, после чего получают ответ 503 с Retry-After
+ * вместо ошибки 500. Остальные ошибки доступа к данным обрабатываются как раньше.
+ */
+@ControllerAdvice
+public class ConnectionPoolExceptionHandler {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * Отвечает 503, если причиной ошибки стало истечение ожидания соединения из пула.
+     *
+     * @param e ошибка доступа к данным или транзакции
+     * @return ответ 503
+     * @throws NestedRuntimeException исходное исключение, если оно не связано с пулом соединений
+     */
+    @ExceptionHandler({DataAccessException.class, TransactionException.class})
+    public ResponseEntity<String> connectionUnavailable(NestedRuntimeException e) {
+        if (!isConnectionTimeout(e)) {
+            throw e;
+        }
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body("Сервер перегружен, повторите попытку позже");
+    }
+
+    /**
+     * Ищет в цепочке причин исключение Hikari об истечении ожидания соединения.
+     */
+    private static boolean isConnectionTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
\ No newline at end of file
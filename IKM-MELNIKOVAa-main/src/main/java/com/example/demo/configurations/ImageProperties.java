@@ -0,0 +1,145 @@
+package com.example.demo.configurations;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки хранения и выдачи изображений.
+ * Значения задаются в application.properties с префиксом {@code images}.
+ */
+@Component
+@ConfigurationProperties(prefix = "images")
+@Data
+public class ImageProperties {
+
+    /**
+     * Настройки файлового хранилища изображений.
+     */
+    private Storage storage = new Storage();
+
+    /**
+     * Настройки кеша содержимого изображений.
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * Настройки уменьшенных копий изображений.
+     */
+    private Variants variants = new Variants();
+
+    /**
+     * Настройки файлового хранилища изображений.
+     */
+    @Data
+    public static class Storage {
+
+        /**
+         * Корневой каталог хранилища.
+         */
+        private Path root = Path.of("data", "images");
+
+        /**
+         * Переносить ли при старте изображения, хранящиеся в базе данных, в файловое хранилище.
+         */
+        private boolean migrateOnStartup = true;
+
+        /**
+         * Количество изображений, переносимых в одной транзакции.
+         */
+        private int migrationBatchSize = 50;
+
+        /**
+         * Время, в течение которого освобожденное содержимое не удаляется из хранилища.
+         * Должно превышать самую долгую транзакцию между сохранением содержимого и фиксацией
+         * ссылающегося на него изображения: иначе параллельная загрузка того же файла может
+         * остаться без содержимого.
+         */
+        private Duration releaseGrace = Duration.ofMinutes(15);
+
+        /**
+         * Интервал между запусками удаления освобожденного содержимого.
+         */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Настройки кеша содержимого изображений.
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * Включен ли кеш.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Максимальный суммарный размер содержимого в кеше.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Максимальный размер одного изображения, помещаемого в кеш.
+         * Более крупные изображения отдаются из файла, чтобы не вытеснять популярные обложки.
+         */
+        private DataSize maxEntrySize = DataSize.ofMegabytes(2);
+
+        /**
+         * Доля кеша, отводимая под защищенный сегмент (изображения, запрошенные хотя бы дважды).
+         */
+        private double protectedRatio = 0.8;
+
+        /**
+         * Хранить ли содержимое вне heap (в direct-буферах).
+         * Крупные обложки тогда не попадают в старое поколение и не нагружают сборщик мусора.
+         */
+        private boolean offHeap = false;
+    }
+
+    /**
+     * Настройки уменьшенных копий изображений.
+     */
+    @Data
+    public static class Variants {
+
+        /**
+         * Допустимые размеры уменьшенных копий (наибольшая сторона в пикселях).
+         * Запрошенный размер округляется вверх до ближайшего допустимого.
+         */
+        private List<Integer> widths = new ArrayList<>(List.of(180, 360, 720));
+
+        /**
+         * Качество сжатия JPEG (от 0 до 1).
+         */
+        private float quality = 0.82f;
+
+        /**
+         * Максимальное число пикселей исходного изображения, которое допускается декодировать.
+         */
+        private long maxSourcePixels = 50_000_000L;
+
+        /**
+         * Создавать ли уменьшенные копии сразу после загрузки изображения.
+         */
+        private boolean generateOnUpload = true;
+
+        /**
+         * Время, в течение которого после неудачной попытки создать копию отдается исходное
+         * изображение без повторного декодирования. Ноль отключает запоминание ошибок.
+         */
+        private Duration failureTtl = Duration.ofMinutes(10);
+
+        /**
+         * Максимальное число копий, создаваемых одновременно во всем приложении.
+         * Когда все места заняты, на запрос копии сразу отдается исходное изображение.
+         * По умолчанию равно числу процессоров.
+         */
+        private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.example.demo.configurations;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация сериализации JSON для REST API.
+ * Подключает модуль Blackbird, который заменяет обращения к методам доступа через reflection
+ * сгенерированными лямбдами, и задает фильтр выборочных полей по умолчанию.
+ */
+@Configuration
+public class JacksonConfig {
+    /**
+     * Имя фильтра Jackson, которым отмечены DTO с выборочной сериализацией полей
+     * (параметр {@code fields} в API).
+     */
+    public static final String FIELDS_FILTER = "fields";
+
+    /**
+     * Создает модуль Blackbird. Spring Boot регистрирует бины {@link Module} в общем {@code ObjectMapper}.
+     *
+     * @return модуль Blackbird
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    /**
+     * Задает фильтр {@link #FIELDS_FILTER}, который выводит все поля, если запрос не выбрал поля явно.
+     * Без него сериализация DTO с фильтром вне API завершилась бы ошибкой.
+     *
+     * @return настройка ObjectMapper
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldsFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(FIELDS_FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
\ No newline at end of file
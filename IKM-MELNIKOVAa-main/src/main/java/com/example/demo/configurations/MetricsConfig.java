@@ -0,0 +1,140 @@
+package com.example.demo.configurations;
+
+import com.example.demo.services.ImageByteCache;
+import com.example.demo.services.PrincipalCache;
+import com.example.demo.services.RateLimiter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Конфигурация метрик приложения.
+ * Включает обработку {@link io.micrometer.core.annotation.Timed} на сервисах и публикует
+ * статистику внутренних кешей и ограничителя частоты. Метрики HTTP-запросов, пула соединений Hikari
+ * и статистика Hibernate регистрируются автоконфигурацией Spring Boot, как и метрики виртуальных потоков
+ * из событий JFR ({@code jvm.threads.virtual.pinned} - блокировки потока-носителя в {@code synchronized}
+ * и нативных вызовах, {@code jvm.threads.virtual.submit.failed}). В режиме виртуальных потоков очередь
+ * запросов, ожидающих соединение, видна в {@code hikaricp.connections.pending}.
+ * Все метрики доступны Prometheus по адресу {@code /actuator/prometheus} на порту управления
+ * {@code management.server.port}, который слушает только внутренний интерфейс
+ * {@code management.server.address} (см. {@link SecurityConfig}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Создает аспект, измеряющий время методов, отмеченных {@link io.micrometer.core.annotation.Timed}.
+     *
+     * @param registry реестр метрик
+     * @return аспект
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    /**
+     * Публикует статистику кеша содержимого изображений.
+     *
+     * @param imageByteCache кеш изображений
+     * @return регистратор метрик кеша
+     */
+    @Bean
+    public MeterBinder imageByteCacheMetrics(ImageByteCache imageByteCache) {
+        return registry -> {
+            bindCacheStats(registry, "images", imageByteCache, ImageByteCache::stats,
+                    ImageByteCache.Stats::hits, ImageByteCache.Stats::misses, ImageByteCache.Stats::evictions,
+                    ImageByteCache.Stats::entries, ImageByteCache.Stats::hitRatio);
+            Gauge.builder("softa.cache.bytes", imageByteCache, cache -> cache.stats().bytes())
+                    .tag("cache", "images")
+                    .baseUnit("bytes")
+                    .description("Объем содержимого в кеше")
+                    .register(registry);
+            Gauge.builder("softa.cache.max.bytes", imageByteCache, cache -> cache.stats().maxBytes())
+                    .tag("cache", "images")
+                    .baseUnit("bytes")
+                    .description("Максимальный объем кеша")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Публикует статистику кеша аутентифицированных пользователей.
+     *
+     * @param principalCache кеш пользователей
+     * @return регистратор метрик кеша
+     */
+    @Bean
+    public MeterBinder principalCacheMetrics(PrincipalCache principalCache) {
+        return registry -> bindCacheStats(registry, "principals", principalCache, PrincipalCache::stats,
+                PrincipalCache.Stats::hits, PrincipalCache.Stats::misses, PrincipalCache.Stats::evictions,
+                PrincipalCache.Stats::entries, PrincipalCache.Stats::hitRatio);
+    }
+
+    /**
+     * Публикует количество отклоненных ограничителем запросов и число отслеживаемых клиентов.
+     *
+     * @param rateLimiter ограничитель частоты
+     * @return регистратор метрик ограничителя
+     */
+    @Bean
+    public MeterBinder rateLimiterMetrics(RateLimiter rateLimiter) {
+        return registry -> {
+            FunctionCounter.builder("softa.ratelimit.rejected", rateLimiter, RateLimiter::rejectedCount)
+                    .description("Запросы, отклоненные ограничением частоты")
+                    .register(registry);
+            Gauge.builder("softa.ratelimit.keys", rateLimiter, RateLimiter::size)
+                    .description("Количество отслеживаемых клиентов")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Регистрирует общие для кешей метрики с тегом {@code cache}.
+     * Метрики ссылаются на сам кеш (бин живет все время работы приложения),
+     * а значения берутся из снимка статистики при каждом чтении.
+     *
+     * @param registry  реестр метрик
+     * @param name      имя кеша
+     * @param cache     кеш
+     * @param stats     получение снимка статистики кеша
+     * @param hits      количество попаданий
+     * @param misses    количество промахов
+     * @param evictions количество вытеснений
+     * @param entries   количество записей
+     * @param hitRatio  доля попаданий
+     * @param <C>       тип кеша
+     * @param <S>       тип снимка статистики
+     */
+    private static <C, S> void bindCacheStats(MeterRegistry registry, String name, C cache, Function<C, S> stats,
+                                              ToDoubleFunction<S> hits, ToDoubleFunction<S> misses,
+                                              ToDoubleFunction<S> evictions, ToDoubleFunction<S> entries,
+                                              ToDoubleFunction<S> hitRatio) {
+        FunctionCounter.builder("softa.cache.gets", cache, c -> hits.applyAsDouble(stats.apply(c)))
+                .tags("cache", name, "result", "hit")
+                .description("Обращения к кешу")
+                .register(registry);
+        FunctionCounter.builder("softa.cache.gets", cache, c -> misses.applyAsDouble(stats.apply(c)))
+                .tags("cache", name, "result", "miss")
+                .description("Обращения к кешу")
+                .register(registry);
+        FunctionCounter.builder("softa.cache.evictions", cache, c -> evictions.applyAsDouble(stats.apply(c)))
+                .tag("cache", name)
+                .description("Удаленные из кеша записи")
+                .register(registry);
+        Gauge.builder("softa.cache.size", cache, c -> entries.applyAsDouble(stats.apply(c)))
+                .tag("cache", name)
+                .description("Количество записей в кеше")
+                .register(registry);
+        Gauge.builder("softa.cache.hit.ratio", cache, c -> hitRatio.applyAsDouble(stats.apply(c)))
+                .tag("cache", name)
+                .description("Доля попаданий в кеш с момента запуска")
+                .register(registry);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.demo.configurations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Подбор стоимости BCrypt под оборудование, на котором запущено приложение.
+ * Для каждой стоимости измеряется медианное время вычисления хеша и выбирается наибольшая стоимость,
+ * укладывающаяся в целевое время. Каждое увеличение стоимости на единицу удваивает время хеширования,
+ * поэтому измерение прекращается, как только целевое время превышено.
+ * <p>
+ * Запуск на целевом сервере: {@code java -cp app.jar -Dloader.main=com.example.demo.configurations.PasswordCostCalibrator
+ * org.springframework.boot.loader.launch.PropertiesLauncher 250}, где последний аргумент - целевое время в миллисекундах.
+ */
+@Slf4j
+public final class PasswordCostCalibrator {
+    private static final int MIN_STRENGTH = 8;
+
+    private static final int MAX_STRENGTH = 16;
+
+    private static final int SAMPLES = 5;
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private PasswordCostCalibrator() {
+    }
+
+    /**
+     * Подбирает стоимость BCrypt.
+     *
+     * @param targetLatency целевое время вычисления одного хеша (не может быть null)
+     * @return наибольшая стоимость, укладывающаяся в целевое время (не меньше {@value #MIN_STRENGTH})
+     * @throws IllegalArgumentException если целевое время равно null или не положительно
+     */
+    public static int calibrateBcrypt(Duration targetLatency) {
+        if (targetLatency == null || targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("Целевое время хеширования должно быть положительным");
+        }
+
+        // Прогрев JIT, чтобы первое измерение не было завышено
+        measure(new BCryptPasswordEncoder(MIN_STRENGTH));
+
+        int chosen = MIN_STRENGTH;
+
+        for (int strength = MIN_STRENGTH; strength <= MAX_STRENGTH; strength++) {
+            Duration median = measure(new BCryptPasswordEncoder(strength));
+            log.info("BCrypt со стоимостью {}: медианное время хеширования {} мс", strength, median.toMillis());
+
+            if (median.compareTo(targetLatency) > 0) {
+                break;
+            }
+
+            chosen = strength;
+        }
+
+        log.info("Выбрана стоимость BCrypt {} для целевого времени {} мс", chosen, targetLatency.toMillis());
+        return chosen;
+    }
+
+    /**
+     * Измеряет медианное время вычисления хеша.
+     *
+     * @param encoder кодировщик
+     * @return медианное время
+     */
+    private static Duration measure(BCryptPasswordEncoder encoder) {
+        long[] samples = new long[SAMPLES];
+
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(samples);
+        return Duration.ofNanos(samples[SAMPLES / 2]);
+    }
+
+    /**
+     * Подбирает стоимость на текущем оборудовании и выводит ее.
+     *
+     * @param args целевое время в миллисекундах (по умолчанию 250)
+     */
+    public static void main(String[] args) {
+        Duration target = Duration.ofMillis(args.length > 0 ? Long.parseLong(args[0]) : 250);
+        System.out.println("auth.password-hashing.bcrypt-strength=" + calibrateBcrypt(target));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.example.demo.configurations;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Profiles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Проверка настроек при запуске с профилем {@code prod}.
+ * Отказывает в запуске, если в окружении остались настройки, допустимые только при отладке:
+ * вывод SQL в stdout, изменение схемы Hibernate при старте, выполнение скриптов инициализации,
+ * отладочное журналирование запросов и параметров и т.п. Схема в production управляется
+ * только миграциями Flyway, а endpoints actuator обслуживаются на отдельном порту управления.
+ * Проверка выполняется после загрузки всех источников настроек, но до создания контекста,
+ * поэтому приложение не успевает открыть соединения с базой данных.
+ * Регистрируется в {@code META-INF/spring.factories}.
+ */
+public class ProductionSettingsValidator implements EnvironmentPostProcessor, Ordered {
+    /**
+     * Имя профиля, для которого выполняется проверка.
+     */
+    public static final String PROFILE = "prod";
+
+    private static final Set<String> ALLOWED_DDL_AUTO = Set.of("none", "validate");
+
+    private static final Set<String> VERBOSE_LEVELS = Set.of("debug", "trace", "all");
+
+    private static final List<String> SQL_LOGGERS = List.of(
+            "org.hibernate.SQL",
+            "org.hibernate.orm.jdbc.bind",
+            "org.hibernate.type.descriptor.sql",
+            "org.springframework.jdbc.core");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.acceptsProfiles(Profiles.of(PROFILE))) {
+            return;
+        }
+
+        List<String> violations = validate(environment);
+
+        if (!violations.isEmpty()) {
+            throw new InvalidProductionSettingsException(violations);
+        }
+    }
+
+    /**
+     * Проверяет окружение без учета активных профилей.
+     *
+     * @param environment окружение (не может быть null)
+     * @return список нарушений (пустой, если настройки допустимы)
+     * @throws IllegalArgumentException если окружение равно null
+     */
+    public List<String> validate(ConfigurableEnvironment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Окружение не может быть null");
+        }
+
+        List<String> violations = new ArrayList<>();
+
+        requireNotTrue(environment, "spring.jpa.show-sql", violations);
+        requireNotTrue(environment, "spring.jpa.properties.hibernate.format_sql", violations);
+        requireNotTrue(environment, "spring.jpa.properties.hibernate.use_sql_comments", violations);
+        requireNotTrue(environment, "spring.h2.console.enabled", violations);
+        requireNotTrue(environment, "debug", violations);
+        requireNotTrue(environment, "trace", violations);
+
+        String ddlAuto = environment.getProperty("spring.jpa.hibernate.ddl-auto", "none").trim().toLowerCase();
+
+        if (!ALLOWED_DDL_AUTO.contains(ddlAuto)) {
+            violations.add("spring.jpa.hibernate.ddl-auto=" + ddlAuto + " (допустимо: none, validate)");
+        }
+
+        if ("always".equalsIgnoreCase(environment.getProperty("spring.sql.init.mode", "never").trim())) {
+            violations.add("spring.sql.init.mode=always (схема управляется миграциями Flyway)");
+        }
+
+        if (!environment.getProperty("spring.flyway.enabled", Boolean.class, true)) {
+            violations.add("spring.flyway.enabled=false (схема управляется миграциями Flyway)");
+        }
+
+        if (!environment.getProperty("spring.flyway.clean-disabled", Boolean.class, true)) {
+            violations.add("spring.flyway.clean-disabled=false (очистка схемы удаляет все данные)");
+        }
+
+        if (!environment.getProperty("auth.session-token.secure-cookie", Boolean.class, true)) {
+            violations.add("auth.session-token.secure-cookie=false (cookie сессии передается без HTTPS)");
+        }
+
+        if (ManagementPortType.get(environment) != ManagementPortType.DIFFERENT) {
+            violations.add("management.server.port совпадает с server.port (метрики доступны на основном порту)");
+        }
+
+        for (String logger : SQL_LOGGERS) {
+            String level = environment.getProperty("logging.level." + logger);
+
+            if (level != null && VERBOSE_LEVELS.contains(level.trim().toLowerCase())) {
+                violations.add("logging.level." + logger + "=" + level);
+            }
+        }
+
+        return violations;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    private static void requireNotTrue(ConfigurableEnvironment environment, String property, List<String> violations) {
+        if (environment.getProperty(property, Boolean.class, false)) {
+            violations.add(property + "=true");
+        }
+    }
+
+    /**
+     * Исключение, выбрасываемое при запуске профиля {@code prod} с отладочными настройками.
+     */
+    public static class InvalidProductionSettingsException extends IllegalStateException {
+        private final List<String> violations;
+
+        /**
+         * Конструктор исключения.
+         *
+         * @param violations список нарушений
+         */
+        public InvalidProductionSettingsException(List<String> violations) {
+            super("Профиль " + PROFILE + " запущен с отладочными настройками: " + String.join("; ", violations));
+            this.violations = List.copyOf(violations);
+        }
+
+        /**
+         * Возвращает список нарушений.
+         *
+         * @return список нарушений
+         */
+        public List<String> getViolations() {
+            return violations;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package com.example.demo.configurations;
+
+import com.example.demo.services.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Фильтр ограничения частоты запросов к входу, регистрации и изменению продуктов.
+ * Правила задаются в настройках {@code rate-limit.policies}; запросы, не подходящие ни под одно правило,
+ * пропускаются после сравнения метода и пути без обращения к счетчикам.
+ * При превышении лимита возвращается ответ 429 с заголовком Retry-After.
+ * Клиенты различаются по адресу, который Tomcat определяет с учетом {@code X-Forwarded-For}
+ * ({@code server.forward-headers-strategy=native}), но только для запросов от доверенных прокси
+ * из {@code server.tomcat.remoteip.internal-proxies}: от остальных заголовок игнорируется,
+ * и подменить им адрес нельзя. По умолчанию доверенным считается только локальный адрес; за
+ * балансировщиком в настройке перечисляются его адреса.
+ * Регистрируется только в цепочке фильтров безопасности, а не как отдельный фильтр контейнера.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private final RateLimiter rateLimiter;
+
+    private final List<Rule> rules;
+
+    /**
+     * Конструктор фильтра.
+     *
+     * @param rateLimiter         ограничитель частоты (не может быть null)
+     * @param rateLimitProperties настройки ограничения частоты (не может быть null)
+     * @throws IllegalArgumentException если параметры равны null или правило не содержит шаблона пути
+     */
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties rateLimitProperties) {
+        if (rateLimiter == null || rateLimitProperties == null) {
+            throw new IllegalArgumentException("Ограничитель и настройки ограничения частоты не могут быть null");
+        }
+
+        this.rateLimiter = rateLimiter;
+        this.rules = rateLimitProperties.getPolicies().entrySet().stream()
+                .map(entry -> {
+                    RateLimitProperties.Policy policy = entry.getValue();
+
+                    if (!StringUtils.hasText(policy.getPattern())) {
+                        throw new IllegalArgumentException("Не задан шаблон пути для правила " + entry.getKey());
+                    }
+
+                    String method = StringUtils.hasText(policy.getMethod()) ? policy.getMethod() : null;
+                    return new Rule(entry.getKey(), new AntPathRequestMatcher(policy.getPattern(), method), policy);
+                })
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        for (Rule rule : rules) {
+            if (!rule.matcher().matches(request)) {
+                continue;
+            }
+
+            Duration wait = rateLimiter.acquire(rule.name() + ':' + clientKey(request, rule.policy()), rule.policy());
+
+            if (!wait.isZero()) {
+                long seconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+                response.setContentType("text/plain;charset=UTF-8");
+                response.getOutputStream().write("Слишком много запросов, повторите попытку позже"
+                        .getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Определяет ключ клиента для правила.
+     *
+     * @param request HTTP-запрос
+     * @param policy  правило ограничения
+     * @return имя пользователя или IP-адрес клиента, определенный с учетом доверенных прокси
+     */
+    private static String clientKey(HttpServletRequest request, RateLimitProperties.Policy policy) {
+        if (policy.getKey() == RateLimitProperties.KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Правило ограничения с заранее созданным сопоставителем запросов.
+     *
+     * @param name    имя правила
+     * @param matcher сопоставитель метода и пути
+     * @param policy  параметры ограничения
+     */
+    private record Rule(String name, AntPathRequestMatcher matcher, RateLimitProperties.Policy policy) {
+    }
+}
\ No newline at end of file
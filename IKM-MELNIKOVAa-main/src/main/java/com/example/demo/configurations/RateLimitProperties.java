@@ -0,0 +1,84 @@
+package com.example.demo.configurations;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки ограничения частоты запросов.
+ * Значения задаются в application.properties с префиксом {@code rate-limit}.
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitProperties {
+
+    /**
+     * Включено ли ограничение частоты запросов.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Максимальное количество отслеживаемых клиентов (пар правило - пользователь или адрес).
+     * Ограничивает память, занимаемую счетчиками, при запросах с большого числа адресов.
+     */
+    private int maxKeys = 100_000;
+
+    /**
+     * Правила ограничения по их именам.
+     */
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    /**
+     * Правило ограничения для группы адресов.
+     * Клиенту разрешается {@link #capacity} запросов подряд, после чего запросы разрешаются
+     * равномерно с той же средней частотой: {@link #capacity} запросов за {@link #period}.
+     */
+    @Data
+    public static class Policy {
+
+        /**
+         * HTTP-метод запросов, к которым применяется правило (пустое значение - любой метод).
+         */
+        private String method = "POST";
+
+        /**
+         * Шаблон пути в формате Ant, например {@code /product/update/**}.
+         */
+        private String pattern;
+
+        /**
+         * Чем различаются клиенты: пользователем или IP-адресом.
+         */
+        private KeyType key = KeyType.USER;
+
+        /**
+         * Количество запросов, разрешенных за период.
+         */
+        private int capacity = 10;
+
+        /**
+         * Период, за который восстанавливается весь запас запросов.
+         */
+        private Duration period = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Способ различения клиентов.
+     */
+    public enum KeyType {
+
+        /**
+         * По имени аутентифицированного пользователя, а для анонимных запросов - по IP-адресу.
+         */
+        USER,
+
+        /**
+         * По IP-адресу.
+         */
+        IP
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.demo.configurations;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает выполнение периодических задач ({@link org.springframework.scheduling.annotation.Scheduled}),
+ * например удаления освобожденного содержимого изображений.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
\ No newline at end of file
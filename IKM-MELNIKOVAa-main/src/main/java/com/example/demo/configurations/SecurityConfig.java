@@ -1,17 +1,51 @@
 package com.example.demo.configurations;
 
+import com.example.demo.models.UserPrincipal;
+import com.example.demo.services.RateLimiter;
+import com.example.demo.services.SessionTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.DelegatingAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Конфигурация безопасности приложения.
  * Настраивает аутентификацию, авторизацию.
+ * В режиме без серверных сессий ({@code auth.session-token.enabled}) пользователь хранится
+ * в подписанном токене в cookie, и HttpSession не создается.
+ * Неаутентифицированные запросы к REST API ({@code /api/**}) получают 401 вместо перенаправления на вход.
+ * Endpoints actuator обслуживаются на отдельном порту {@code management.server.port}, привязанном
+ * к внутреннему интерфейсу {@code management.server.address}: Prometheus опрашивает
+ * {@code http://<внутренний адрес>:<порт управления>/actuator/prometheus} без аутентификации,
+ * а на основном порту эти адреса недоступны. Если порт управления совпадает с основным,
+ * без аутентификации доступна только проверка состояния.
  */
 @Configuration
 @EnableWebSecurity
@@ -20,35 +54,79 @@ public class SecurityConfig {
     /**
      * Настраивает цепочку фильтров безопасности.
      *
-     * @param http объект для настройки безопасности HTTP
+     * @param http                объект для настройки безопасности HTTP
+     * @param sessionTokenService сервис токенов сессии
+     * @param rateLimiter         ограничитель частоты запросов
+     * @param rateLimitProperties настройки ограничения частоты запросов
+     * @param environment         окружение приложения
      * @return сконфигурированная цепочка фильтров безопасности
      * @throws Exception если произошла ошибка при настройке
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, SessionTokenService sessionTokenService,
+                                           RateLimiter rateLimiter, RateLimitProperties rateLimitProperties,
+                                           Environment environment)
+            throws Exception {
         if (http == null) {
             throw new IllegalArgumentException("HttpSecurity не может быть null");
         }
 
+        if (sessionTokenService == null) {
+            throw new IllegalArgumentException("SessionTokenService не может быть null");
+        }
+
+        boolean separateManagementPort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
+
         try {
             http
                     .csrf(csrf -> csrf.disable())
-                    .authorizeHttpRequests(authz -> authz
-                            .requestMatchers(new AntPathRequestMatcher("/register")).permitAll()
-                            .requestMatchers(new AntPathRequestMatcher("/login")).permitAll()
-                            .anyRequest().authenticated()
-                    )
+                    .authorizeHttpRequests(authz -> {
+                        authz
+                                .requestMatchers(new AntPathRequestMatcher("/register")).permitAll()
+                                .requestMatchers(new AntPathRequestMatcher("/login")).permitAll()
+                                .requestMatchers(EndpointRequest.to("health")).permitAll();
+
+                        // На общем с приложением порту метрики доступны только после входа
+                        if (separateManagementPort) {
+                            authz.requestMatchers(EndpointRequest.to("prometheus")).permitAll();
+                        }
+
+                        authz.anyRequest().authenticated();
+                    })
                     .formLogin(form -> form
                             .loginPage("/login")
                             .defaultSuccessUrl("/", true)
-                            .failureUrl("/login?error=true")
+                            .failureHandler((request, response, exception) -> {
+                                if (exception instanceof BoundedPasswordEncoder.HashingRejectedException rejected) {
+                                    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                                    response.setHeader(HttpHeaders.RETRY_AFTER,
+                                            String.valueOf(Math.max(1, rejected.getRetryAfter().toSeconds())));
+                                    response.setContentType("text/plain;charset=UTF-8");
+                                    response.getOutputStream().write(rejected.getMessage().getBytes(StandardCharsets.UTF_8));
+                                    return;
+                                }
+
+                                response.sendRedirect(request.getContextPath() + "/login?error=true");
+                            })
                     )
                     .logout(logout -> logout
                             .logoutUrl("/logout")
                             .logoutSuccessUrl("/login?logout=true")
                             .invalidateHttpSession(true)
                             .deleteCookies("JSESSIONID")
-                    );
+                    )
+                    .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(authenticationEntryPoint()));
+
+            if (sessionTokenService.isEnabled()) {
+                configureSessionTokens(http, sessionTokenService);
+            }
+
+            // Добавляется после фильтра токенов, чтобы лимиты по пользователю видели аутентификацию из токена
+            if (rateLimitProperties.isEnabled() && !rateLimitProperties.getPolicies().isEmpty()) {
+                http.addFilterBefore(new RateLimitFilter(rateLimiter, rateLimitProperties),
+                        UsernamePasswordAuthenticationFilter.class);
+            }
+
             return http.build();
         }
 
@@ -57,14 +135,92 @@ public class SecurityConfig {
         }
     }
 
+    /**
+     * Создает точку входа для неаутентифицированных запросов: клиенты REST API получают 401,
+     * остальные запросы перенаправляются на страницу входа.
+     *
+     * @return точка входа аутентификации
+     */
+    private static AuthenticationEntryPoint authenticationEntryPoint() {
+        LinkedHashMap<RequestMatcher, AuthenticationEntryPoint> entryPoints = new LinkedHashMap<>();
+        entryPoints.put(new AntPathRequestMatcher("/api/**"), new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED));
+        DelegatingAuthenticationEntryPoint entryPoint = new DelegatingAuthenticationEntryPoint(entryPoints);
+        entryPoint.setDefaultEntryPoint(new LoginUrlAuthenticationEntryPoint("/login"));
+        return entryPoint;
+    }
+
+    /**
+     * Переключает аутентификацию на подписанные токены: сессии не создаются, контекст безопасности
+     * восстанавливается из cookie фильтром {@link SessionTokenFilter}, при входе выпускается токен,
+     * при выходе он отзывается.
+     *
+     * @param http                объект для настройки безопасности HTTP
+     * @param sessionTokenService сервис токенов сессии
+     * @throws Exception если произошла ошибка при настройке
+     */
+    private void configureSessionTokens(HttpSecurity http, SessionTokenService sessionTokenService) throws Exception {
+        http
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(context -> context.securityContextRepository(new NullSecurityContextRepository()))
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                .formLogin(form -> form
+                        .successHandler((request, response, authentication) -> {
+                            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+                            response.addHeader(HttpHeaders.SET_COOKIE,
+                                    sessionTokenService.cookie(sessionTokenService.issue(principal)).toString());
+                            response.sendRedirect(request.getContextPath() + "/");
+                        })
+                )
+                .logout(logout -> logout
+                        .addLogoutHandler((request, response, authentication) -> {
+                            Cookie[] cookies = request.getCookies();
+
+                            if (cookies != null) {
+                                for (Cookie cookie : cookies) {
+                                    if (sessionTokenService.getCookieName().equals(cookie.getName())) {
+                                        sessionTokenService.revoke(cookie.getValue());
+                                    }
+                                }
+                            }
+
+                            response.addHeader(HttpHeaders.SET_COOKIE, sessionTokenService.clearCookie().toString());
+                        })
+                )
+                .addFilterBefore(new SessionTokenFilter(sessionTokenService), UsernamePasswordAuthenticationFilter.class);
+    }
+
     /**
      * Создает кодировщик паролей.
+     * Новые хеши создаются алгоритмом из настроек и хранятся с префиксом алгоритма
+     * ({@code {bcrypt}...}); хеши без префикса, созданные до этого, проверяются как BCrypt.
+     * При входе хеш с другим алгоритмом или меньшей стоимостью пересчитывается
+     * через {@link org.springframework.security.core.userdetails.UserDetailsPasswordService}.
+     * Хеширование выполняется в ограниченном пуле потоков {@link BoundedPasswordEncoder}.
      *
-     * @return экземпляр BCryptPasswordEncoder
+     * @param authProperties настройки аутентификации
+     * @param registry       реестр метрик
+     * @return кодировщик паролей
+     * @throws IllegalArgumentException если алгоритм не поддерживается
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(AuthProperties authProperties, MeterRegistry registry) {
+        AuthProperties.PasswordHashing settings = authProperties.getPasswordHashing();
+        int strength = settings.isCalibrate()
+                ? PasswordCostCalibrator.calibrateBcrypt(settings.getTargetLatency())
+                : settings.getBcryptStrength();
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(strength));
+        encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(settings.getAlgorithm())) {
+            throw new IllegalArgumentException("Неподдерживаемый алгоритм хеширования паролей: " + settings.getAlgorithm());
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(settings.getAlgorithm(), encoders);
+        delegating.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));
+        return new BoundedPasswordEncoder(delegating, settings, registry);
     }
 
     /**
@@ -0,0 +1,90 @@
+package com.example.demo.configurations;
+
+import com.example.demo.services.SessionTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Фильтр аутентификации по подписанному токену из cookie.
+ * Восстанавливает пользователя из токена без обращения к базе данных и хранилищу сессий,
+ * перевыпускает токен, когда прожита больше половины его срока, и удаляет недействительный токен.
+ * Регистрируется только в цепочке фильтров безопасности, а не как отдельный фильтр контейнера.
+ */
+public class SessionTokenFilter extends OncePerRequestFilter {
+    private final SessionTokenService sessionTokenService;
+
+    /**
+     * Конструктор фильтра.
+     *
+     * @param sessionTokenService сервис токенов сессии (не может быть null)
+     * @throws IllegalArgumentException если сервис равен null
+     */
+    public SessionTokenFilter(SessionTokenService sessionTokenService) {
+        if (sessionTokenService == null) {
+            throw new IllegalArgumentException("SessionTokenService не может быть null");
+        }
+
+        this.sessionTokenService = sessionTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Optional<String> token = readToken(request);
+
+        if (token.isPresent()) {
+            Optional<SessionTokenService.VerifiedToken> verified = sessionTokenService.verify(token.get());
+
+            if (verified.isPresent()) {
+                SessionTokenService.VerifiedToken session = verified.get();
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                        session.principal(), null, session.principal().getAuthorities()));
+                SecurityContextHolder.setContext(context);
+
+                if (session.shouldRenew()) {
+                    response.addHeader(HttpHeaders.SET_COOKIE,
+                            sessionTokenService.cookie(sessionTokenService.issue(session.principal())).toString());
+                }
+            }
+
+            else {
+                response.addHeader(HttpHeaders.SET_COOKIE, sessionTokenService.clearCookie().toString());
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Читает токен из cookie запроса.
+     *
+     * @param request HTTP-запрос
+     * @return {@link Optional} с токеном или пустой, если cookie нет
+     */
+    private Optional<String> readToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+
+        if (cookies == null) {
+            return Optional.empty();
+        }
+
+        for (Cookie cookie : cookies) {
+            if (sessionTokenService.getCookieName().equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return Optional.of(cookie.getValue());
+            }
+        }
+
+        return Optional.empty();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.demo.configurations;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Настройки фоновой обработки загружаемых продуктов.
+ * Значения задаются в application.properties с префиксом {@code uploads}.
+ */
+@Component
+@ConfigurationProperties(prefix = "uploads")
+@Data
+public class UploadProperties {
+
+    /**
+     * Каталог, в который сохраняются загруженные файлы до их обработки.
+     */
+    private Path stagingDir = Path.of("data", "uploads");
+
+    /**
+     * Максимальный размер одного изображения.
+     * Ограничения multipart-запроса выше, чтобы через массовый импорт можно было загрузить архив обложек.
+     */
+    private DataSize maxImageSize = DataSize.ofMegabytes(2);
+
+    /**
+     * Количество потоков, обрабатывающих загрузки.
+     */
+    private int workers = 2;
+
+    /**
+     * Максимальное количество загрузок, ожидающих обработки.
+     * Когда очередь заполнена, новые загрузки отклоняются с ответом 503.
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * Время, через которое клиенту предлагается повторить отклоненную загрузку.
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    /**
+     * Время, в течение которого хранится статус завершенной загрузки.
+     */
+    private Duration statusRetention = Duration.ofHours(1);
+
+    /**
+     * Интервал между удалениями устаревших состояний загрузок из базы данных.
+     */
+    private Duration statusPurgeInterval = Duration.ofMinutes(10);
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.example.demo.configurations;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Фабрика рабочих потоков фоновой обработки (загрузки, массовый импорт).
+ * При {@code spring.threads.virtual.enabled=true} рабочие потоки создаются виртуальными, как и потоки
+ * обработки запросов Tomcat, {@code applicationTaskExecutor} и планировщик задач Spring Boot.
+ * Число рабочих потоков и очереди пулов при этом не меняются: они по-прежнему ограничивают
+ * фоновую нагрузку, а ожидание соединения и ввод-вывод больше не занимают потоки платформы.
+ */
+@Component
+public class WorkerThreads {
+    private final boolean virtual;
+
+    /**
+     * Конструктор фабрики.
+     *
+     * @param environment окружение приложения (не может быть null)
+     * @throws IllegalArgumentException если окружение равно null
+     */
+    public WorkerThreads(Environment environment) {
+        if (environment == null) {
+            throw new IllegalArgumentException("Окружение не может быть null");
+        }
+
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+    }
+
+    /**
+     * Проверяет, включены ли виртуальные потоки.
+     *
+     * @return true если рабочие потоки создаются виртуальными
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Создает фабрику потоков с именами {@code <prefix>1}, {@code <prefix>2}, ...
+     *
+     * @param prefix префикс имени потока (не может быть пустым)
+     * @return фабрика потоков
+     * @throws IllegalArgumentException если префикс пуст
+     */
+    public ThreadFactory factory(String prefix) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Префикс имени потока не может быть пустым");
+        }
+
+        return virtual ? Thread.ofVirtual().name(prefix, 1).factory() : new CustomizableThreadFactory(prefix);
+    }
+}
\ No newline at end of file
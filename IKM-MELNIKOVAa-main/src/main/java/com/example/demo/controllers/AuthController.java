@@ -1,12 +1,19 @@
 package com.example.demo.controllers;
 
+import com.example.demo.configurations.BoundedPasswordEncoder;
 import com.example.demo.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Collections;
 
@@ -73,11 +80,29 @@ public class AuthController {
             return new ModelAndView("redirect:/login");
         }
 
+        catch (BoundedPasswordEncoder.HashingRejectedException e) {
+            throw e;
+        }
+
         catch (Exception e) {
             throw new RegistrationException("Ошибка при регистрации пользователя", e);
         }
     }
 
+    /**
+     * Отвечает 503 с заголовком Retry-After, когда пул хеширования паролей перегружен.
+     *
+     * @param e исключение с рекомендуемым временем повтора
+     * @return ответ 503
+     */
+    @ExceptionHandler(BoundedPasswordEncoder.HashingRejectedException.class)
+    public ResponseEntity<String> hashingRejected(BoundedPasswordEncoder.HashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(e.getMessage());
+    }
+
     /**
      * Проверяет валидность учетных данных.
      *
@@ -0,0 +1,95 @@
+package com.example.demo.controllers;
+
+import com.example.demo.configurations.CatalogImportServletConfig;
+import com.example.demo.models.UserPrincipal;
+import com.example.demo.services.CatalogImportService;
+import com.example.demo.services.ImportReport;
+import com.example.demo.services.UploadIngestionService;
+import com.example.demo.services.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Контроллер массового импорта каталога.
+ * Импорт выполняется в фоне: запрос возвращает 202 и адрес отчета, который клиент опрашивает.
+ */
+@RestController
+@RequiredArgsConstructor
+public class CatalogImportController {
+    private final CatalogImportService catalogImportService;
+
+    private final UserService userService;
+
+    /**
+     * Принимает файл каталога (CSV или NDJSON) и архив обложек в импорт.
+     *
+     * @param catalog   файл каталога
+     * @param covers    ZIP-архив обложек (может отсутствовать)
+     * @param principal текущий пользователь, владелец импортируемых продуктов
+     * @return ответ 202 с отчетом и адресом для опроса
+     * @throws IOException              если не удалось сохранить файлы
+     * @throws IllegalArgumentException если файл пуст или его формат не поддерживается
+     */
+    @PostMapping(CatalogImportServletConfig.IMPORT_PATH)
+    public ResponseEntity<ImportReport> importCatalog(@RequestParam("catalog") MultipartFile catalog,
+                                                      @RequestParam(name = "covers", required = false) MultipartFile covers,
+                                                      @AuthenticationPrincipal UserPrincipal principal)
+            throws IOException {
+        ImportReport report = catalogImportService.submit(catalog, covers, userService.getReference(principal));
+        return ResponseEntity.accepted()
+                .location(URI.create("/imports/" + report.getId()))
+                .body(report);
+    }
+
+    /**
+     * Возвращает отчет о ходе импорта.
+     *
+     * @param id идентификатор импорта
+     * @return отчет об импорте
+     * @throws ImportNotFoundException если импорт не найден
+     */
+    @GetMapping("/imports/{id}")
+    public ImportReport importReport(@PathVariable String id) {
+        return catalogImportService.getReport(id)
+                .orElseThrow(() -> new ImportNotFoundException("Импорт со следующим id не найден: " + id));
+    }
+
+    /**
+     * Отвечает 503 с заголовком Retry-After, когда очередь импорта заполнена.
+     *
+     * @param e исключение с рекомендуемым временем повтора
+     * @return ответ 503
+     */
+    @ExceptionHandler(UploadIngestionService.UploadRejectedException.class)
+    public ResponseEntity<String> importRejected(UploadIngestionService.UploadRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(e.getMessage());
+    }
+
+    /**
+     * Исключение, выбрасываемое когда импорт не найден.
+     */
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public static class ImportNotFoundException extends RuntimeException {
+        public ImportNotFoundException(String message) {
+            super(message);
+        }
+    }
+}
\ No newline at end of file
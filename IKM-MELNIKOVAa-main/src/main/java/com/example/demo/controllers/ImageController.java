@@ -1,15 +1,27 @@
 package com.example.demo.controllers;
 
-import com.example.demo.models.Image;
-import com.example.demo.repositories.ImageRepository;
+import com.example.demo.models.ImageMetadata;
+import com.example.demo.services.ImageService;
+import com.example.demo.services.ImageVariantService;
+import com.example.demo.services.StoredImage;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import java.io.ByteArrayInputStream;
+import org.springframework.web.context.request.ServletWebRequest;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.ZoneId;
 
 /**
  * Контроллер для работы с изображениями.
@@ -18,53 +30,150 @@ import java.io.ByteArrayInputStream;
 @RestController
 @RequiredArgsConstructor
 public class ImageController {
-    private final ImageRepository imageRepository;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Содержимое по адресу с хешем никогда не меняется, поэтому его можно кешировать бессрочно.
+     */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final ImageService imageService;
+
+    private final ImageVariantService imageVariantService;
+
+    private final MeterRegistry meterRegistry;
 
     /**
      * Возвращает изображение по его идентификатору.
+     * С параметром {@code w} возвращается уменьшенная копия, наибольшая сторона которой
+     * не превышает ближайший допустимый размер не меньше {@code w}; отсутствующая копия создается
+     * при первом запросе. Изображения из файлового хранилища отдаются с сильным ETag (хеш содержимого), Last-Modified
+     * и бессрочным Cache-Control. Условные запросы (If-None-Match, If-Modified-Since) проверяются
+     * по метаданным, и при совпадении возвращается 304 без обращения к содержимому.
+     * Если вместо копии отдается исходное изображение (копию не удалось создать или сервер занят
+     * созданием других копий), ответ не кешируется бессрочно, чтобы позже браузер получил копию.
+     * Популярные изображения отдаются из кеша в памяти; остальные - через sendfile,
+     * если контейнер его поддерживает: ядро копирует файл прямо в сокет, не загружая содержимое в heap.
      *
-     * @param id идентификатор изображения
-     * @return ResponseEntity с содержимым изображения и метаданными
+     * @param id         идентификатор изображения
+     * @param width      требуемый размер уменьшенной копии в пикселях (может быть null)
+     * @param webRequest текущий HTTP-запрос
+     * @return ResponseEntity с содержимым изображения и метаданными или null, если отправлен ответ 304
      * @throws IllegalArgumentException если идентификатор равен null
-     * @throws ImageNotFoundException если изображение с указанным id не найдено
+     * @throws ImageService.ImageNotFoundException если изображение или его содержимое не найдено
      */
     @GetMapping("/images/{id}")
-    public ResponseEntity<?> getImageById(@PathVariable Long id) {
+    public ResponseEntity<?> getImageById(@PathVariable Long id,
+                                          @RequestParam(name = "w", required = false) Integer width,
+                                          ServletWebRequest webRequest) {
         if (id == null) {
             throw new IllegalArgumentException("Идентификатор изображения не может быть null");
         }
 
-        Image image = imageRepository.findById(id)
-                .orElseThrow(() -> new ImageNotFoundException("Изображение с id " + id + " не найдено"));
+        ImageMetadata original = imageService.getMetadata(id);
+        ImageMetadata metadata = width == null ? original : imageVariantService.getVariant(original, width);
+        CacheControl cacheControl = width != null && metadata == original ? CacheControl.noCache() : IMMUTABLE;
+        String eTag = metadata.contentHash() == null ? null : "\"" + metadata.contentHash() + "\"";
+        long lastModified = metadata.createdAt() == null
+                ? -1
+                : metadata.createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        if (eTag != null && webRequest.checkNotModified(eTag, lastModified)) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+            recordServed("not_modified", width != null, 0);
+            return null;
+        }
+
+        StoredImage image = imageService.getImage(metadata);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("fileName", metadata.originalFilename())
+                .contentType(MediaType.valueOf(metadata.contentType()))
+                .contentLength(metadata.size());
+
+        if (eTag == null) {
+            recordServed("database", width != null, metadata.size());
+            return response.cacheControl(CacheControl.noCache())
+                    .body(new InputStreamResource(new ByteBufferInputStream(image.content())));
+        }
+
+        response.eTag(eTag).cacheControl(cacheControl);
+
+        if (lastModified >= 0) {
+            response.lastModified(lastModified);
+        }
 
-        try {
-            return ResponseEntity.ok()
-                    .header("fileName", image.getOriginalFilename())
-                    .contentType(MediaType.valueOf(image.getContentType()))
-                    .contentLength(image.getSize())
-                    .body(new InputStreamResource(new ByteArrayInputStream(image.getBytes())));
+        if (!image.isFileBacked()) {
+            recordServed("memory", width != null, metadata.size());
+            return response.body(new InputStreamResource(new ByteBufferInputStream(image.content())));
         }
 
-        catch (Exception e) {
-            throw new ImageProcessingException("Ошибка при обработке изображения", e);
+        HttpServletRequest request = webRequest.getRequest();
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, image.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, metadata.size());
+            recordServed("sendfile", width != null, metadata.size());
+            return response.build();
         }
+
+        recordServed("file", width != null, metadata.size());
+        return response.body(new FileSystemResource(image.file()));
     }
 
     /**
-     * Исключение, выбрасываемое когда изображение не найдено.
+     * Учитывает выданное изображение в метриках {@code softa.images.served} (количество ответов)
+     * и {@code softa.images.served.bytes} (объем содержимого). Теги: {@code source} - откуда взято
+     * содержимое ({@code memory} - кеш в памяти, {@code file}, {@code sendfile}, {@code database},
+     * {@code not_modified} - ответ 304) и {@code variant} - оригинал или уменьшенная копия.
+     * Доля попаданий в кеш публикуется отдельно, см. {@code softa.cache.hit.ratio}.
+     *
+     * @param source  источник содержимого
+     * @param resized запрошена ли уменьшенная копия
+     * @param bytes   размер содержимого
      */
-    public static class ImageNotFoundException extends RuntimeException {
-        public ImageNotFoundException(String message) {
-            super(message);
+    private void recordServed(String source, boolean resized, long bytes) {
+        String variant = resized ? "resized" : "original";
+        meterRegistry.counter("softa.images.served", "source", source, "variant", variant).increment();
+
+        if (bytes > 0) {
+            meterRegistry.counter("softa.images.served.bytes", "source", source, "variant", variant).increment(bytes);
         }
     }
 
     /**
-     * Исключение, выбрасываемое при ошибках обработки изображения.
+     * Поток чтения из буфера с содержимым изображения.
+     * Позволяет отдавать содержимое из кеша (в том числе из direct-буферов) без промежуточной копии всего содержимого.
      */
-    public static class ImageProcessingException extends RuntimeException {
-        public ImageProcessingException(String message, Throwable cause) {
-            super(message, cause);
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
         }
     }
 }
\ No newline at end of file
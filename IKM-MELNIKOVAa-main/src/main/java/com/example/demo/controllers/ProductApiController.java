@@ -0,0 +1,299 @@
+package com.example.demo.controllers;
+
+import com.example.demo.configurations.JacksonConfig;
+import com.example.demo.models.Product;
+import com.example.demo.models.ProductDetailsDto;
+import com.example.demo.models.ProductPageDto;
+import com.example.demo.models.ProductRequestDto;
+import com.example.demo.models.ProductSummary;
+import com.example.demo.models.ProductSummaryDto;
+import com.example.demo.models.UserPrincipal;
+import com.example.demo.services.CatalogVersion;
+import com.example.demo.services.ProductPage;
+import com.example.demo.services.ProductService;
+import com.example.demo.services.UserService;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import java.lang.reflect.RecordComponent;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * REST API каталога продуктов (версия 1).
+ * Использует тот же {@link ProductService}, что и HTML-страницы, поэтому ответы берутся
+ * из тех же кешей каталога и продуктов. Ответы на чтение снабжаются слабым ETag, зависящим
+ * от версии каталога, и при совпадении If-None-Match отправляется 304 без обращения к сервису.
+ * Параметр {@code fields} (например, {@code fields=id,title}) ограничивает выводимые поля продукта.
+ */
+@RestController
+@RequestMapping("/api/v1/products")
+@RequiredArgsConstructor
+public class ProductApiController {
+    /**
+     * Ответы доступны только аутентифицированным пользователям, поэтому хранятся только
+     * в клиенте и проверяются при каждом использовании.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final ProductService productService;
+
+    private final UserService userService;
+
+    private final CatalogVersion catalogVersion;
+
+    /**
+     * Возвращает страницу каталога или результатов поиска.
+     *
+     * @param query      поисковый запрос (может быть null)
+     * @param cursor     курсор следующей страницы, полученный с предыдущей страницей (может быть null)
+     * @param fields     поля продукта через запятую (может быть null — все поля)
+     * @param webRequest текущий HTTP-запрос
+     * @return страница продуктов или null, если отправлен ответ 304
+     * @throws IllegalArgumentException если курсор или список полей некорректны
+     */
+    @GetMapping
+    public ResponseEntity<MappingJacksonValue> listProducts(@RequestParam(name = "q", required = false) String query,
+                                                            @RequestParam(name = "cursor", required = false) String cursor,
+                                                            @RequestParam(name = "fields", required = false) String fields,
+                                                            ServletWebRequest webRequest) {
+        Set<String> selectedFields = selectFields(fields, ProductSummaryDto.class);
+        String eTag = eTag("list", query, cursor, selectedFields);
+
+        if (notModified(webRequest, eTag)) {
+            return null;
+        }
+
+        ProductPage<ProductSummary> page = productService.listProducts(query, cursor);
+        ProductPageDto body = new ProductPageDto(page.items().stream().map(ProductSummaryDto::of).toList(),
+                page.nextCursor());
+        return ok(body, selectedFields, eTag);
+    }
+
+    /**
+     * Возвращает продукт.
+     *
+     * @param id         идентификатор продукта
+     * @param fields     поля продукта через запятую (может быть null — все поля)
+     * @param webRequest текущий HTTP-запрос
+     * @return продукт или null, если отправлен ответ 304
+     * @throws ProductService.ProductNotFoundException если продукт с указанным id не найден
+     * @throws IllegalArgumentException если список полей некорректен
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<MappingJacksonValue> getProduct(@PathVariable Long id,
+                                                          @RequestParam(name = "fields", required = false) String fields,
+                                                          ServletWebRequest webRequest) {
+        Set<String> selectedFields = selectFields(fields, ProductDetailsDto.class);
+        String eTag = eTag("product", id, selectedFields);
+
+        if (notModified(webRequest, eTag)) {
+            return null;
+        }
+
+        return ok(details(id), selectedFields, eTag);
+    }
+
+    /**
+     * Создает продукт без изображений. Владельцем становится текущий пользователь.
+     *
+     * @param request   данные продукта
+     * @param principal текущий пользователь
+     * @return созданный продукт с адресом в заголовке Location
+     * @throws IllegalArgumentException если переданы невалидные данные
+     */
+    @PostMapping
+    public ResponseEntity<ProductDetailsDto> createProduct(@RequestBody ProductRequestDto request,
+                                                           @AuthenticationPrincipal UserPrincipal principal) {
+        validateRequest(request);
+
+        Product product = new Product();
+        request.applyTo(product);
+        product.setUser(userService.getReference(principal));
+        productService.saveProductWithoutImages(product);
+
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(product.getId())
+                .toUri();
+        return ResponseEntity.created(location).body(ProductDetailsDto.of(product));
+    }
+
+    /**
+     * Обновляет данные продукта. Изображения продукта не изменяются.
+     *
+     * @param id      идентификатор продукта
+     * @param request новые данные продукта
+     * @return обновленный продукт
+     * @throws ProductService.ProductNotFoundException если продукт с указанным id не найден
+     * @throws IllegalArgumentException если переданы невалидные данные
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<ProductDetailsDto> updateProduct(@PathVariable Long id,
+                                                           @RequestBody ProductRequestDto request) {
+        validateRequest(request);
+
+        Product product = productService.getProductById(id)
+                .orElseThrow(() -> new ProductService.ProductNotFoundException("Продукт со следующим id не найден: " + id));
+        request.applyTo(product);
+        productService.saveProductWithoutImages(product);
+
+        return ResponseEntity.ok(details(id));
+    }
+
+    /**
+     * Удаляет продукт.
+     *
+     * @param id идентификатор продукта
+     * @return ответ 204
+     * @throws ProductService.ProductNotFoundException если продукт с указанным id не найден
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
+        productService.deleteProduct(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Отвечает 404, если продукт не найден.
+     *
+     * @param e исключение
+     * @return описание ошибки
+     */
+    @ExceptionHandler(ProductService.ProductNotFoundException.class)
+    public ProblemDetail productNotFound(ProductService.ProductNotFoundException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    /**
+     * Отвечает 400 на некорректные параметры и данные запроса.
+     *
+     * @param e исключение
+     * @return описание ошибки
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail badRequest(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    /**
+     * Загружает продукт с изображениями и преобразует его в представление API.
+     */
+    private ProductDetailsDto details(Long id) {
+        return productService.getProductWithImages(id)
+                .map(ProductDetailsDto::of)
+                .orElseThrow(() -> new ProductService.ProductNotFoundException("Продукт со следующим id не найден: " + id));
+    }
+
+    /**
+     * Проверяет If-None-Match. При совпадении ETag ответ 304 уже заполнен.
+     */
+    private static boolean notModified(ServletWebRequest webRequest, String eTag) {
+        if (!webRequest.checkNotModified(eTag)) {
+            return false;
+        }
+
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+        return true;
+    }
+
+    /**
+     * Формирует ответ 200 с выбранными полями.
+     */
+    private static ResponseEntity<MappingJacksonValue> ok(Object body, Set<String> selectedFields, String eTag) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+
+        if (!selectedFields.isEmpty()) {
+            value.setFilters(new SimpleFilterProvider().addFilter(JacksonConfig.FIELDS_FILTER,
+                    SimpleBeanPropertyFilter.filterOutAllExcept(selectedFields)));
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(REVALIDATE)
+                .eTag(eTag)
+                .body(value);
+    }
+
+    /**
+     * Формирует слабый ETag ответа. Он меняется при любом изменении каталога,
+     * а слабый, потому что сжатие меняет байты ответа, но не его содержание.
+     *
+     * @param parts параметры запроса, от которых зависит ответ
+     * @return ETag
+     */
+    private String eTag(Object... parts) {
+        return "W/\"" + Long.toHexString(catalogVersion.current()) + "-"
+                + Integer.toHexString(Arrays.asList(parts).hashCode()) + "\"";
+    }
+
+    /**
+     * Разбирает параметр {@code fields}.
+     *
+     * @param fields поля через запятую (может быть null)
+     * @param type   тип представления продукта
+     * @return выбранные поля в порядке запроса (пустое множество — все поля)
+     * @throws IllegalArgumentException если указано неизвестное поле
+     */
+    private static Set<String> selectFields(String fields, Class<? extends Record> type) {
+        if (fields == null || fields.isBlank()) {
+            return Set.of();
+        }
+
+        List<String> known = Arrays.stream(type.getRecordComponents()).map(RecordComponent::getName).toList();
+        Set<String> selected = new LinkedHashSet<>();
+
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Неизвестное поле: " + name
+                        + ", допустимые поля: " + String.join(",", known));
+            }
+
+            selected.add(name);
+        }
+
+        return selected;
+    }
+
+    /**
+     * Проверяет валидность данных продукта.
+     */
+    private static void validateRequest(ProductRequestDto request) {
+        if (request == null || request.title() == null || request.title().trim().isEmpty()) {
+            throw new IllegalArgumentException("Название продукта не может быть пустым");
+        }
+
+        if (request.price() <= 0) {
+            throw new IllegalArgumentException("Цена продукта должна быть положительной");
+        }
+    }
+}
\ No newline at end of file
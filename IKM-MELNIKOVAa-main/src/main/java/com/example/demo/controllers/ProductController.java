@@ -1,72 +1,198 @@
 package com.example.demo.controllers;
 
+import com.example.demo.configurations.UploadProperties;
 import com.example.demo.models.Product;
+import com.example.demo.models.ProductSummary;
+import com.example.demo.models.UserPrincipal;
+import com.example.demo.services.CatalogVersion;
+import com.example.demo.services.ProductPage;
 import com.example.demo.services.ProductService;
+import com.example.demo.services.RenderedPageCache;
+import com.example.demo.services.UploadIngestionService;
+import com.example.demo.services.UploadStatus;
+import com.example.demo.services.UserService;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.web.csrf.CsrfToken;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.HtmlUtils;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Контроллер для управления продуктами.
  * Обрабатывает запросы, связанные с отображением, созданием, редактированием и удалением продуктов.
+ * Страницы каталога и продукта отдаются из {@link RenderedPageCache} с ETag, зависящим
+ * от версии каталога, поэтому повторный запрос без изменений каталога получает ответ 304.
  */
 @Controller
 @RequiredArgsConstructor
 public class ProductController {
+    /**
+     * Страницы содержат фрагмент пользователя, поэтому хранятся только в браузере
+     * и проверяются при каждом использовании.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final ProductService productService;
 
+    private final UploadIngestionService uploadIngestionService;
+
+    private final UploadProperties uploadProperties;
+
+    private final UserService userService;
+
+    private final CatalogVersion catalogVersion;
+
+    private final RenderedPageCache renderedPageCache;
+
+    private final Configuration freemarker;
+
     /**
-     * Отображает список продуктов с возможностью фильтрации по названию.
+     * Отображает страницу списка продуктов с возможностью фильтрации по названию.
      *
-     * @param title  фильтр по названию продукта (может быть null)
-     * @param model  объект Model для передачи данных в представление
-     * @return имя представления для отображения списка продуктов
+     * @param title      фильтр по названию продукта (может быть null)
+     * @param cursor     курсор следующей страницы, полученный с предыдущей страницей (может быть null)
+     * @param webRequest текущий HTTP-запрос
+     * @return HTML-страница списка продуктов или null, если отправлен ответ 304
+     * @throws IllegalArgumentException если курсор некорректен
      */
     @GetMapping("/")
-    public String products(@RequestParam(name = "title", required = false) String title, Model model) {
-        model.addAttribute("products", productService.listProducts(title));
-        return "products";
+    public ResponseEntity<byte[]> products(@RequestParam(name = "title", required = false) String title,
+                                           @RequestParam(name = "cursor", required = false) String cursor,
+                                           ServletWebRequest webRequest) {
+        // Страницы запросов, отличающихся регистром, совпадают, поэтому в модель попадает нормализованный запрос
+        String normalizedTitle = ProductService.normalizeTitle(title);
+        long version = catalogVersion.current();
+        String key = "catalog|" + version + "|" + normalizedTitle + "|" + (cursor == null ? "" : cursor.trim());
+
+        return page(version, key, "products.ftlh", webRequest, () -> {
+            ProductPage<ProductSummary> page = productService.listProducts(normalizedTitle, cursor);
+            Map<String, Object> model = new HashMap<>();
+            model.put("products", page.items());
+            model.put("nextCursor", page.nextCursor());
+            model.put("title", normalizedTitle);
+            return model;
+        });
+    }
+
+    /**
+     * Отображает весь каталог одной страницей.
+     * Страница выводится по мере чтения продуктов из базы данных: ответ передается частями
+     * (chunked), шаблон периодически сбрасывает вывод клиенту, поэтому первые байты приходят
+     * сразу, а память на запрос не зависит от размера каталога.
+     *
+     * @param request текущий HTTP-запрос
+     * @return потоковый HTML-ответ
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<StreamingResponseBody> catalog(HttpServletRequest request) {
+        String userSlot = userSlot(request);
+
+        StreamingResponseBody body = output -> {
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            productService.streamProducts(products -> {
+                Map<String, Object> model = new HashMap<>();
+                model.put("products", products);
+                model.put("userSlot", userSlot);
+                try {
+                    freemarker.getTemplate("catalog.ftlh").process(model, writer);
+                }
+
+                catch (TemplateException e) {
+                    throw new IOException("Не удалось отрисовать каталог", e);
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .cacheControl(REVALIDATE)
+                .body(body);
     }
 
     /**
      * Отображает подробную информацию о продукте.
      *
-     * @param id     идентификатор продукта
-     * @param model  объект Model для передачи данных в представление
-     * @return имя представления с информацией о продукте
+     * @param id         идентификатор продукта
+     * @param webRequest текущий HTTP-запрос
+     * @return HTML-страница продукта или null, если отправлен ответ 304
      * @throws ProductNotFoundException если продукт с указанным id не найден
      */
     @GetMapping("/product/{id}")
-    public String productInfo(@PathVariable Long id, Model model) {
-        Product product = productService.getProductById(id)
-                .orElseThrow(() -> new ProductNotFoundException("Продукт со следующим id не найден: " + id));
-        model.addAttribute("product", product);
-        model.addAttribute("images", product.getImages());
-        return "product-info";
+    public ResponseEntity<byte[]> productInfo(@PathVariable Long id, ServletWebRequest webRequest) {
+        long version = catalogVersion.current();
+        String key = "product|" + version + "|" + id;
+
+        return page(version, key, "product-info.ftlh", webRequest, () -> {
+            Product product = productService.getProductWithImages(id)
+                    .orElseThrow(() -> new ProductNotFoundException("Продукт со следующим id не найден: " + id));
+            Map<String, Object> model = new HashMap<>();
+            model.put("product", product);
+            model.put("images", product.getImages());
+            return model;
+        });
     }
 
     /**
-     * Создает новый продукт.
+     * Принимает новый продукт в фоновую обработку.
+     * Изображение обрабатывается и продукт сохраняется вне потока запроса;
+     * клиент перенаправляется на страницу состояния загрузки.
      *
-     * @param file1    изображение продукта
-     * @param product  данные продукта
-     * @return перенаправление на главную страницу
-     * @throws IOException              если произошла ошибка при обработке файла
+     * @param file1     изображение продукта
+     * @param product   данные продукта
+     * @param principal текущий пользователь, владелец продукта
+     * @return перенаправление на страницу состояния загрузки
+     * @throws IOException              если произошла ошибка при сохранении файла
      * @throws IllegalArgumentException если переданы невалидные параметры
+     * @throws UploadIngestionService.UploadRejectedException если очередь обработки заполнена
      */
     @PostMapping("/product/create")
     public String createProduct(@RequestParam("file1") MultipartFile file1,
-                                Product product) throws IOException {
+                                Product product,
+                                @AuthenticationPrincipal UserPrincipal principal) throws IOException {
         validateProduct(product);
         validateFile(file1);
-        productService.saveProduct(product, file1);
-        return "redirect:/";
+        product.setUser(userService.getReference(principal));
+        UploadStatus status = uploadIngestionService.submit(product, file1);
+        return "redirect:/uploads/" + status.getId();
+    }
+
+    /**
+     * Отвечает 503 с заголовком Retry-After, когда очередь обработки загрузок заполнена.
+     *
+     * @param e исключение с рекомендуемым временем повтора
+     * @return ответ 503
+     */
+    @ExceptionHandler(UploadIngestionService.UploadRejectedException.class)
+    public ResponseEntity<String> uploadRejected(UploadIngestionService.UploadRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(e.getMessage());
     }
 
     /**
@@ -149,6 +275,53 @@ public class ProductController {
         }
     }
 
+    /**
+     * Отдает страницу из кеша отрисованных страниц, подставляя фрагмент текущего пользователя.
+     * Если ETag совпадает с If-None-Match, отправляется ответ 304 без отрисовки и без обращения к кешу.
+     *
+     * @param version    версия каталога, входящая в ключ страницы
+     * @param key        ключ страницы (включает версию каталога)
+     * @param template   имя шаблона
+     * @param webRequest текущий HTTP-запрос
+     * @param model      построение модели шаблона при промахе кеша
+     * @return HTML-страница или null, если отправлен ответ 304
+     */
+    private ResponseEntity<byte[]> page(long version, String key, String template, ServletWebRequest webRequest,
+                                        Supplier<Map<String, Object>> model) {
+        String userSlot = userSlot(webRequest.getRequest());
+        String eTag = renderedPageCache.eTag(version, key, userSlot);
+
+        if (webRequest.checkNotModified(eTag)) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+            return null;
+        }
+
+        RenderedPageCache.RenderedPage page = renderedPageCache.get(key, template, model);
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .cacheControl(REVALIDATE)
+                .eTag(eTag)
+                .body(page.with(userSlot));
+    }
+
+    /**
+     * Формирует фрагмент страницы, зависящий от пользователя: кнопку выхода и CSRF-токен,
+     * если защита от CSRF включена.
+     *
+     * @param request текущий HTTP-запрос
+     * @return HTML-фрагмент
+     */
+    private static String userSlot(HttpServletRequest request) {
+        CsrfToken csrf = (CsrfToken) request.getAttribute(CsrfToken.class.getName());
+        String csrfInput = csrf == null
+                ? ""
+                : "<input type=\"hidden\" name=\"" + HtmlUtils.htmlEscape(csrf.getParameterName())
+                        + "\" value=\"" + HtmlUtils.htmlEscape(csrf.getToken()) + "\"/>";
+
+        return "<form action=\"/logout\" method=\"post\">" + csrfInput
+                + "<button type=\"submit\">Выйти</button></form>";
+    }
+
     /**
      * Проверяет валидность файла изображения.
      */
@@ -157,9 +330,13 @@ public class ProductController {
             throw new IllegalArgumentException("Файл изображения не может быть пустым");
         }
 
-        if (!file.getContentType().startsWith("image/")) {
+        if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
             throw new IllegalArgumentException("Загружаемый файл должен быть изображением");
         }
+
+        if (file.getSize() > uploadProperties.getMaxImageSize().toBytes()) {
+            throw new IllegalArgumentException("Размер изображения превышает " + uploadProperties.getMaxImageSize());
+        }
     }
 
     /**
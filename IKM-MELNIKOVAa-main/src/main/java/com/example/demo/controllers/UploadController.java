@@ -0,0 +1,80 @@
+package com.example.demo.controllers;
+
+import com.example.demo.services.UploadIngestionService;
+import com.example.demo.services.UploadStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Контроллер состояния фоновой обработки загруженных продуктов.
+ * Браузер получает страницу, которая обновляется до завершения обработки,
+ * клиенты, запрашивающие JSON, - состояние загрузки для опроса.
+ */
+@Controller
+@RequiredArgsConstructor
+public class UploadController {
+    private final UploadIngestionService uploadIngestionService;
+
+    /**
+     * Возвращает состояние загрузки в формате JSON.
+     *
+     * @param id идентификатор загрузки
+     * @return состояние загрузки
+     * @throws UploadNotFoundException если загрузка не найдена
+     */
+    @GetMapping(value = "/uploads/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public UploadStatus uploadStatus(@PathVariable String id) {
+        return findStatus(id);
+    }
+
+    /**
+     * Отображает страницу состояния загрузки.
+     * После успешной обработки перенаправляет на страницу созданного продукта.
+     *
+     * @param id    идентификатор загрузки
+     * @param model объект Model для передачи данных в представление
+     * @return имя представления или перенаправление на страницу продукта
+     * @throws UploadNotFoundException если загрузка не найдена
+     */
+    @GetMapping("/uploads/{id}")
+    public String uploadStatusPage(@PathVariable String id, Model model) {
+        UploadStatus status = findStatus(id);
+
+        if (status.getState() == UploadStatus.State.COMPLETED) {
+            return "redirect:/product/" + status.getProductId();
+        }
+
+        model.addAttribute("upload", status);
+        return "upload-status";
+    }
+
+    /**
+     * Находит состояние загрузки.
+     *
+     * @param id идентификатор загрузки
+     * @return состояние загрузки
+     * @throws UploadNotFoundException если загрузка не найдена
+     */
+    private UploadStatus findStatus(String id) {
+        return uploadIngestionService.getStatus(id)
+                .orElseThrow(() -> new UploadNotFoundException("Загрузка со следующим id не найдена: " + id));
+    }
+
+    /**
+     * Исключение, выбрасываемое когда загрузка не найдена.
+     */
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public static class UploadNotFoundException extends RuntimeException {
+        public UploadNotFoundException(String message) {
+            super(message);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.demo.models;
+
+import org.hibernate.annotations.IdGeneratorType;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Идентификатор из последовательности, который можно назначить до сохранения сущности.
+ * Значения выделяются так же, как {@link jakarta.persistence.SequenceGenerator} (диапазонами по
+ * {@link #allocationSize()}), но уже назначенный идентификатор при сохранении не заменяется,
+ * см. {@link AssignableSequenceGenerator}.
+ */
+@IdGeneratorType(AssignableSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface AssignableSequence {
+
+    /**
+     * Имя последовательности.
+     *
+     * @return имя последовательности в базе данных
+     */
+    String sequenceName();
+
+    /**
+     * Количество идентификаторов, выделяемых за одно обращение к последовательности.
+     *
+     * @return шаг последовательности
+     */
+    int allocationSize() default 50;
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.example.demo.models;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * Генератор идентификаторов для {@link AssignableSequence}.
+ * Выделяет значения из последовательности, если идентификатор сущности не назначен,
+ * и оставляет назначенный, если он был получен заранее вызовом {@link #generate} без сущности.
+ */
+public class AssignableSequenceGenerator extends SequenceStyleGenerator {
+    private final AssignableSequence config;
+
+    /**
+     * Конструктор генератора. Вызывается Hibernate для каждого атрибута с {@link AssignableSequence}.
+     *
+     * @param config  настройки последовательности
+     * @param member  атрибут идентификатора
+     * @param context контекст создания генератора
+     */
+    public AssignableSequenceGenerator(AssignableSequence config, Member member,
+                                       CustomIdGeneratorCreationContext context) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.setProperty(SEQUENCE_PARAM, config.sequenceName());
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(config.allocationSize()));
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        // Hibernate 6.6 не передает назначенный идентификатор в currentValue, поэтому он читается из сущности
+        Object assigned = owner == null ? null : session.getEntityPersister(null, owner).getIdentifier(owner, session);
+        return assigned != null ? assigned : generate(session, owner);
+    }
+}
\ No newline at end of file
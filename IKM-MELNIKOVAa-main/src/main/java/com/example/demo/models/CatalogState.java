@@ -0,0 +1,35 @@
+package com.example.demo.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Общее для всех экземпляров приложения состояние каталога.
+ * Таблица содержит одну строку с идентификатором {@link #SINGLETON_ID}.
+ */
+@Entity
+@Table(name = "catalog_state")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogState {
+    /**
+     * Идентификатор единственной строки.
+     */
+    public static final short SINGLETON_ID = 1;
+
+    /**
+     * Идентификатор строки.
+     */
+    @Id
+    @Column(name = "id")
+    private Short id;
+
+    /**
+     * Версия каталога, увеличивается при каждом изменении продуктов.
+     */
+    @Column(name = "version", nullable = false)
+    private long version;
+}
\ No newline at end of file
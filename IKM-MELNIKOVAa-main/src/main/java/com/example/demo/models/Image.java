@@ -4,22 +4,32 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.time.LocalDateTime;
 
 /**
  * Сущность для хранения изображений в системе.
- * Содержит метаданные изображения и его бинарные данные.
+ * Содержит метаданные изображения; само содержимое хранится в {@code ImageStorage}
+ * и адресуется хешем {@link #contentHash}. Поле {@link #bytes} заполнено только
+ * у изображений, еще не перенесенных из базы данных.
+ * Метаданные кешируются в кеше второго уровня; {@link #bytes} загружается лениво
+ * и в кеш не попадает.
  */
 @Entity
 @Table(name = "images")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, includeLazy = false)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Image {
     /**
      * Уникальный идентификатор изображения.
+     * Может быть назначен до сохранения, см. {@link com.example.demo.repositories.ProductRepositoryCustom#saveNew}.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @AssignableSequence(sequenceName = "image_seq")
     @Column(name = "id")
     private Long id;
 
@@ -54,19 +64,46 @@ public class Image {
     private Long size;
 
     /**
-     * Бинарные данные изображения.
+     * Хеш SHA-256 содержимого изображения в файловом хранилище.
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /**
+     * Бинарные данные изображения, хранящиеся в базе данных.
+     * Используются только для изображений, еще не перенесенных в файловое хранилище.
+     * Загружаются при первом обращении (требует улучшения байт-кода Hibernate при сборке).
      */
     @Lob
-    @Column(nullable = false)
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "bytes")
     private byte[] bytes;
 
+    /**
+     * Дата и время загрузки изображения.
+     * Используется как Last-Modified при выдаче изображения.
+     */
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
     /**
      * Продукт, к которому относится изображение.
+     * Загружается лениво: при выдаче изображений продукт не нужен.
      */
-    @ManyToOne(cascade = CascadeType.REFRESH, fetch = FetchType.EAGER)
+    @ManyToOne(cascade = CascadeType.REFRESH, fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
+    /**
+     * Инициализирует дату загрузки перед сохранением в БД.
+     */
+    @PrePersist
+    private void init() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
     /**
      * Проверяет валидность объекта изображения.
      *
@@ -92,7 +129,8 @@ public class Image {
             throw new IllegalStateException("Размер файла должен быть положительным");
         }
 
-        if (bytes == null || bytes.length == 0) {
+        // Хеш проверяется первым, чтобы не загружать содержимое из базы данных без необходимости
+        if ((contentHash == null || contentHash.isEmpty()) && (bytes == null || bytes.length == 0)) {
             throw new IllegalStateException("Изображение не содержит данных");
         }
 
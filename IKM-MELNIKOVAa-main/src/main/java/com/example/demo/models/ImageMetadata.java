@@ -0,0 +1,18 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция метаданных изображения без его содержимого.
+ * Используется при выдаче изображений, чтобы не читать из базы столбец {@code bytes}.
+ *
+ * @param id               идентификатор изображения
+ * @param originalFilename оригинальное имя файла
+ * @param contentType      MIME-тип содержимого
+ * @param size             размер содержимого в байтах
+ * @param contentHash      хеш SHA-256 содержимого (null, если содержимое хранится в базе данных)
+ * @param createdAt        дата и время загрузки изображения (null для изображений, загруженных до ее учета)
+ */
+public record ImageMetadata(Long id, String originalFilename, String contentType, Long size,
+                            String contentHash, LocalDateTime createdAt) {
+}
\ No newline at end of file
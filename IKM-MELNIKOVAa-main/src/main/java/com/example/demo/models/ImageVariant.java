@@ -0,0 +1,117 @@
+package com.example.demo.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import java.time.LocalDateTime;
+
+/**
+ * Уменьшенная копия изображения.
+ * Содержимое хранится в {@code ImageStorage} и адресуется хешем {@link #contentHash}.
+ * Удаляется вместе с исходным изображением на уровне базы данных.
+ */
+@Entity
+@Table(name = "image_variants",
+        uniqueConstraints = @UniqueConstraint(name = "uk_image_variants_image_width",
+                columnNames = {"image_id", "width"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageVariant {
+    /**
+     * Уникальный идентификатор копии.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id")
+    private Long id;
+
+    /**
+     * Исходное изображение.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "image_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Image image;
+
+    /**
+     * Запрошенный размер копии (наибольшая сторона в пикселях), по которому копия ищется.
+     */
+    @Column(name = "width", nullable = false)
+    private int width;
+
+    /**
+     * Фактическая ширина копии в пикселях.
+     */
+    @Column(name = "pixel_width", nullable = false)
+    private int pixelWidth;
+
+    /**
+     * Фактическая высота копии в пикселях.
+     */
+    @Column(name = "pixel_height", nullable = false)
+    private int pixelHeight;
+
+    /**
+     * MIME-тип содержимого копии.
+     */
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    /**
+     * Размер содержимого копии в байтах.
+     */
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    /**
+     * Хеш SHA-256 содержимого копии в файловом хранилище.
+     */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    /**
+     * Дата и время создания копии.
+     */
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Инициализирует дату создания перед сохранением в БД.
+     */
+    @PrePersist
+    private void init() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Проверяет валидность копии изображения.
+     *
+     * @throws IllegalStateException если данные копии невалидны
+     */
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    public void validate() {
+        if (width <= 0 || pixelWidth <= 0 || pixelHeight <= 0) {
+            throw new IllegalStateException("Размеры копии изображения должны быть положительными");
+        }
+
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalStateException("Недопустимый тип содержимого");
+        }
+
+        if (contentHash == null || contentHash.isEmpty()) {
+            throw new IllegalStateException("Копия изображения не содержит данных");
+        }
+
+        if (image == null) {
+            throw new IllegalStateException("Копия должна быть связана с изображением");
+        }
+    }
+}
\ No newline at end of file
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,9 +13,12 @@ import java.util.List;
 /**
  * Сущность, представляющая продукт в системе.
  * Содержит информацию о продукте, его изображениях и владельце.
+ * Продукт и список его изображений кешируются в кеше второго уровня.
  */
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -22,7 +27,8 @@ public class Product {
      * Уникальный идентификатор продукта.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false)
     private Long id;
 
@@ -61,10 +67,12 @@ public class Product {
      */
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY,
             mappedBy = "product", orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Image> images = new ArrayList<>();
 
     /**
      * Идентификатор превью-изображения.
+     * Записывается в той же вставке, что и продукт, см. {@link com.example.demo.repositories.ProductRepositoryCustom#saveNew}.
      */
     @Column(name = "preview_image_id")
     private Long previewImageId;
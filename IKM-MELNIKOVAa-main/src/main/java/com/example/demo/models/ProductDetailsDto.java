@@ -0,0 +1,46 @@
+package com.example.demo.models;
+
+import com.example.demo.configurations.JacksonConfig;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Подробное представление продукта в REST API.
+ * Вместо содержимого изображений передаются их идентификаторы: изображения загружаются
+ * отдельно через {@code /images/{id}} и кешируются клиентом по своим ETag.
+ *
+ * @param id             идентификатор продукта
+ * @param title          название продукта
+ * @param description    описание продукта
+ * @param price          цена продукта
+ * @param genre          жанр продукта
+ * @param author         автор продукта
+ * @param dateOfCreated  дата и время создания продукта
+ * @param previewImageId идентификатор превью-изображения (может быть null)
+ * @param imageIds       идентификаторы изображений продукта
+ */
+@JsonFilter(JacksonConfig.FIELDS_FILTER)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductDetailsDto(Long id, String title, String description, double price, String genre,
+                                String author, LocalDateTime dateOfCreated, Long previewImageId,
+                                List<Long> imageIds) {
+
+    /**
+     * Создает представление из продукта. Изображения продукта должны быть загружены.
+     *
+     * @param product продукт (не может быть null)
+     * @return представление продукта
+     * @throws IllegalArgumentException если продукт равен null
+     */
+    public static ProductDetailsDto of(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Продукт не может быть null");
+        }
+
+        return new ProductDetailsDto(product.getId(), product.getTitle(), product.getDescription(),
+                product.getPrice(), product.getGenre(), product.getAuthor(), product.getDateOfCreated(),
+                product.getPreviewImageId(), product.getImages().stream().map(Image::getId).toList());
+    }
+}
\ No newline at end of file
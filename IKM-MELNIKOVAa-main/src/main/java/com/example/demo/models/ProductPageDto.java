@@ -0,0 +1,14 @@
+package com.example.demo.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Страница каталога в REST API.
+ *
+ * @param items      продукты страницы
+ * @param nextCursor курсор следующей страницы (не выводится для последней страницы)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductPageDto(List<ProductSummaryDto> items, String nextCursor) {
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.example.demo.models;
+
+/**
+ * Данные продукта, передаваемые в REST API при создании и обновлении.
+ * Изображения добавляются через форму загрузки, поэтому здесь не передаются.
+ *
+ * @param title       название продукта
+ * @param description описание продукта
+ * @param price       цена продукта
+ * @param genre       жанр продукта
+ * @param author      автор продукта
+ */
+public record ProductRequestDto(String title, String description, double price, String genre, String author) {
+
+    /**
+     * Переносит данные в продукт.
+     *
+     * @param product продукт (не может быть null)
+     * @throws IllegalArgumentException если продукт равен null
+     */
+    public void applyTo(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Продукт не может быть null");
+        }
+
+        product.setTitle(title);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setGenre(genre);
+        product.setAuthor(author);
+    }
+}
\ No newline at end of file
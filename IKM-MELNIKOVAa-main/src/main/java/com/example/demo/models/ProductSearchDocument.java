@@ -0,0 +1,30 @@
+package com.example.demo.models;
+
+/**
+ * Проекция продукта для поискового индекса.
+ * Содержит только текстовые поля, по которым выполняется поиск.
+ *
+ * @param id          идентификатор продукта
+ * @param title       название продукта
+ * @param author      автор продукта
+ * @param genre       жанр продукта
+ * @param description описание продукта
+ */
+public record ProductSearchDocument(Long id, String title, String author, String genre, String description) {
+
+    /**
+     * Создает документ индекса из сущности продукта.
+     *
+     * @param product продукт (не может быть null)
+     * @return документ для поискового индекса
+     * @throws IllegalArgumentException если продукт или его id равны null
+     */
+    public static ProductSearchDocument of(Product product) {
+        if (product == null || product.getId() == null) {
+            throw new IllegalArgumentException("Индексировать можно только сохраненный продукт");
+        }
+
+        return new ProductSearchDocument(product.getId(), product.getTitle(), product.getAuthor(),
+                product.getGenre(), product.getDescription());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.example.demo.models;
+
+import lombok.Value;
+import java.time.LocalDateTime;
+
+/**
+ * Проекция продукта для списка каталога и результатов поиска.
+ * Содержит только поля, которые выводятся на странице каталога, и выбирается запросом
+ * с конструктором, поэтому не попадает в контекст персистентности и не вызывает {@link Product#validate()}.
+ */
+@Value
+public class ProductSummary {
+
+    /**
+     * Идентификатор продукта.
+     */
+    Long id;
+
+    /**
+     * Название продукта.
+     */
+    String title;
+
+    /**
+     * Цена продукта.
+     */
+    double price;
+
+    /**
+     * Дата и время создания продукта (ключ постраничной выборки).
+     */
+    LocalDateTime dateOfCreated;
+
+    /**
+     * Идентификатор превью-изображения для миниатюры (может быть null).
+     */
+    Long previewImageId;
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.example.demo.models;
+
+import com.example.demo.configurations.JacksonConfig;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+
+/**
+ * Представление продукта в списке каталога REST API.
+ * Поля можно выбрать параметром {@code fields}, пустые значения не выводятся.
+ *
+ * @param id             идентификатор продукта
+ * @param title          название продукта
+ * @param price          цена продукта
+ * @param dateOfCreated  дата и время создания продукта
+ * @param previewImageId идентификатор превью-изображения (может быть null)
+ */
+@JsonFilter(JacksonConfig.FIELDS_FILTER)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProductSummaryDto(Long id, String title, double price, LocalDateTime dateOfCreated,
+                                Long previewImageId) {
+
+    /**
+     * Создает представление из проекции каталога.
+     *
+     * @param summary проекция продукта (не может быть null)
+     * @return представление продукта
+     * @throws IllegalArgumentException если проекция равна null
+     */
+    public static ProductSummaryDto of(ProductSummary summary) {
+        if (summary == null) {
+            throw new IllegalArgumentException("Продукт не может быть null");
+        }
+
+        return new ProductSummaryDto(summary.getId(), summary.getTitle(), summary.getPrice(),
+                summary.getDateOfCreated(), summary.getPreviewImageId());
+    }
+}
\ No newline at end of file
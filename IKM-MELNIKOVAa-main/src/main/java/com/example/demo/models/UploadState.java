@@ -0,0 +1,54 @@
+package com.example.demo.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.Instant;
+
+/**
+ * Сохраненное состояние фоновой обработки загруженного продукта.
+ * Хранится в базе данных, поэтому доступно всем экземплярам приложения.
+ */
+@Entity
+@Table(name = "upload_states")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadState {
+    /**
+     * Максимальная длина сохраняемой причины ошибки.
+     */
+    public static final int ERROR_LENGTH = 1000;
+
+    /**
+     * Идентификатор загрузки.
+     */
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    /**
+     * Этап обработки (имя {@code UploadStatus.State}).
+     */
+    @Column(name = "state", length = 16, nullable = false)
+    private String state;
+
+    /**
+     * Идентификатор созданного продукта (после сохранения).
+     */
+    @Column(name = "product_id")
+    private Long productId;
+
+    /**
+     * Причина ошибки (для неудачной обработки).
+     */
+    @Column(name = "error", length = ERROR_LENGTH)
+    private String error;
+
+    /**
+     * Время последнего изменения состояния.
+     */
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.example.demo.models;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Неизменяемое представление аутентифицированного пользователя для Spring Security.
+ * Права доступа вычисляются один раз при создании, поэтому объект можно кешировать
+ * и безопасно разделять между потоками. Пароль хранится только в виде хеша из базы данных.
+ * <p>
+ * Класс намеренно не реализует {@code CredentialsContainer}: иначе Spring Security стер бы
+ * хеш пароля у объекта, лежащего в кеше, после первой же аутентификации.
+ */
+public final class UserPrincipal implements UserDetails {
+    private final Long id;
+
+    private final String username;
+
+    private final String password;
+
+    private final Set<GrantedAuthority> authorities;
+
+    /**
+     * Конструктор.
+     *
+     * @param id          идентификатор пользователя
+     * @param username    имя пользователя
+     * @param password    хеш пароля
+     * @param authorities права доступа
+     * @throws IllegalArgumentException если имя пользователя или хеш пароля равны null
+     */
+    public UserPrincipal(Long id, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        if (username == null || password == null) {
+            throw new IllegalArgumentException("Имя пользователя и пароль не могут быть null");
+        }
+
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.authorities = authorities == null ? Set.of() : Set.copyOf(authorities);
+    }
+
+    /**
+     * Создает представление пользователя из сущности.
+     *
+     * @param user пользователь (не может быть null)
+     * @return представление пользователя
+     * @throws IllegalArgumentException если пользователь равен null
+     */
+    public static UserPrincipal of(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("Пользователь не может быть null");
+        }
+
+        Set<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .collect(Collectors.toUnmodifiableSet());
+
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(), authorities);
+    }
+
+    /**
+     * Возвращает идентификатор пользователя.
+     *
+     * @return идентификатор пользователя
+     */
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UserPrincipal other && Objects.equals(username, other.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return username.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal[id=" + id + ", username=" + username + ", authorities=" + authorities + "]";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.example.demo.repositories;
+
+import com.example.demo.models.CatalogState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+/**
+ * Репозиторий общего состояния каталога.
+ */
+@Repository
+public interface CatalogStateRepository extends JpaRepository<CatalogState, Short> {
+
+    /**
+     * Возвращает версию каталога.
+     *
+     * @return {@link Optional} с версией или пустой, если строка состояния еще не создана
+     */
+    @Query("select s.version from CatalogState s where s.id = " + CatalogState.SINGLETON_ID)
+    Optional<Long> findVersion();
+
+    /**
+     * Увеличивает версию каталога на единицу.
+     *
+     * @return количество измененных строк (0, если строка состояния еще не создана)
+     */
+    @Modifying
+    @Query("update CatalogState s set s.version = s.version + 1 where s.id = " + CatalogState.SINGLETON_ID)
+    int incrementVersion();
+}
\ No newline at end of file
@@ -1,8 +1,14 @@
 package com.example.demo.repositories;
 
 import com.example.demo.models.Image;
+import com.example.demo.models.ImageMetadata;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий для работы с изображениями в базе данных.
@@ -11,4 +17,50 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
+
+    /**
+     * Находит метаданные изображения без чтения его содержимого.
+     *
+     * @param id идентификатор изображения (не может быть null)
+     * @return {@link Optional} с метаданными или пустой, если изображение не найдено
+     */
+    @Query("SELECT new com.example.demo.models.ImageMetadata(i.id, i.originalFilename, i.contentType, i.size, " +
+            "i.contentHash, i.createdAt) FROM Image i WHERE i.id = :id")
+    Optional<ImageMetadata> findMetadataById(@NonNull Long id);
+
+    /**
+     * Читает содержимое изображения, хранящееся в базе данных.
+     *
+     * @param id идентификатор изображения (не может быть null)
+     * @return содержимое или null, если изображение перенесено в файловое хранилище
+     */
+    @Query("SELECT i.bytes FROM Image i WHERE i.id = :id")
+    byte[] findBytesById(@NonNull Long id);
+
+    /**
+     * Находит идентификаторы изображений, содержимое которых еще хранится в базе данных.
+     *
+     * @param id       id последнего изображения предыдущей порции (0 для первой порции)
+     * @param pageable ограничение размера порции (смещение всегда нулевое)
+     * @return идентификаторы изображений по возрастанию
+     */
+    @Query("SELECT i.id FROM Image i WHERE i.contentHash IS NULL AND i.id > :id ORDER BY i.id")
+    List<Long> findIdsStoredInDatabaseAfter(Long id, Pageable pageable);
+
+    /**
+     * Возвращает хеши содержимого изображений продукта.
+     *
+     * @param productId идентификатор продукта (не может быть null)
+     * @return хеши содержимого (без изображений, хранящихся в базе данных)
+     */
+    @Query("SELECT i.contentHash FROM Image i WHERE i.product.id = :productId AND i.contentHash IS NOT NULL")
+    List<String> findContentHashesByProductId(@NonNull Long productId);
+
+    /**
+     * Проверяет, ссылается ли хотя бы одно изображение на указанное содержимое.
+     *
+     * @param contentHash хеш содержимого (не может быть null)
+     * @return true если содержимое используется
+     */
+    boolean existsByContentHash(@NonNull String contentHash);
 }
\ No newline at end of file
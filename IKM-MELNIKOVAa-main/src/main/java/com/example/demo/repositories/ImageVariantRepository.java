@@ -0,0 +1,57 @@
+package com.example.demo.repositories;
+
+import com.example.demo.models.ImageMetadata;
+import com.example.demo.models.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий для работы с уменьшенными копиями изображений.
+ * Предоставляет стандартные CRUD-операции и специальные запросы для сущности {@link ImageVariant}.
+ */
+@Repository
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+
+    /**
+     * Находит метаданные копии изображения заданного размера.
+     * В метаданных возвращается id и имя файла исходного изображения.
+     *
+     * @param imageId идентификатор исходного изображения (не может быть null)
+     * @param width   размер копии
+     * @return {@link Optional} с метаданными копии или пустой, если копия еще не создана
+     */
+    @Query("SELECT new com.example.demo.models.ImageMetadata(i.id, i.originalFilename, v.contentType, v.size, " +
+            "v.contentHash, v.createdAt) FROM ImageVariant v JOIN v.image i " +
+            "WHERE i.id = :imageId AND v.width = :width")
+    Optional<ImageMetadata> findMetadata(@NonNull Long imageId, int width);
+
+    /**
+     * Возвращает размеры уже созданных копий изображения.
+     *
+     * @param imageId идентификатор исходного изображения (не может быть null)
+     * @return размеры копий
+     */
+    @Query("SELECT v.width FROM ImageVariant v WHERE v.image.id = :imageId")
+    List<Integer> findWidthsByImageId(@NonNull Long imageId);
+
+    /**
+     * Возвращает хеши содержимого копий всех изображений продукта.
+     *
+     * @param productId идентификатор продукта (не может быть null)
+     * @return хеши содержимого копий
+     */
+    @Query("SELECT v.contentHash FROM ImageVariant v WHERE v.image.product.id = :productId")
+    List<String> findContentHashesByProductId(@NonNull Long productId);
+
+    /**
+     * Проверяет, ссылается ли хотя бы одна копия на указанное содержимое.
+     *
+     * @param contentHash хеш содержимого (не может быть null)
+     * @return true если содержимое используется
+     */
+    boolean existsByContentHash(@NonNull String contentHash);
+}
\ No newline at end of file
@@ -1,28 +1,34 @@
 package com.example.demo.repositories;
 
 import com.example.demo.models.Product;
+import com.example.demo.models.ProductSearchDocument;
+import com.example.demo.models.ProductSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с продуктами в базе данных.
  * Предоставляет стандартные CRUD-операции и специальные запросы для сущности {@link Product}.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
-
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     /**
-     * Находит продукты, содержащие указанную строку в названии (без учета регистра).
-     *
-     * @param title часть названия продукта для поиска (не может быть null)
-     * @return список продуктов, удовлетворяющих условию поиска (может быть пустым)
-     * @throws IllegalArgumentException если title равен null
+     * Количество строк, загружаемых за одно обращение к курсору в {@link #streamAll()}.
      */
-    @Query("SELECT p FROM Product p WHERE LOWER(p.title) LIKE LOWER(CONCAT('%', :title, '%'))")
-    List<Product> findByTitle(@NonNull String title);
+    int STREAM_FETCH_SIZE = 200;
 
     /**
      * Находит все продукты, отсортированные по дате создания (новые сначала).
@@ -32,6 +38,96 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p ORDER BY p.dateOfCreated DESC")
     List<Product> findAllOrderByDateDesc();
 
+    /**
+     * Возвращает первую страницу каталога, отсортированную по дате создания и id (новые сначала).
+     *
+     * @param pageable ограничение размера страницы (смещение всегда нулевое)
+     * @return проекции продуктов первой страницы
+     */
+    @Query("SELECT new com.example.demo.models.ProductSummary(p.id, p.title, p.price, p.dateOfCreated, p.previewImageId) " +
+            "FROM Product p ORDER BY p.dateOfCreated DESC, p.id DESC")
+    List<ProductSummary> findFirstPage(Pageable pageable);
+
+    /**
+     * Возвращает страницу каталога, следующую за продуктом с указанными датой создания и id.
+     * Условие по ключу сортировки позволяет не пропускать предыдущие строки (keyset-пагинация),
+     * поэтому стоимость запроса не зависит от номера страницы. Условие записано сравнением пар,
+     * чтобы PostgreSQL начинал сканирование индекса idx_products_catalog сразу с нужной строки.
+     *
+     * @param dateOfCreated дата создания последнего продукта предыдущей страницы
+     * @param id            id последнего продукта предыдущей страницы
+     * @param pageable      ограничение размера страницы (смещение всегда нулевое)
+     * @return проекции продуктов следующей страницы
+     */
+    @Query("SELECT new com.example.demo.models.ProductSummary(p.id, p.title, p.price, p.dateOfCreated, p.previewImageId) " +
+            "FROM Product p " +
+            "WHERE (p.dateOfCreated, p.id) < (:dateOfCreated, :id) " +
+            "ORDER BY p.dateOfCreated DESC, p.id DESC")
+    List<ProductSummary> findPageAfter(LocalDateTime dateOfCreated, Long id, Pageable pageable);
+
+    /**
+     * Возвращает все продукты каталога в порядке страниц каталога в виде потока, читаемого курсором базы данных.
+     * Строки загружаются порциями по {@value #STREAM_FETCH_SIZE}, поэтому память не зависит от размера каталога.
+     * Поток должен читаться внутри транзакции и закрываться после использования.
+     *
+     * @return поток проекций продуктов
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT new com.example.demo.models.ProductSummary(p.id, p.title, p.price, p.dateOfCreated, p.previewImageId) " +
+            "FROM Product p ORDER BY p.dateOfCreated DESC, p.id DESC")
+    Stream<ProductSummary> streamAll();
+
+    /**
+     * Возвращает проекции продуктов с указанными идентификаторами (в произвольном порядке).
+     *
+     * @param ids идентификаторы продуктов (не может быть null)
+     * @return проекции найденных продуктов
+     */
+    @Query("SELECT new com.example.demo.models.ProductSummary(p.id, p.title, p.price, p.dateOfCreated, p.previewImageId) " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<ProductSummary> findSummariesByIdIn(@NonNull Collection<Long> ids);
+
+    /**
+     * Находит идентификаторы продуктов, содержащих строку в названии, имени автора или жанре
+     * (без учета регистра). Продукты, название которых начинается с запроса, идут первыми.
+     *
+     * @param query    строка для поиска (не может быть null)
+     * @param pageable номер и размер страницы результатов
+     * @return идентификаторы найденных продуктов
+     */
+    @Query("SELECT p.id FROM Product p " +
+            "WHERE LOWER(p.title) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR LOWER(p.author) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR LOWER(p.genre) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "ORDER BY CASE WHEN LOWER(p.title) LIKE LOWER(CONCAT(:query, '%')) THEN 0 " +
+            "WHEN LOWER(p.title) LIKE LOWER(CONCAT('%', :query, '%')) THEN 1 ELSE 2 END, p.id DESC")
+    Slice<Long> searchIds(@NonNull String query, Pageable pageable);
+
+    /**
+     * Возвращает порцию документов для построения поискового индекса.
+     * Документы выбираются по возрастанию id начиная с указанного, без загрузки сущностей.
+     *
+     * @param id       id последнего документа предыдущей порции (0 для первой порции)
+     * @param pageable ограничение размера порции (смещение всегда нулевое)
+     * @return документы поискового индекса
+     */
+    @Query("SELECT new com.example.demo.models.ProductSearchDocument(p.id, p.title, p.author, p.genre, p.description) " +
+            "FROM Product p WHERE p.id > :id ORDER BY p.id")
+    List<ProductSearchDocument> findSearchDocumentsAfter(Long id, Pageable pageable);
+
+    /**
+     * Находит продукт вместе с изображениями одним запросом (для страницы продукта).
+     * Владелец продукта не загружается.
+     *
+     * @param id идентификатор продукта (не может быть null)
+     * @return {@link Optional} с найденным продуктом или пустой, если продукт не найден
+     */
+    @EntityGraph(attributePaths = "images")
+    Optional<Product> findWithImagesById(@NonNull Long id);
+
     /**
      * Проверяет существование продукта по его идентификатору.
      *
@@ -0,0 +1,21 @@
+package com.example.demo.repositories;
+
+import com.example.demo.models.Product;
+
+/**
+ * Операции репозитория продуктов, которые не выражаются методами {@link org.springframework.data.jpa.repository.JpaRepository}.
+ * Реализация - {@link ProductRepositoryCustomImpl}.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Сохраняет новый продукт вместе с изображениями.
+     * Идентификатор превью-изображения (первого изображения с флагом превью) записывается
+     * в той же вставке, что и продукт, без последующего обновления.
+     *
+     * @param product новый продукт (не может быть null и не должен быть сохранен ранее)
+     * @return сохраненный продукт
+     * @throws IllegalArgumentException если продукт равен null или уже сохранен
+     */
+    Product saveNew(Product product);
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.example.demo.repositories;
+
+import com.example.demo.models.Image;
+import com.example.demo.models.Product;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Реализация {@link ProductRepositoryCustom}.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private final EntityManager entityManager;
+
+    /**
+     * Конструктор реализации.
+     *
+     * @param entityManager EntityManager (не может быть null)
+     * @throws IllegalArgumentException если EntityManager равен null
+     */
+    public ProductRepositoryCustomImpl(EntityManager entityManager) {
+        if (entityManager == null) {
+            throw new IllegalArgumentException("EntityManager не может быть null");
+        }
+
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Идентификатор превью-изображения выделяется из последовательности изображений до сохранения
+     * продукта (см. {@link com.example.demo.models.AssignableSequence}) и сохраняется за изображением
+     * при его вставке.
+     */
+    @Override
+    @Transactional
+    public Product saveNew(Product product) {
+        if (product == null || product.getId() != null) {
+            throw new IllegalArgumentException("Продукт должен быть новым");
+        }
+
+        product.getImages().stream()
+                .filter(Image::isPreviewImage)
+                .findFirst()
+                .ifPresent(preview -> product.setPreviewImageId(assignId(preview)));
+        entityManager.persist(product);
+        return product;
+    }
+
+    /**
+     * Назначает изображению идентификатор, если он еще не назначен.
+     *
+     * @param image несохраненное изображение
+     * @return идентификатор изображения
+     */
+    private Long assignId(Image image) {
+        if (image.getId() == null) {
+            SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+            BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+                    .getMappingMetamodel().getEntityDescriptor(Image.class).getGenerator();
+            image.setId((Long) generator.generate(session, null, null, EventType.INSERT));
+        }
+
+        return image.getId();
+    }
+}
\ No newline at end of file
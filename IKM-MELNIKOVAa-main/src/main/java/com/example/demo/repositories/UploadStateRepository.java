@@ -0,0 +1,29 @@
+package com.example.demo.repositories;
+
+import com.example.demo.models.UploadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Репозиторий состояний фоновой обработки загрузок.
+ */
+@Repository
+public interface UploadStateRepository extends JpaRepository<UploadState, String> {
+
+    /**
+     * Удаляет состояния загрузок в указанных состояниях, не изменявшиеся с указанного момента.
+     *
+     * @param states    удаляемые этапы обработки
+     * @param threshold момент, раньше которого состояние считается устаревшим
+     * @return количество удаленных состояний
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from UploadState u where u.state in :states and u.updatedAt < :threshold")
+    int deleteByStateInAndUpdatedAtBefore(Collection<String> states, Instant threshold);
+}
\ No newline at end of file
@@ -0,0 +1,526 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.CatalogProperties;
+import com.example.demo.configurations.UploadProperties;
+import com.example.demo.configurations.WorkerThreads;
+import com.example.demo.models.Image;
+import com.example.demo.models.Product;
+import com.example.demo.models.ProductSearchDocument;
+import com.example.demo.models.User;
+import com.example.demo.repositories.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Массовый импорт каталога из файла CSV или NDJSON и архива обложек.
+ * Файл читается потоком по одной строке, продукты сохраняются порциями, каждая порция -
+ * в отдельной транзакции с пакетными вставками JDBC. В памяти одновременно находится не больше
+ * одной порции, а обложки читаются из архива по имени, поэтому расход памяти не зависит от размера файла.
+ * Импорты выполняются по одному в фоновом потоке; ход выполнения доступен в {@link ImportReport}.
+ */
+@Service
+@Slf4j
+public class CatalogImportService {
+    private static final ObjectReader CSV_READER = CsvMapper.builder()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .build()
+            .readerFor(ImportRow.class)
+            .with(CsvSchema.emptySchema().withHeader());
+
+    private static final ObjectReader NDJSON_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readerFor(ImportRow.class);
+
+    private final ProductRepository productRepository;
+
+    private final ProductService productService;
+
+    private final ProductSearchEngine productSearchEngine;
+
+    private final ImageService imageService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    private final int maxErrors;
+
+    private final long maxImageSize;
+
+    private final Path stagingDirectory;
+
+    private final Duration retryAfter;
+
+    private final Duration statusRetention;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ConcurrentMap<String, ImportReport> reports = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор сервиса.
+     *
+     * @param productRepository   репозиторий продуктов (не может быть null)
+     * @param productService      сервис продуктов (не может быть null)
+     * @param productSearchEngine поисковый движок (не может быть null)
+     * @param imageService        сервис изображений (не может быть null)
+     * @param transactionTemplate шаблон транзакций (не может быть null)
+     * @param catalogProperties   настройки каталога (не может быть null)
+     * @param uploadProperties    настройки загрузок (не может быть null)
+     * @param workerThreads       фабрика рабочих потоков (не может быть null)
+     * @throws IllegalArgumentException если любой из параметров равен null или настройки некорректны
+     */
+    public CatalogImportService(ProductRepository productRepository, ProductService productService,
+                                ProductSearchEngine productSearchEngine, ImageService imageService,
+                                TransactionTemplate transactionTemplate, CatalogProperties catalogProperties,
+                                UploadProperties uploadProperties, WorkerThreads workerThreads) {
+        if (productRepository == null || productService == null || productSearchEngine == null
+                || imageService == null || transactionTemplate == null || catalogProperties == null
+                || uploadProperties == null || workerThreads == null) {
+            throw new IllegalArgumentException("Зависимости сервиса импорта не могут быть null");
+        }
+
+        CatalogProperties.BulkImport settings = catalogProperties.getBulkImport();
+
+        if (settings.getChunkSize() <= 0 || settings.getMaxErrors() < 0 || settings.getQueueCapacity() <= 0) {
+            throw new IllegalArgumentException("Некорректные настройки массового импорта");
+        }
+
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.productSearchEngine = productSearchEngine;
+        this.imageService = imageService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = settings.getChunkSize();
+        this.maxErrors = settings.getMaxErrors();
+        this.maxImageSize = uploadProperties.getMaxImageSize().toBytes();
+        this.stagingDirectory = uploadProperties.getStagingDir().toAbsolutePath().normalize();
+        this.retryAfter = uploadProperties.getRetryAfter();
+        this.statusRetention = uploadProperties.getStatusRetention();
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+                workerThreads.factory("catalog-import-"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Принимает файл каталога и архив обложек в импорт.
+     * Формат файла определяется по расширению или типу содержимого: CSV с заголовком
+     * или NDJSON (один JSON-объект на строку). Поля строки: {@code title}, {@code description},
+     * {@code price}, {@code genre}, {@code author}, {@code cover} - имя файла обложки в архиве.
+     *
+     * @param catalog файл каталога (не может быть пустым)
+     * @param covers  ZIP-архив обложек (может быть null)
+     * @param owner   пользователь, от имени которого создаются продукты (не может быть null)
+     * @return отчет о принятом импорте
+     * @throws IllegalArgumentException если файл пуст, формат не поддерживается или пользователь не задан
+     * @throws UploadIngestionService.UploadRejectedException если очередь импорта заполнена
+     * @throws IOException если не удалось сохранить файлы во временный каталог
+     */
+    public ImportReport submit(MultipartFile catalog, MultipartFile covers, User owner) throws IOException {
+        if (catalog == null || catalog.isEmpty()) {
+            throw new IllegalArgumentException("Файл каталога не может быть пустым");
+        }
+
+        if (owner == null) {
+            throw new IllegalArgumentException("Пользователь не может быть null");
+        }
+
+        ObjectReader reader = readerFor(catalog);
+        purgeExpiredReports();
+
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new UploadIngestionService.UploadRejectedException(
+                    "Выполняется слишком много импортов, повторите попытку позже", retryAfter);
+        }
+
+        String id = UUID.randomUUID().toString();
+        Files.createDirectories(stagingDirectory);
+        Path catalogFile = stagingDirectory.resolve(id + ".catalog.upload");
+        Path coversFile = covers == null || covers.isEmpty() ? null : stagingDirectory.resolve(id + ".covers.upload");
+        catalog.transferTo(catalogFile.toFile());
+
+        if (coversFile != null) {
+            covers.transferTo(coversFile.toFile());
+        }
+
+        ImportReport queued = ImportReport.queued(id);
+        reports.put(id, queued);
+
+        try {
+            executor.execute(() -> runImport(id, reader, catalogFile, coversFile, owner));
+        }
+
+        catch (RejectedExecutionException e) {
+            reports.remove(id);
+            discard(catalogFile);
+            discard(coversFile);
+            throw new UploadIngestionService.UploadRejectedException(
+                    "Выполняется слишком много импортов, повторите попытку позже", retryAfter);
+        }
+
+        return queued;
+    }
+
+    /**
+     * Возвращает отчет об импорте.
+     *
+     * @param id идентификатор импорта
+     * @return {@link Optional} с отчетом или пустой, если импорт неизвестен или отчет устарел
+     */
+    public Optional<ImportReport> getReport(String id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(reports.get(id));
+    }
+
+    /**
+     * Останавливает импорт. Уже сохраненные порции остаются в базе данных.
+     *
+     * @throws InterruptedException если ожидание было прервано
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Импорт каталога не остановился за отведенное время");
+        }
+    }
+
+    /**
+     * Выполняет импорт в фоновом потоке.
+     *
+     * @param id          идентификатор импорта
+     * @param reader      читатель строк файла каталога
+     * @param catalogFile файл каталога
+     * @param coversFile  архив обложек (может быть null)
+     * @param owner       владелец создаваемых продуктов
+     */
+    private void runImport(String id, ObjectReader reader, Path catalogFile, Path coversFile, User owner) {
+        Progress progress = new Progress(id);
+        publish(progress, UploadStatus.State.PROCESSING, null);
+
+        try (ZipFile zip = coversFile == null ? null : new ZipFile(coversFile.toFile(), StandardCharsets.UTF_8);
+             Reader input = Files.newBufferedReader(catalogFile, StandardCharsets.UTF_8);
+             MappingIterator<ImportRow> rows = reader.readValues(input)) {
+            List<Product> chunk = new ArrayList<>(chunkSize);
+            long chunkStart = 1;
+
+            while (rows.hasNextValue()) {
+                long rowNumber = ++progress.rowsRead;
+
+                if (chunk.isEmpty()) {
+                    chunkStart = rowNumber;
+                }
+
+                ImportRow row;
+                try {
+                    row = rows.nextValue();
+                }
+
+                catch (JsonMappingException e) {
+                    progress.reject(rowNumber, "Некорректные данные: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                try {
+                    chunk.add(toProduct(row, zip, owner));
+                }
+
+                catch (IllegalArgumentException | ProductService.ProductImageException e) {
+                    progress.reject(rowNumber, e.getMessage());
+                }
+
+                catch (IOException e) {
+                    log.debug("Не удалось прочитать обложку строки {} импорта {}", rowNumber, id, e);
+                    progress.reject(rowNumber, "Не удалось прочитать обложку: " + e.getMessage());
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, chunkStart, progress);
+                    chunk.clear();
+                    publish(progress, UploadStatus.State.PROCESSING, null);
+
+                    if (Thread.currentThread().isInterrupted()) {
+                        publish(progress, UploadStatus.State.FAILED, "Импорт прерван остановкой приложения");
+                        return;
+                    }
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, chunkStart, progress);
+            }
+
+            log.info("Импорт каталога {} завершен: прочитано строк {}, сохранено продуктов {}",
+                    id, progress.rowsRead, progress.rowsImported);
+            publish(progress, UploadStatus.State.COMPLETED, null);
+        }
+
+        catch (JsonProcessingException e) {
+            log.warn("Не удалось разобрать файл импорта {}", id, e);
+            publish(progress, UploadStatus.State.FAILED,
+                    "Файл не удалось разобрать после строки " + progress.rowsRead + ": " + e.getOriginalMessage());
+        }
+
+        catch (IOException | RuntimeException e) {
+            log.warn("Импорт каталога {} прерван", id, e);
+            publish(progress, UploadStatus.State.FAILED, e.getMessage());
+        }
+
+        finally {
+            discard(catalogFile);
+            discard(coversFile);
+        }
+    }
+
+    /**
+     * Создает продукт по строке файла, проверяя его по тем же правилам, что и
+     * {@link ProductService#saveProduct}, и сохраняет обложку в хранилище.
+     *
+     * @param row    строка файла
+     * @param covers архив обложек (может быть null)
+     * @param owner  владелец продукта
+     * @return продукт, готовый к сохранению
+     * @throws IOException              если не удалось прочитать обложку
+     * @throws IllegalArgumentException если строка невалидна
+     * @throws ProductService.ProductImageException если у строки нет обложки
+     */
+    private Product toProduct(ImportRow row, ZipFile covers, User owner) throws IOException {
+        Product product = new Product();
+        product.setTitle(trim(row.getTitle()));
+        product.setDescription(trim(row.getDescription()));
+        product.setPrice(row.getPrice() == null ? 0 : row.getPrice());
+        product.setGenre(trim(row.getGenre()));
+        product.setAuthor(trim(row.getAuthor()));
+        product.setUser(owner);
+        productService.validateProduct(product);
+
+        String cover = trim(row.getCover());
+
+        if (cover == null || cover.isEmpty()) {
+            throw new ProductService.ProductImageException("Продукт должен иметь хотя бы одно изображение");
+        }
+
+        ZipEntry entry = covers == null ? null : covers.getEntry(cover);
+
+        if (entry == null || entry.isDirectory()) {
+            throw new IllegalArgumentException("Обложка не найдена в архиве: " + cover);
+        }
+
+        if (entry.getSize() <= 0 || entry.getSize() > maxImageSize) {
+            throw new IllegalArgumentException("Недопустимый размер обложки: " + cover);
+        }
+
+        String fileName = Path.of(entry.getName()).getFileName().toString();
+        String contentType = MediaTypeFactory.getMediaType(fileName)
+                .map(MediaType::toString)
+                .filter(type -> type.startsWith("image/"))
+                .orElseThrow(() -> new IllegalArgumentException("Разрешены только изображения: " + cover));
+
+        Image image;
+        try (InputStream content = covers.getInputStream(entry)) {
+            image = imageService.createImage("cover", fileName, contentType, entry.getSize(), content);
+        }
+
+        image.setPreviewImage(true);
+        product.addImageToProduct(image);
+        return product;
+    }
+
+    /**
+     * Сохраняет порцию продуктов в одной транзакции и добавляет их в поисковый индекс.
+     * Если порцию сохранить не удалось, ошибка записывается в отчет, а импорт продолжается.
+     *
+     * @param chunk      продукты порции
+     * @param chunkStart номер первой строки порции
+     * @param progress   ход импорта
+     */
+    private void writeChunk(List<Product> chunk, long chunkStart, Progress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> chunk.forEach(productRepository::saveNew));
+        }
+
+        catch (RuntimeException e) {
+            log.warn("Не удалось сохранить порцию импорта {}, начиная со строки {}", progress.id, chunkStart, e);
+            progress.reject(chunkStart, "Порция из " + chunk.size() + " продуктов, начиная с этой строки, "
+                    + "не сохранена: " + e.getMessage());
+            imageService.releaseContent(chunk.stream()
+                    .flatMap(product -> product.getImages().stream())
+                    .map(Image::getContentHash)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .toList());
+            return;
+        }
+
+        for (Product product : chunk) {
+            productSearchEngine.index(ProductSearchDocument.of(product));
+        }
+
+        productService.evictCatalogPages();
+
+        progress.rowsImported += chunk.size();
+    }
+
+    /**
+     * Публикует текущее состояние импорта.
+     *
+     * @param progress ход импорта
+     * @param state    этап выполнения
+     * @param error    причина прерывания импорта (может быть null)
+     */
+    private void publish(Progress progress, UploadStatus.State state, String error) {
+        reports.put(progress.id, new ImportReport(progress.id, state, progress.rowsRead, progress.rowsImported,
+                List.copyOf(progress.errors), progress.errorsTruncated, error, Instant.now()));
+    }
+
+    /**
+     * Выбирает читатель строк по расширению или типу содержимого файла.
+     *
+     * @param catalog файл каталога
+     * @return читатель строк
+     * @throws IllegalArgumentException если формат не поддерживается
+     */
+    private static ObjectReader readerFor(MultipartFile catalog) {
+        String name = catalog.getOriginalFilename() == null
+                ? "" : catalog.getOriginalFilename().toLowerCase(Locale.ROOT);
+        String contentType = catalog.getContentType() == null
+                ? "" : catalog.getContentType().toLowerCase(Locale.ROOT);
+
+        if (name.endsWith(".csv") || contentType.startsWith("text/csv")) {
+            return CSV_READER;
+        }
+
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json")
+                || contentType.startsWith("application/x-ndjson")) {
+            return NDJSON_READER;
+        }
+
+        throw new IllegalArgumentException("Поддерживаются только файлы CSV и NDJSON");
+    }
+
+    /**
+     * Удаляет пробелы по краям строки.
+     *
+     * @param value строка (может быть null)
+     * @return строка без пробелов по краям или null
+     */
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    /**
+     * Удаляет временный файл.
+     *
+     * @param file путь к файлу (может быть null)
+     */
+    private void discard(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        }
+
+        catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}", file, e);
+        }
+    }
+
+    /**
+     * Удаляет устаревшие отчеты о завершенных импортах.
+     */
+    private void purgeExpiredReports() {
+        Instant threshold = Instant.now().minus(statusRetention);
+        reports.values().removeIf(report -> report.isFinished() && report.getUpdatedAt().isBefore(threshold));
+    }
+
+    /**
+     * Строка импортируемого файла.
+     */
+    @Data
+    public static class ImportRow {
+        private String title;
+
+        private String description;
+
+        private Double price;
+
+        private String genre;
+
+        private String author;
+
+        private String cover;
+    }
+
+    /**
+     * Ход выполнения импорта. Изменяется только потоком импорта.
+     */
+    private final class Progress {
+        private final String id;
+
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+
+        private long rowsRead;
+
+        private long rowsImported;
+
+        private boolean errorsTruncated;
+
+        private Progress(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Записывает ошибку строки, соблюдая ограничение на количество ошибок в отчете.
+         *
+         * @param row     номер строки
+         * @param message описание ошибки
+         */
+        private void reject(long row, String message) {
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+
+            else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
\ No newline at end of file
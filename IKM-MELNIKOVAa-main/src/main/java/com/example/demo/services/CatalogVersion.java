@@ -0,0 +1,188 @@
+package com.example.demo.services;
+
+import com.example.demo.models.CatalogState;
+import com.example.demo.repositories.CatalogStateRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версия каталога: увеличивается после каждого изменения продуктов через {@link ProductService}.
+ * Входит в ключи кешей страниц каталога и в ETag HTML-страниц, поэтому после изменения
+ * каталога старые записи кешей просто перестают запрашиваться, а браузеры получают новую страницу.
+ * Версия хранится в таблице {@code catalog_state} и общая для всех экземпляров приложения:
+ * начальное значение читается из базы данных, а каждое изменение увеличивает его в базе.
+ * Экземпляр узнает об изменениях, сделанных другими экземплярами, не позже чем через
+ * {@code catalog.version-refresh-interval}: локальная версия догоняет версию в базе, кеш второго
+ * уровня Hibernate очищается, так как в нем могли остаться измененные другим экземпляром продукты,
+ * и публикуется событие {@link RemoteCatalogChange} для остальных данных каталога в памяти.
+ */
+@Component
+@Slf4j
+public class CatalogVersion {
+    private final CatalogStateRepository catalogStateRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong version;
+
+    /**
+     * Конструктор версии каталога. Читает текущую версию из базы данных.
+     *
+     * @param catalogStateRepository репозиторий состояния каталога (не может быть null)
+     * @param transactionManager     менеджер транзакций (не может быть null)
+     * @param entityManagerFactory   фабрика EntityManager (не может быть null)
+     * @param eventPublisher         публикатор событий приложения (не может быть null)
+     * @throws IllegalArgumentException если аргумент равен null
+     */
+    public CatalogVersion(CatalogStateRepository catalogStateRepository, PlatformTransactionManager transactionManager,
+                          EntityManagerFactory entityManagerFactory, ApplicationEventPublisher eventPublisher) {
+        if (catalogStateRepository == null) {
+            throw new IllegalArgumentException("CatalogStateRepository не может быть null");
+        }
+
+        if (transactionManager == null) {
+            throw new IllegalArgumentException("PlatformTransactionManager не может быть null");
+        }
+
+        if (entityManagerFactory == null) {
+            throw new IllegalArgumentException("EntityManagerFactory не может быть null");
+        }
+
+        if (eventPublisher == null) {
+            throw new IllegalArgumentException("ApplicationEventPublisher не может быть null");
+        }
+
+        this.catalogStateRepository = catalogStateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.version = new AtomicLong(load());
+    }
+
+    /**
+     * Возвращает текущую версию каталога.
+     *
+     * @return версия каталога
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Увеличивает версию каталога. Внутри транзакции версия увеличивается после ее фиксации,
+     * чтобы другие экземпляры не закешировали страницы без еще не зафиксированного изменения.
+     */
+    public void increment() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            incrementShared();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                incrementShared();
+            }
+        });
+    }
+
+    /**
+     * Сверяет локальную версию с версией в базе данных и подхватывает изменения других экземпляров.
+     */
+    @Scheduled(fixedDelayString = "${catalog.version-refresh-interval:5s}")
+    public void refresh() {
+        long shared;
+
+        try {
+            shared = transactionTemplate.execute(status -> catalogStateRepository.findVersion().orElseGet(this::create));
+        }
+
+        catch (DataAccessException e) {
+            log.warn("Не удалось прочитать версию каталога", e);
+            return;
+        }
+
+        if (version.getAndAccumulate(shared, Math::max) < shared) {
+            onRemoteChange(shared);
+        }
+    }
+
+    /**
+     * Увеличивает версию в базе данных. Если между предыдущим и новым значением каталог менялся
+     * другим экземпляром, очищает кеш второго уровня. При ошибке базы данных версия увеличивается
+     * только локально, а остальные экземпляры узнают об изменении при следующем изменении каталога.
+     */
+    private void incrementShared() {
+        long shared;
+
+        try {
+            shared = transactionTemplate.execute(status -> {
+                if (catalogStateRepository.incrementVersion() == 0) {
+                    return create();
+                }
+
+                return catalogStateRepository.findVersion().orElseThrow();
+            });
+        }
+
+        catch (DataAccessException e) {
+            log.warn("Не удалось увеличить версию каталога в базе данных", e);
+            version.incrementAndGet();
+            return;
+        }
+
+        if (version.getAndAccumulate(shared, Math::max) < shared - 1) {
+            onRemoteChange(shared);
+        }
+    }
+
+    /**
+     * Читает версию из базы данных, создавая запись, если ее нет (схема создана Hibernate без миграций).
+     */
+    private long load() {
+        try {
+            return transactionTemplate.execute(status -> catalogStateRepository.findVersion().orElseGet(this::create));
+        }
+
+        catch (DataIntegrityViolationException e) {
+            // запись одновременно создана другим экземпляром
+            return transactionTemplate.execute(status -> catalogStateRepository.findVersion().orElseThrow());
+        }
+    }
+
+    /**
+     * Создает запись версии. Начальное значение берется из текущего времени, чтобы ETag,
+     * выданные до пересоздания базы данных, не совпали с новыми.
+     */
+    private long create() {
+        return catalogStateRepository.saveAndFlush(
+                new CatalogState(CatalogState.SINGLETON_ID, System.currentTimeMillis())).getVersion();
+    }
+
+    /**
+     * Очищает кеш второго уровня Hibernate и сообщает об изменении каталога другим экземпляром.
+     *
+     * @param shared версия каталога в базе данных
+     */
+    private void onRemoteChange(long shared) {
+        log.debug("Каталог изменен другим экземпляром, кеш второго уровня очищен");
+        entityManagerFactory.getCache().evictAll();
+        eventPublisher.publishEvent(new RemoteCatalogChange(shared));
+    }
+}
\ No newline at end of file
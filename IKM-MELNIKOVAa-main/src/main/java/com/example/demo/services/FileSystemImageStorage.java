@@ -0,0 +1,214 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Файловое хранилище изображений с адресацией по содержимому.
+ * Файл с хешем {@code abcdef...} хранится по пути {@code <root>/ab/cd/abcdef...}.
+ * Содержимое сначала пишется во временный файл, а затем атомарно переносится на место,
+ * поэтому читатели никогда не видят частично записанный файл.
+ * Время изменения файла обновляется при каждом сохранении, в том числе повторном; сохранение
+ * и удаление одного хеша выполняются под общей блокировкой.
+ */
+@Service
+@Slf4j
+public class FileSystemImageStorage implements ImageStorage {
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+
+    private final Path tempDirectory;
+
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    /**
+     * Конструктор хранилища.
+     *
+     * @param imageProperties настройки изображений (не может быть null)
+     * @throws IllegalArgumentException если настройки равны null
+     */
+    public FileSystemImageStorage(ImageProperties imageProperties) {
+        if (imageProperties == null) {
+            throw new IllegalArgumentException("ImageProperties не может быть null");
+        }
+
+        this.root = imageProperties.getStorage().getRoot().toAbsolutePath().normalize();
+        this.tempDirectory = root.resolve("tmp");
+
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Сохраняет содержимое, вычисляя его хеш во время записи.
+     *
+     * @param content поток с содержимым (не может быть null)
+     * @return хеш SHA-256 содержимого
+     * @throws IOException если не удалось прочитать поток или записать файл
+     */
+    @Override
+    public String store(InputStream content) throws IOException {
+        if (content == null) {
+            throw new IllegalArgumentException("Содержимое изображения не может быть null");
+        }
+
+        Files.createDirectories(tempDirectory);
+        Path temp = Files.createTempFile(tempDirectory, "upload-", ".tmp");
+
+        try {
+            MessageDigest digest = sha256();
+
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            Path target = locate(contentHash);
+            Lock lock = lockFor(contentHash);
+            lock.lock();
+
+            try {
+                if (Files.exists(target)) {
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                }
+
+                else {
+                    Files.createDirectories(target.getParent());
+
+                    try {
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    }
+
+                    catch (FileAlreadyExistsException e) {
+                        log.debug("Изображение {} уже сохранено параллельной загрузкой", contentHash);
+                        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    }
+                }
+            }
+
+            finally {
+                lock.unlock();
+            }
+
+            return contentHash;
+        }
+
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Возвращает путь к файлу с содержимым.
+     *
+     * @param contentHash хеш содержимого
+     * @return путь к файлу
+     * @throws IllegalArgumentException если хеш некорректен
+     */
+    @Override
+    public Path locate(String contentHash) {
+        if (contentHash == null || !HASH_PATTERN.matcher(contentHash).matches()) {
+            throw new IllegalArgumentException("Некорректный хеш изображения: " + contentHash);
+        }
+
+        return root.resolve(contentHash.substring(0, 2))
+                .resolve(contentHash.substring(2, 4))
+                .resolve(contentHash);
+    }
+
+    /**
+     * Проверяет наличие содержимого в хранилище.
+     *
+     * @param contentHash хеш содержимого
+     * @return true если файл существует
+     */
+    @Override
+    public boolean exists(String contentHash) {
+        return Files.isRegularFile(locate(contentHash));
+    }
+
+    /**
+     * Удаляет файл с содержимым, если время его изменения не позже {@code cutoff}.
+     *
+     * @param contentHash хеш содержимого
+     * @param cutoff      момент, после которого сохраненный файл не удаляется
+     * @return false если файл сохранялся после {@code cutoff}
+     * @throws IOException если не удалось удалить файл
+     */
+    @Override
+    public boolean deleteIfUnmodifiedSince(String contentHash, Instant cutoff) throws IOException {
+        if (cutoff == null) {
+            throw new IllegalArgumentException("Момент отсечения не может быть null");
+        }
+
+        Path file = locate(contentHash);
+        Lock lock = lockFor(contentHash);
+        lock.lock();
+
+        try {
+            if (Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                return false;
+            }
+
+            Files.deleteIfExists(file);
+            return true;
+        }
+
+        catch (NoSuchFileException e) {
+            return true;
+        }
+
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает блокировку, общую для сохранения и удаления хеша.
+     *
+     * @param contentHash хеш содержимого
+     * @return блокировка
+     */
+    private Lock lockFor(String contentHash) {
+        return locks[Math.floorMod(contentHash.hashCode(), locks.length)];
+    }
+
+    /**
+     * Создает объект вычисления SHA-256.
+     *
+     * @return объект вычисления хеша
+     * @throws IllegalStateException если алгоритм недоступен
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
+}
\ No newline at end of file
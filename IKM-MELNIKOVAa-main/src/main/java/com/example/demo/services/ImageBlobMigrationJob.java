@@ -0,0 +1,114 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import com.example.demo.models.Image;
+import com.example.demo.repositories.ImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Задача переноса содержимого изображений из базы данных в файловое хранилище.
+ * Изображения переносятся порциями, каждая порция - в отдельной транзакции,
+ * поэтому задачу можно прервать и продолжить при следующем запуске.
+ * После переноса столбец {@code bytes} обнуляется, а в {@code content_hash} записывается хеш.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageBlobMigrationJob {
+    private final ImageRepository imageRepository;
+
+    private final ImageStorage imageStorage;
+
+    private final ImageProperties imageProperties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Запускает перенос после старта приложения, если он включен в настройках.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (imageProperties.getStorage().isMigrateOnStartup()) {
+            migrate();
+        }
+    }
+
+    /**
+     * Переносит в хранилище все изображения, содержимое которых хранится в базе данных.
+     *
+     * @return количество перенесенных изображений
+     * @throws ImageMigrationException если не удалось сохранить содержимое в хранилище
+     */
+    public int migrate() {
+        int batchSize = imageProperties.getStorage().getMigrationBatchSize();
+        long lastId = 0;
+        int migrated = 0;
+
+        List<Long> batch;
+        do {
+            batch = imageRepository.findIdsStoredInDatabaseAfter(lastId, PageRequest.of(0, batchSize));
+
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Long> ids = batch;
+            Integer count = transactionTemplate.execute(status -> migrateBatch(ids));
+            migrated += count == null ? 0 : count;
+            lastId = batch.get(batch.size() - 1);
+        } while (batch.size() == batchSize);
+
+        if (migrated > 0) {
+            log.info("Перенесено изображений из базы данных в файловое хранилище: {}", migrated);
+        }
+
+        return migrated;
+    }
+
+    /**
+     * Переносит одну порцию изображений.
+     *
+     * @param ids идентификаторы изображений
+     * @return количество перенесенных изображений
+     */
+    private int migrateBatch(List<Long> ids) {
+        int migrated = 0;
+
+        for (Image image : imageRepository.findAllById(ids)) {
+            if (image.getContentHash() != null || image.getBytes() == null) {
+                continue;
+            }
+
+            try {
+                image.setContentHash(imageStorage.store(new ByteArrayInputStream(image.getBytes())));
+            }
+
+            catch (IOException e) {
+                throw new ImageMigrationException("Не удалось перенести изображение с id " + image.getId(), e);
+            }
+
+            image.setBytes(null);
+            migrated++;
+        }
+
+        return migrated;
+    }
+
+    /**
+     * Исключение, выбрасываемое при ошибках переноса изображений.
+     */
+    public static class ImageMigrationException extends RuntimeException {
+        public ImageMigrationException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
\ No newline at end of file
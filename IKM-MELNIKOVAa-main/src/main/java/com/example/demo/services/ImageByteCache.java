@@ -0,0 +1,309 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import org.springframework.stereotype.Service;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кеш содержимого изображений с ограничением по суммарному размеру в байтах.
+ * Ключом служит хеш содержимого, поэтому записи никогда не устаревают и удаляются
+ * только при вытеснении или явной инвалидации.
+ * <p>
+ * Вытеснение - сегментированный LRU: новые записи попадают в испытательный сегмент,
+ * а при повторном обращении переходят в защищенный. Однократно запрошенные изображения
+ * (например, при обходе каталога поисковым роботом) вытесняются первыми и не выталкивают
+ * популярные обложки.
+ */
+@Service
+public class ImageByteCache {
+    private final boolean enabled;
+
+    private final boolean offHeap;
+
+    private final long maxBytes;
+
+    private final long maxEntryBytes;
+
+    private final long maxProtectedBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<String, ByteBuffer> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, ByteBuffer> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long probationBytes;
+
+    private long protectedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Конструктор кеша.
+     *
+     * @param imageProperties настройки изображений (не может быть null)
+     * @throws IllegalArgumentException если настройки равны null или некорректны
+     */
+    public ImageByteCache(ImageProperties imageProperties) {
+        if (imageProperties == null) {
+            throw new IllegalArgumentException("ImageProperties не может быть null");
+        }
+
+        ImageProperties.Cache cache = imageProperties.getCache();
+
+        if (cache.getProtectedRatio() < 0 || cache.getProtectedRatio() >= 1) {
+            throw new IllegalArgumentException("Доля защищенного сегмента должна быть в диапазоне [0, 1)");
+        }
+
+        this.enabled = cache.isEnabled() && cache.getMaxSize().toBytes() > 0;
+        this.offHeap = cache.isOffHeap();
+        this.maxBytes = cache.getMaxSize().toBytes();
+        this.maxEntryBytes = Math.min(cache.getMaxEntrySize().toBytes(), maxBytes);
+        this.maxProtectedBytes = (long) (maxBytes * cache.getProtectedRatio());
+    }
+
+    /**
+     * Проверяет, может ли содержимое указанного размера быть помещено в кеш.
+     *
+     * @param size размер содержимого в байтах
+     * @return true если кеш включен и размер не превышает ограничение на запись
+     */
+    public boolean accepts(long size) {
+        return enabled && size > 0 && size <= maxEntryBytes;
+    }
+
+    /**
+     * Проверяет, хранит ли кеш содержимое вне heap.
+     *
+     * @return true если записи хранятся в direct-буферах
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Возвращает содержимое из кеша.
+     *
+     * @param contentHash хеш содержимого
+     * @return буфер только для чтения с содержимым или пустой {@link Optional} при промахе
+     */
+    public Optional<ByteBuffer> get(String contentHash) {
+        if (!enabled || contentHash == null) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer;
+        lock.lock();
+
+        try {
+            buffer = protectedSegment.get(contentHash);
+
+            if (buffer == null) {
+                buffer = probation.remove(contentHash);
+
+                if (buffer != null) {
+                    probationBytes -= buffer.capacity();
+                    promote(contentHash, buffer);
+                }
+            }
+        }
+
+        finally {
+            lock.unlock();
+        }
+
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(buffer.asReadOnlyBuffer());
+    }
+
+    /**
+     * Помещает содержимое в кеш.
+     * Содержимое копируется в буфер кеша (direct-буфер в режиме off-heap), поэтому изменение
+     * переданного массива не влияет на кеш. Содержимое, которое кеш не принимает, не копируется.
+     *
+     * @param contentHash хеш содержимого (не может быть null)
+     * @param content     содержимое
+     * @return буфер только для чтения с содержимым
+     */
+    public ByteBuffer put(String contentHash, byte[] content) {
+        if (contentHash == null || content == null) {
+            throw new IllegalArgumentException("Хеш и содержимое изображения не могут быть null");
+        }
+
+        if (!accepts(content.length)) {
+            return ByteBuffer.wrap(content).asReadOnlyBuffer();
+        }
+
+        ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(content.length) : ByteBuffer.allocate(content.length);
+        buffer.put(content).flip();
+        lock.lock();
+
+        try {
+            if (!protectedSegment.containsKey(contentHash)) {
+                ByteBuffer previous = probation.put(contentHash, buffer);
+
+                if (previous != null) {
+                    probationBytes -= previous.capacity();
+                }
+
+                probationBytes += buffer.capacity();
+                evictOverflow();
+            }
+        }
+
+        finally {
+            lock.unlock();
+        }
+
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Удаляет содержимое из кеша.
+     *
+     * @param contentHash хеш содержимого
+     */
+    public void evict(String contentHash) {
+        if (contentHash == null) {
+            return;
+        }
+
+        lock.lock();
+
+        try {
+            ByteBuffer removed = probation.remove(contentHash);
+
+            if (removed != null) {
+                probationBytes -= removed.capacity();
+            }
+
+            removed = protectedSegment.remove(contentHash);
+
+            if (removed != null) {
+                protectedBytes -= removed.capacity();
+            }
+        }
+
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает статистику кеша.
+     *
+     * @return снимок счетчиков и заполненности кеша
+     */
+    public Stats stats() {
+        lock.lock();
+
+        try {
+            return new Stats(hits.get(), misses.get(), evictions.get(),
+                    probation.size() + protectedSegment.size(), probationBytes + protectedBytes, maxBytes);
+        }
+
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Переносит запись в защищенный сегмент; при его переполнении самые давние
+     * записи защищенного сегмента возвращаются в испытательный.
+     * Вызывается под блокировкой.
+     *
+     * @param contentHash хеш содержимого
+     * @param buffer      содержимое
+     */
+    private void promote(String contentHash, ByteBuffer buffer) {
+        protectedSegment.put(contentHash, buffer);
+        protectedBytes += buffer.capacity();
+
+        Iterator<Map.Entry<String, ByteBuffer>> eldest = protectedSegment.entrySet().iterator();
+        while (protectedBytes > maxProtectedBytes && eldest.hasNext()) {
+            Map.Entry<String, ByteBuffer> demoted = eldest.next();
+
+            if (demoted.getKey().equals(contentHash)) {
+                break;
+            }
+
+            eldest.remove();
+            protectedBytes -= demoted.getValue().capacity();
+            probation.put(demoted.getKey(), demoted.getValue());
+            probationBytes += demoted.getValue().capacity();
+        }
+    }
+
+    /**
+     * Вытесняет записи, пока кеш превышает допустимый размер:
+     * сначала самые давние записи испытательного сегмента, затем защищенного.
+     * Вызывается под блокировкой.
+     */
+    private void evictOverflow() {
+        evictFrom(probation, true);
+        evictFrom(protectedSegment, false);
+    }
+
+    /**
+     * Вытесняет самые давние записи сегмента, пока кеш превышает допустимый размер.
+     *
+     * @param segment     сегмент кеша
+     * @param isProbation true для испытательного сегмента
+     */
+    private void evictFrom(LinkedHashMap<String, ByteBuffer> segment, boolean isProbation) {
+        Iterator<ByteBuffer> eldest = segment.values().iterator();
+
+        while (probationBytes + protectedBytes > maxBytes && eldest.hasNext()) {
+            long size = eldest.next().capacity();
+            eldest.remove();
+
+            if (isProbation) {
+                probationBytes -= size;
+            }
+
+            else {
+                protectedBytes -= size;
+            }
+
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Снимок статистики кеша.
+     *
+     * @param hits      количество попаданий
+     * @param misses    количество промахов
+     * @param evictions количество вытесненных записей
+     * @param entries   количество записей в кеше
+     * @param bytes     суммарный размер содержимого в кеше
+     * @param maxBytes  допустимый суммарный размер содержимого
+     */
+    public record Stats(long hits, long misses, long evictions, long entries, long bytes, long maxBytes) {
+
+        /**
+         * Вычисляет долю попаданий.
+         *
+         * @return доля попаданий от 0 до 1 (0, если обращений не было)
+         */
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
\ No newline at end of file
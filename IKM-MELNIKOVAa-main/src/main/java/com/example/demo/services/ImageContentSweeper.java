@@ -0,0 +1,132 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import com.example.demo.repositories.ImageRepository;
+import com.example.demo.repositories.ImageVariantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отложенное удаление освобожденного содержимого изображений.
+ * Содержимое адресуется хешем и может одновременно использоваться новым изображением, транзакция
+ * которого еще не зафиксирована, поэтому проверка ссылок в базе данных в момент освобождения
+ * недостаточна. Освобожденные хеши удаляются из хранилища не раньше, чем через
+ * {@code images.storage.release-grace}, и только если за это время на них не появилось ссылок
+ * и содержимое не сохранялось повторно.
+ * Список освобожденных хешей хранится в памяти: после перезапуска оставшиеся файлы не удаляются,
+ * что не влияет на работу приложения.
+ */
+@Component
+@Slf4j
+public class ImageContentSweeper {
+    private final ImageRepository imageRepository;
+
+    private final ImageVariantRepository imageVariantRepository;
+
+    private final ImageStorage imageStorage;
+
+    private final Duration grace;
+
+    private final Map<String, Instant> released = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор очистки.
+     *
+     * @param imageRepository        репозиторий изображений (не может быть null)
+     * @param imageVariantRepository репозиторий уменьшенных копий (не может быть null)
+     * @param imageStorage           хранилище содержимого (не может быть null)
+     * @param imageProperties        настройки изображений (не может быть null)
+     * @throws IllegalArgumentException если аргумент равен null или время ожидания отрицательно
+     */
+    public ImageContentSweeper(ImageRepository imageRepository, ImageVariantRepository imageVariantRepository,
+                               ImageStorage imageStorage, ImageProperties imageProperties) {
+        if (imageRepository == null || imageVariantRepository == null) {
+            throw new IllegalArgumentException("Репозитории изображений не могут быть null");
+        }
+
+        if (imageStorage == null) {
+            throw new IllegalArgumentException("ImageStorage не может быть null");
+        }
+
+        if (imageProperties == null) {
+            throw new IllegalArgumentException("ImageProperties не может быть null");
+        }
+
+        Duration grace = imageProperties.getStorage().getReleaseGrace();
+
+        if (grace == null || grace.isNegative()) {
+            throw new IllegalArgumentException("Время ожидания перед удалением не может быть отрицательным");
+        }
+
+        this.imageRepository = imageRepository;
+        this.imageVariantRepository = imageVariantRepository;
+        this.imageStorage = imageStorage;
+        this.grace = grace;
+    }
+
+    /**
+     * Отмечает содержимое освобожденным.
+     *
+     * @param contentHashes хеши содержимого удаленных изображений
+     */
+    public void release(Collection<String> contentHashes) {
+        Instant now = Instant.now();
+
+        for (String contentHash : contentHashes) {
+            released.put(contentHash, now);
+        }
+    }
+
+    /**
+     * Удаляет из хранилища содержимое, освобожденное раньше {@code images.storage.release-grace}.
+     */
+    @Scheduled(fixedDelayString = "${images.storage.sweep-interval:1m}")
+    public void sweep() {
+        sweep(Instant.now());
+    }
+
+    /**
+     * Удаляет содержимое, освобожденное и не сохранявшееся повторно раньше {@code now - grace}.
+     * Содержимое, на которое снова ссылается изображение, забывается; сохраненное повторно,
+     * но еще не использованное, проверяется при следующих запусках.
+     * Ошибки удаления файлов только логируются.
+     *
+     * @param now текущий момент
+     */
+    void sweep(Instant now) {
+        Instant cutoff = now.minus(grace);
+
+        for (Map.Entry<String, Instant> entry : released.entrySet()) {
+            String contentHash = entry.getKey();
+            Instant releasedAt = entry.getValue();
+
+            if (releasedAt.isAfter(cutoff)) {
+                continue;
+            }
+
+            if (imageRepository.existsByContentHash(contentHash)
+                    || imageVariantRepository.existsByContentHash(contentHash)) {
+                released.remove(contentHash, releasedAt);
+                continue;
+            }
+
+            try {
+                if (imageStorage.deleteIfUnmodifiedSince(contentHash, cutoff)) {
+                    released.remove(contentHash, releasedAt);
+                }
+            }
+
+            catch (IOException e) {
+                log.warn("Не удалось удалить содержимое изображения {}", contentHash, e);
+                released.remove(contentHash, releasedAt);
+            }
+        }
+    }
+}
\ No newline at end of file
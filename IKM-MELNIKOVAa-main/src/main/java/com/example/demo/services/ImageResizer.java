@@ -0,0 +1,198 @@
+package com.example.demo.services;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Уменьшение изображений средствами JDK (javax.imageio и Java2D), без внешних библиотек и сервисов.
+ * Исходное изображение декодируется один раз с прореживанием пикселей, если оно намного больше
+ * нужного размера, затем уменьшается последовательными шагами не более чем вдвое
+ * с билинейной интерполяцией - это дает качество, близкое к бикубическому, при меньшей стоимости.
+ */
+public class ImageResizer {
+    private static final String JPEG = "image/jpeg";
+    private static final String PNG = "image/png";
+
+    private final long maxSourcePixels;
+
+    private final float jpegQuality;
+
+    /**
+     * Конструктор.
+     *
+     * @param maxSourcePixels максимальное число пикселей исходного изображения
+     * @param jpegQuality     качество сжатия JPEG (от 0 до 1)
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public ImageResizer(long maxSourcePixels, float jpegQuality) {
+        if (maxSourcePixels <= 0) {
+            throw new IllegalArgumentException("Ограничение на размер исходного изображения должно быть положительным");
+        }
+
+        if (jpegQuality <= 0 || jpegQuality > 1) {
+            throw new IllegalArgumentException("Качество JPEG должно быть в диапазоне (0, 1]");
+        }
+
+        this.maxSourcePixels = maxSourcePixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Декодирует изображение, прореживая пиксели так, чтобы наибольшая сторона
+     * оставалась не меньше удвоенного требуемого размера.
+     * Размеры проверяются до декодирования, поэтому «бомбы» с огромным разрешением не занимают память.
+     *
+     * @param content   поток с закодированным изображением (закрывается вызывающим)
+     * @param maxBounds наибольший требуемый размер копии
+     * @return декодированное изображение
+     * @throws IOException если формат не поддерживается, изображение слишком велико или повреждено
+     */
+    public BufferedImage decode(InputStream content, int maxBounds) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            if (input == null) {
+                throw new IOException("Не удалось открыть поток изображения");
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+
+            if (!readers.hasNext()) {
+                throw new IOException("Формат изображения не поддерживается");
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Изображение слишком велико: " + width + "x" + height);
+                }
+
+                int subsampling = Math.max(1, Math.max(width, height) / (maxBounds * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            }
+
+            finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Уменьшает изображение так, чтобы наибольшая сторона не превышала указанный размер.
+     * Изображения, которые уже не больше требуемого размера, возвращаются без изменений.
+     *
+     * @param source исходное изображение
+     * @param bounds наибольшая сторона результата в пикселях
+     * @return уменьшенное изображение
+     */
+    public BufferedImage resize(BufferedImage source, int bounds) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        if (Math.max(width, height) <= bounds) {
+            return source;
+        }
+
+        double scale = (double) bounds / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height, type);
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    /**
+     * Кодирует изображение: JPEG для непрозрачных изображений, PNG - для изображений с прозрачностью.
+     *
+     * @param image изображение
+     * @return закодированное изображение
+     * @throws IOException если не удалось закодировать изображение
+     */
+    public EncodedImage encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        if (image.getColorModel().hasAlpha()) {
+            ImageIO.write(image, "png", output);
+            return new EncodedImage(PNG, output.toByteArray(), image.getWidth(), image.getHeight());
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+
+        finally {
+            writer.dispose();
+        }
+
+        return new EncodedImage(JPEG, output.toByteArray(), image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Перерисовывает изображение в новом размере с билинейной интерполяцией.
+     *
+     * @param source исходное изображение
+     * @param width  ширина результата
+     * @param height высота результата
+     * @param type   тип растра результата
+     * @return перерисованное изображение
+     */
+    private static BufferedImage draw(BufferedImage source, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        }
+
+        finally {
+            graphics.dispose();
+        }
+
+        return target;
+    }
+
+    /**
+     * Закодированное изображение.
+     *
+     * @param contentType MIME-тип
+     * @param bytes       содержимое
+     * @param width       ширина в пикселях
+     * @param height      высота в пикселях
+     */
+    public record EncodedImage(String contentType, byte[] bytes, int width, int height) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package com.example.demo.services;
+
+import com.example.demo.models.Image;
+import com.example.demo.models.ImageMetadata;
+import com.example.demo.repositories.ImageRepository;
+import com.example.demo.repositories.ImageVariantRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Сервис для работы с изображениями.
+ * Сохраняет содержимое изображений в {@link ImageStorage} и готовит изображения к выдаче клиенту.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageService {
+    private final ImageRepository imageRepository;
+
+    private final ImageStorage imageStorage;
+
+    private final ImageByteCache imageByteCache;
+
+    private final ImageVariantRepository imageVariantRepository;
+
+    private final ImageContentSweeper imageContentSweeper;
+
+    /**
+     * Создает сущность изображения, сохраняя содержимое загруженного файла в хранилище.
+     * Файл читается потоком, без загрузки всего содержимого в память.
+     *
+     * @param upload загруженный файл во временном каталоге (не может быть null)
+     * @return сущность изображения без привязки к продукту
+     * @throws IOException если не удалось прочитать или сохранить файл
+     */
+    public Image createImage(StagedUpload upload) throws IOException {
+        if (upload == null) {
+            throw new IllegalArgumentException("Файл изображения не может быть null");
+        }
+
+        try (InputStream content = Files.newInputStream(upload.file())) {
+            return createImage(upload.name(), upload.originalFilename(), upload.contentType(), upload.size(), content);
+        }
+    }
+
+    /**
+     * Создает сущность изображения, сохраняя содержимое потока в хранилище.
+     *
+     * @param name             внутреннее имя изображения
+     * @param originalFilename исходное имя файла
+     * @param contentType      MIME-тип содержимого
+     * @param size             размер содержимого в байтах
+     * @param content          поток с содержимым (не может быть null, закрывается вызывающим)
+     * @return сущность изображения без привязки к продукту
+     * @throws IOException если не удалось прочитать поток или сохранить содержимое
+     */
+    public Image createImage(String name, String originalFilename, String contentType, long size,
+                             InputStream content) throws IOException {
+        if (content == null) {
+            throw new IllegalArgumentException("Содержимое изображения не может быть null");
+        }
+
+        Image image = new Image();
+        image.setName(name);
+        image.setOriginalFilename(originalFilename);
+        image.setContentType(contentType);
+        image.setSize(size);
+        image.setContentHash(imageStorage.store(content));
+        return image;
+    }
+
+    /**
+     * Находит метаданные изображения без чтения его содержимого.
+     *
+     * @param id идентификатор изображения (не может быть null)
+     * @return метаданные изображения
+     * @throws IllegalArgumentException если id равен null
+     * @throws ImageNotFoundException если изображение не найдено
+     */
+    public ImageMetadata getMetadata(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Идентификатор изображения не может быть null");
+        }
+
+        return imageRepository.findMetadataById(id)
+                .orElseThrow(() -> new ImageNotFoundException("Изображение с id " + id + " не найдено"));
+    }
+
+    /**
+     * Готовит изображение к выдаче.
+     * Изображения подходящего размера отдаются из {@link ImageByteCache} (при промахе файл
+     * читается и помещается в кеш), крупные - из файла хранилища. Для еще не перенесенных
+     * изображений содержимое читается из базы данных.
+     *
+     * @param metadata метаданные изображения (не может быть null)
+     * @return изображение с путем к файлу или содержимым в памяти
+     * @throws IllegalArgumentException если метаданные равны null
+     * @throws ImageNotFoundException если содержимое изображения отсутствует
+     */
+    @Transactional(readOnly = true)
+    public StoredImage getImage(ImageMetadata metadata) {
+        if (metadata == null) {
+            throw new IllegalArgumentException("Метаданные изображения не могут быть null");
+        }
+
+        String contentHash = metadata.contentHash();
+
+        if (contentHash == null) {
+            byte[] bytes = imageRepository.findBytesById(metadata.id());
+
+            if (bytes == null) {
+                throw new ImageNotFoundException("Содержимое изображения с id " + metadata.id() + " не найдено");
+            }
+
+            return new StoredImage(metadata, null, ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+        }
+
+        boolean cacheable = imageByteCache.accepts(metadata.size());
+
+        if (cacheable) {
+            Optional<ByteBuffer> cached = imageByteCache.get(contentHash);
+
+            if (cached.isPresent()) {
+                return new StoredImage(metadata, null, cached.get());
+            }
+        }
+
+        Path file = imageStorage.locate(contentHash);
+
+        if (!Files.isRegularFile(file)) {
+            throw new ImageNotFoundException("Файл изображения с id " + metadata.id() + " отсутствует в хранилище");
+        }
+
+        if (!cacheable) {
+            return new StoredImage(metadata, file, null);
+        }
+
+        try {
+            return new StoredImage(metadata, null, imageByteCache.put(contentHash, Files.readAllBytes(file)));
+        }
+
+        catch (IOException e) {
+            log.warn("Не удалось прочитать изображение {} в кеш, отдаем из файла", contentHash, e);
+            return new StoredImage(metadata, file, null);
+        }
+    }
+
+    /**
+     * Возвращает хеши содержимого изображений продукта и их уменьшенных копий.
+     *
+     * @param productId идентификатор продукта
+     * @return хеши содержимого
+     */
+    public List<String> getContentHashes(Long productId) {
+        List<String> contentHashes = new ArrayList<>(imageRepository.findContentHashesByProductId(productId));
+        contentHashes.addAll(imageVariantRepository.findContentHashesByProductId(productId));
+        return contentHashes;
+    }
+
+    /**
+     * Освобождает содержимое удаленных изображений: удаляет его из кеша и передает
+     * {@link ImageContentSweeper}, который удалит из хранилища содержимое, так и не
+     * использованное повторно за {@code images.storage.release-grace}.
+     *
+     * @param contentHashes хеши содержимого удаленных изображений
+     */
+    public void releaseContent(Collection<String> contentHashes) {
+        for (String contentHash : contentHashes) {
+            imageByteCache.evict(contentHash);
+        }
+
+        imageContentSweeper.release(contentHashes);
+    }
+
+    /**
+     * Исключение, выбрасываемое когда изображение не найдено.
+     */
+    public static class ImageNotFoundException extends RuntimeException {
+        public ImageNotFoundException(String message) {
+            super(message);
+        }
+    }
+}
\ No newline at end of file
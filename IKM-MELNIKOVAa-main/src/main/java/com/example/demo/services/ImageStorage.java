@@ -0,0 +1,53 @@
+package com.example.demo.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Хранилище содержимого изображений.
+ * Содержимое адресуется своим хешем SHA-256: одинаковые файлы хранятся один раз,
+ * а сохраненное содержимое никогда не изменяется. Повторное сохранение уже существующего
+ * содержимого отмечается временем сохранения, чтобы его не удалили как неиспользуемое
+ * до фиксации транзакции, которая на него ссылается.
+ */
+public interface ImageStorage {
+
+    /**
+     * Сохраняет содержимое изображения.
+     *
+     * @param content поток с содержимым (не может быть null, закрывается вызывающим)
+     * @return хеш SHA-256 содержимого в шестнадцатеричном виде
+     * @throws IOException если не удалось прочитать поток или записать файл
+     */
+    String store(InputStream content) throws IOException;
+
+    /**
+     * Возвращает путь к файлу с содержимым.
+     *
+     * @param contentHash хеш содержимого
+     * @return путь к файлу (файл может не существовать)
+     * @throws IllegalArgumentException если хеш некорректен
+     */
+    Path locate(String contentHash);
+
+    /**
+     * Проверяет наличие содержимого в хранилище.
+     *
+     * @param contentHash хеш содержимого
+     * @return true если содержимое сохранено
+     */
+    boolean exists(String contentHash);
+
+    /**
+     * Удаляет содержимое из хранилища, если оно не сохранялось после указанного момента.
+     * Проверка и удаление выполняются атомарно относительно {@link #store(InputStream)}.
+     *
+     * @param contentHash хеш содержимого
+     * @param cutoff      момент, после которого сохраненное содержимое не удаляется
+     * @return false если содержимое сохранялось после {@code cutoff} и оставлено в хранилище
+     * @throws IOException если не удалось удалить файл
+     */
+    boolean deleteIfUnmodifiedSince(String contentHash, Instant cutoff) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,401 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import com.example.demo.models.ImageMetadata;
+import com.example.demo.models.ImageVariant;
+import com.example.demo.repositories.ImageRepository;
+import com.example.demo.repositories.ImageVariantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Сервис уменьшенных копий изображений.
+ * Копии нескольких фиксированных размеров создаются при загрузке изображения, а если копии
+ * нет (например, для изображений, загруженных раньше), - при первом запросе.
+ * Копии хранятся в {@link ImageStorage} и отдаются так же, как исходные изображения.
+ * Если копию создать не удалось (поврежденный или слишком большой файл), в течение
+ * {@code images.variants.failure-ttl} отдается исходное изображение без повторных попыток.
+ * Декодирование и сжатие занимают процессор и память, поэтому одновременно создается не больше
+ * {@code images.variants.max-concurrent} копий: при запросе сверх этого отдается исходное изображение,
+ * а создание копий после загрузки ждет освобождения места.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+    private static final int MAX_FAILURES = 10_000;
+
+    private final ImageRepository imageRepository;
+
+    private final ImageVariantRepository imageVariantRepository;
+
+    private final ImageService imageService;
+
+    private final ImageStorage imageStorage;
+
+    private final ImageResizer imageResizer;
+
+    private final List<Integer> widths;
+
+    private final boolean generateOnUpload;
+
+    private final long failureTtlNanos;
+
+    /**
+     * Места для одновременного создания копий.
+     */
+    private final Semaphore generationPermits;
+
+    /**
+     * Копии, которые не удалось создать: момент в единицах {@link System#nanoTime()},
+     * до которого вместо копии отдается исходное изображение.
+     */
+    private final ConcurrentMap<String, Long> failedUntil = new ConcurrentHashMap<>();
+
+    /**
+     * Создаваемые в данный момент копии: параллельные запросы одной копии ждут одного результата.
+     */
+    private final ConcurrentMap<String, CompletableFuture<ImageMetadata>> inProgress = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор сервиса.
+     *
+     * @param imageRepository        репозиторий изображений (не может быть null)
+     * @param imageVariantRepository репозиторий копий изображений (не может быть null)
+     * @param imageService           сервис изображений (не может быть null)
+     * @param imageStorage           хранилище содержимого (не может быть null)
+     * @param imageProperties        настройки изображений (не может быть null)
+     * @throws IllegalArgumentException если любой из параметров равен null, размеры копий не заданы
+     *                                  или число одновременно создаваемых копий не положительно
+     */
+    public ImageVariantService(ImageRepository imageRepository, ImageVariantRepository imageVariantRepository,
+                               ImageService imageService, ImageStorage imageStorage,
+                               ImageProperties imageProperties) {
+        if (imageRepository == null || imageVariantRepository == null || imageService == null
+                || imageStorage == null || imageProperties == null) {
+            throw new IllegalArgumentException("Зависимости сервиса копий изображений не могут быть null");
+        }
+
+        ImageProperties.Variants variants = imageProperties.getVariants();
+
+        if (variants.getWidths() == null || variants.getWidths().isEmpty()
+                || variants.getWidths().stream().anyMatch(width -> width == null || width <= 0)) {
+            throw new IllegalArgumentException("Размеры копий изображений должны быть положительными");
+        }
+
+        if (variants.getFailureTtl() == null || variants.getFailureTtl().isNegative()) {
+            throw new IllegalArgumentException("Время запоминания ошибок не может быть отрицательным");
+        }
+
+        if (variants.getMaxConcurrent() <= 0) {
+            throw new IllegalArgumentException("Число одновременно создаваемых копий должно быть положительным");
+        }
+
+        this.imageRepository = imageRepository;
+        this.imageVariantRepository = imageVariantRepository;
+        this.imageService = imageService;
+        this.imageStorage = imageStorage;
+        this.imageResizer = new ImageResizer(variants.getMaxSourcePixels(), variants.getQuality());
+        this.widths = variants.getWidths().stream().distinct().sorted().toList();
+        this.generateOnUpload = variants.isGenerateOnUpload();
+        this.failureTtlNanos = variants.getFailureTtl().toNanos();
+        this.generationPermits = new Semaphore(variants.getMaxConcurrent());
+    }
+
+    /**
+     * Округляет запрошенный размер вверх до ближайшего допустимого.
+     * Ограниченный набор размеров не позволяет заполнить хранилище копиями произвольных размеров.
+     *
+     * @param requested запрошенный размер
+     * @return допустимый размер копии
+     * @throws IllegalArgumentException если запрошенный размер не положителен
+     */
+    public int resolveWidth(int requested) {
+        if (requested <= 0) {
+            throw new IllegalArgumentException("Размер изображения должен быть положительным");
+        }
+
+        for (int width : widths) {
+            if (width >= requested) {
+                return width;
+            }
+        }
+
+        return widths.get(widths.size() - 1);
+    }
+
+    /**
+     * Возвращает метаданные копии изображения, создавая копию при необходимости.
+     * Если копию создать не удалось, возвращаются метаданные исходного изображения,
+     * и следующая попытка выполняется не раньше, чем через {@code images.variants.failure-ttl}.
+     * Если одновременно создается уже {@code images.variants.max-concurrent} копий, сразу
+     * возвращаются метаданные исходного изображения, а копия создается при следующем запросе.
+     *
+     * @param original  метаданные исходного изображения (не может быть null)
+     * @param requested запрошенный размер
+     * @return метаданные копии или исходного изображения
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    public ImageMetadata getVariant(ImageMetadata original, int requested) {
+        if (original == null) {
+            throw new IllegalArgumentException("Метаданные изображения не могут быть null");
+        }
+
+        int width = resolveWidth(requested);
+        Optional<ImageMetadata> existing = imageVariantRepository.findMetadata(original.id(), width);
+
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        String key = original.id() + ":" + width;
+
+        if (hasRecentFailure(key)) {
+            return original;
+        }
+
+        CompletableFuture<ImageMetadata> created = new CompletableFuture<>();
+        CompletableFuture<ImageMetadata> running = inProgress.putIfAbsent(key, created);
+
+        if (running != null) {
+            return joinQuietly(running, original);
+        }
+
+        if (!generationPermits.tryAcquire()) {
+            log.debug("Создается слишком много копий, для изображения {} отдаем исходное", original.id());
+            inProgress.remove(key, created);
+            created.complete(original);
+            return original;
+        }
+
+        try {
+            ImageMetadata result = createVariants(original, List.of(width)).stream().findFirst().orElse(original);
+            created.complete(result);
+            return result;
+        }
+
+        catch (IOException | RuntimeException e) {
+            log.warn("Не удалось создать копию {} изображения {}, отдаем исходное", width, original.id(), e);
+            recordFailure(key);
+            created.complete(original);
+            return original;
+        }
+
+        finally {
+            generationPermits.release();
+            inProgress.remove(key, created);
+        }
+    }
+
+    /**
+     * Создает все копии изображения после его загрузки, если это включено в настройках.
+     * Ожидает места, если одновременно создается уже {@code images.variants.max-concurrent} копий.
+     * Ошибки только логируются: недостающие копии будут созданы при первом запросе.
+     *
+     * @param imageId идентификатор загруженного изображения
+     */
+    public void generateVariants(Long imageId) {
+        if (!generateOnUpload || imageId == null) {
+            return;
+        }
+
+        try {
+            generationPermits.acquire();
+        }
+
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            ImageMetadata original = imageService.getMetadata(imageId);
+            List<Integer> existing = imageVariantRepository.findWidthsByImageId(imageId);
+            List<Integer> missing = widths.stream().filter(width -> !existing.contains(width)).toList();
+
+            if (!missing.isEmpty()) {
+                createVariants(original, missing);
+            }
+        }
+
+        catch (IOException | RuntimeException e) {
+            log.warn("Не удалось создать копии изображения {}", imageId, e);
+        }
+
+        finally {
+            generationPermits.release();
+        }
+    }
+
+    /**
+     * Декодирует исходное изображение один раз и создает копии указанных размеров.
+     *
+     * @param original метаданные исходного изображения
+     * @param targets  размеры копий
+     * @return метаданные созданных копий в порядке размеров
+     * @throws IOException если не удалось прочитать, обработать или сохранить изображение
+     */
+    private List<ImageMetadata> createVariants(ImageMetadata original, List<Integer> targets) throws IOException {
+        int maxTarget = targets.stream().mapToInt(Integer::intValue).max().orElseThrow();
+        BufferedImage source;
+
+        try (InputStream content = openOriginal(original)) {
+            source = imageResizer.decode(content, maxTarget);
+        }
+
+        if (source == null) {
+            throw new IOException("Не удалось декодировать изображение " + original.id());
+        }
+
+        return targets.stream()
+                .sorted()
+                .map(width -> storeVariant(original, source, width))
+                .toList();
+    }
+
+    /**
+     * Уменьшает изображение, сохраняет содержимое в хранилище и копию в базу данных.
+     * Если исходное изображение уже не больше требуемого размера, копия ссылается
+     * на содержимое исходного изображения, чтобы не перекодировать его и не декодировать повторно.
+     *
+     * @param original метаданные исходного изображения
+     * @param source   декодированное исходное изображение
+     * @param width    размер копии
+     * @return метаданные сохраненной копии
+     */
+    private ImageMetadata storeVariant(ImageMetadata original, BufferedImage source, int width) {
+        try {
+            ImageVariant variant = new ImageVariant();
+            variant.setImage(imageRepository.getReferenceById(original.id()));
+            variant.setWidth(width);
+
+            if (Math.max(source.getWidth(), source.getHeight()) <= width && original.contentHash() != null) {
+                variant.setPixelWidth(source.getWidth());
+                variant.setPixelHeight(source.getHeight());
+                variant.setContentType(original.contentType());
+                variant.setSize(original.size());
+                variant.setContentHash(original.contentHash());
+            }
+
+            else {
+                ImageResizer.EncodedImage encoded = imageResizer.encode(imageResizer.resize(source, width));
+                variant.setPixelWidth(encoded.width());
+                variant.setPixelHeight(encoded.height());
+                variant.setContentType(encoded.contentType());
+                variant.setSize((long) encoded.bytes().length);
+                variant.setContentHash(imageStorage.store(new ByteArrayInputStream(encoded.bytes())));
+            }
+
+            try {
+                imageVariantRepository.save(variant);
+            }
+
+            catch (DataIntegrityViolationException e) {
+                log.debug("Копия {} изображения {} уже создана другим узлом", width, original.id());
+            }
+
+            return imageVariantRepository.findMetadata(original.id(), width)
+                    .orElseThrow(() -> new IllegalStateException("Копия изображения не сохранена"));
+        }
+
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Открывает поток с содержимым исходного изображения.
+     *
+     * @param original метаданные исходного изображения
+     * @return поток с содержимым
+     * @throws IOException если содержимое недоступно
+     */
+    private InputStream openOriginal(ImageMetadata original) throws IOException {
+        if (original.contentHash() != null) {
+            return Files.newInputStream(imageStorage.locate(original.contentHash()));
+        }
+
+        byte[] bytes = imageRepository.findBytesById(original.id());
+
+        if (bytes == null) {
+            throw new IOException("Содержимое изображения " + original.id() + " не найдено");
+        }
+
+        return new ByteArrayInputStream(bytes);
+    }
+
+    /**
+     * Проверяет, не завершилась ли недавно ошибкой попытка создать копию.
+     *
+     * @param key ключ копии
+     * @return true если ошибка произошла не раньше, чем {@code images.variants.failure-ttl} назад
+     */
+    private boolean hasRecentFailure(String key) {
+        Long until = failedUntil.get(key);
+
+        if (until == null) {
+            return false;
+        }
+
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+
+        failedUntil.remove(key, until);
+        return false;
+    }
+
+    /**
+     * Запоминает неудачную попытку создать копию. Когда записей становится слишком много,
+     * устаревшие удаляются; если это не помогло, ошибка не запоминается.
+     *
+     * @param key ключ копии
+     */
+    private void recordFailure(String key) {
+        if (failureTtlNanos == 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        if (failedUntil.size() >= MAX_FAILURES) {
+            failedUntil.values().removeIf(until -> until - now <= 0);
+
+            if (failedUntil.size() >= MAX_FAILURES) {
+                return;
+            }
+        }
+
+        failedUntil.put(key, now + failureTtlNanos);
+    }
+
+    /**
+     * Ожидает копию, которую создает другой поток.
+     *
+     * @param running  создание копии
+     * @param original метаданные исходного изображения на случай ошибки
+     * @return метаданные копии или исходного изображения
+     */
+    private static ImageMetadata joinQuietly(CompletableFuture<ImageMetadata> running, ImageMetadata original) {
+        try {
+            return running.join();
+        }
+
+        catch (CompletionException e) {
+            return original;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.demo.services;
+
+import lombok.Value;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Отчет о ходе массового импорта каталога.
+ * Объект неизменяемый: по мере выполнения импорта публикуются новые экземпляры.
+ */
+@Value
+public class ImportReport {
+
+    /**
+     * Идентификатор импорта.
+     */
+    String id;
+
+    /**
+     * Этап выполнения.
+     */
+    UploadStatus.State state;
+
+    /**
+     * Количество прочитанных строк.
+     */
+    long rowsRead;
+
+    /**
+     * Количество сохраненных продуктов.
+     */
+    long rowsImported;
+
+    /**
+     * Ошибки отдельных строк (не больше заданного в настройках количества).
+     */
+    List<RowError> errors;
+
+    /**
+     * Были ли ошибки, не попавшие в отчет из-за ограничения на их количество.
+     */
+    boolean errorsTruncated;
+
+    /**
+     * Причина, по которой импорт был прерван.
+     */
+    String error;
+
+    /**
+     * Время последнего обновления отчета.
+     */
+    Instant updatedAt;
+
+    /**
+     * Создает отчет об импорте, ожидающем выполнения.
+     *
+     * @param id идентификатор импорта
+     * @return отчет
+     */
+    public static ImportReport queued(String id) {
+        return new ImportReport(id, UploadStatus.State.QUEUED, 0, 0, List.of(), false, null, Instant.now());
+    }
+
+    /**
+     * Проверяет, завершен ли импорт (успешно или с ошибкой).
+     *
+     * @return true если импорт завершен
+     */
+    public boolean isFinished() {
+        return state == UploadStatus.State.COMPLETED || state == UploadStatus.State.FAILED;
+    }
+
+    /**
+     * Ошибка в строке импортируемого файла.
+     */
+    @Value
+    public static class RowError {
+
+        /**
+         * Номер строки данных (начиная с 1, без учета заголовка CSV).
+         */
+        long row;
+
+        /**
+         * Описание ошибки.
+         */
+        String message;
+    }
+}
\ No newline at end of file
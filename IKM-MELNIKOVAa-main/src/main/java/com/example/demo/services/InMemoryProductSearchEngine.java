@@ -0,0 +1,717 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.CatalogProperties;
+import com.example.demo.models.ProductSearchDocument;
+import com.example.demo.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поисковый движок со встроенным инвертированным индексом по триграммам.
+ * Для каждой триграммы хранится отсортированный массив id продуктов и масок полей, в которых
+ * она встречается, поэтому поиск сводится к пересечению нескольких коротких списков и не зависит
+ * от числа продуктов, не подходящих под запрос.
+ * Индекс строится при старте приложения и обновляется при сохранении и удалении продуктов.
+ * Пока индекс не построен, запросы выполняются через {@link JpaProductSearchEngine}.
+ * Индекс хранится в памяти каждого экземпляра: об изменениях других экземпляров движок узнает
+ * из {@link RemoteCatalogChange} и перестраивает индекс по базе данных, поэтому до перестроения
+ * (не дольше {@code catalog.version-refresh-interval} и времени построения) поиск их не видит.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "catalog.search", name = "engine", havingValue = "memory")
+@Slf4j
+public class InMemoryProductSearchEngine implements ProductSearchEngine {
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 1 << 1;
+    private static final int GENRE = 1 << 2;
+    private static final int DESCRIPTION = 1 << 3;
+
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * Число младших бит ключа сортировки результатов, занятых id продукта (остальные биты - релевантность).
+     */
+    private static final int ID_BITS = 48;
+
+    private final ProductRepository productRepository;
+
+    private final JpaProductSearchEngine fallback;
+
+    private final CatalogProperties catalogProperties;
+
+    /**
+     * Защищает {@link #index} и {@link #pendingWrites}: поиск выполняется под блокировкой чтения,
+     * изменения индекса и замена перестроенного индекса - под блокировкой записи.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Не дает двум перестроениям индекса выполняться одновременно.
+     */
+    private final Object rebuildLock = new Object();
+
+    private TrigramIndex index = new TrigramIndex();
+
+    /**
+     * Изменения индекса, сделанные во время перестроения: id продукта -> документ
+     * (null - продукт удален). Применяются к перестроенному индексу перед заменой, чтобы
+     * прочитанные ранее из базы данных версии продуктов не затерли более новые.
+     * Равно null, когда индекс не перестраивается.
+     */
+    private Map<Long, ProductSearchDocument> pendingWrites;
+
+    private volatile boolean ready;
+
+    private volatile boolean stale;
+
+    /**
+     * Конструктор поискового движка.
+     *
+     * @param productRepository репозиторий продуктов (не может быть null)
+     * @param fallback          движок для запросов до построения индекса (не может быть null)
+     * @param catalogProperties настройки каталога (не может быть null)
+     * @throws IllegalArgumentException если любой из параметров равен null
+     */
+    public InMemoryProductSearchEngine(ProductRepository productRepository, JpaProductSearchEngine fallback,
+                                       CatalogProperties catalogProperties) {
+        if (productRepository == null || fallback == null || catalogProperties == null) {
+            throw new IllegalArgumentException("Зависимости поискового движка не могут быть null");
+        }
+
+        this.productRepository = productRepository;
+        this.fallback = fallback;
+        this.catalogProperties = catalogProperties;
+    }
+
+    /**
+     * Отмечает индекс устаревшим после изменения каталога другим экземпляром.
+     * Индекс перестраивается в {@link #refreshIfStale()}, а не в потоке, сообщившем об изменении.
+     *
+     * @param change изменение каталога другим экземпляром
+     */
+    @EventListener
+    public void onRemoteChange(RemoteCatalogChange change) {
+        stale = true;
+    }
+
+    /**
+     * Перестраивает индекс, если каталог изменялся другими экземплярами.
+     * Несколько изменений между проверками приводят к одному перестроению.
+     */
+    @Scheduled(fixedDelayString = "${catalog.version-refresh-interval:5s}")
+    public void refreshIfStale() {
+        if (!stale) {
+            return;
+        }
+
+        try {
+            rebuild();
+        }
+
+        catch (DataAccessException e) {
+            stale = true;
+            log.warn("Не удалось перестроить поисковый индекс", e);
+        }
+    }
+
+    /**
+     * Строит новый индекс по всем продуктам и заменяет им текущий.
+     * Продукты читаются порциями в виде проекций, без загрузки сущностей. Пока индекс строится,
+     * поиск выполняется по текущему индексу, а изменения, сделанные через {@link #index} и
+     * {@link #remove}, запоминаются и применяются к новому индексу перед заменой.
+     * Вызывается после запуска приложения и при изменениях каталога другими экземплярами.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.nanoTime();
+            stale = false;
+
+            lock.writeLock().lock();
+            try {
+                pendingWrites = new HashMap<>();
+            }
+
+            finally {
+                lock.writeLock().unlock();
+            }
+
+            TrigramIndex rebuilt = new TrigramIndex();
+            try {
+                load(rebuilt);
+            }
+
+            catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingWrites = null;
+                }
+
+                finally {
+                    lock.writeLock().unlock();
+                }
+
+                throw e;
+            }
+
+            rebuilt.trim();
+
+            int documents;
+            int grams;
+            lock.writeLock().lock();
+            try {
+                pendingWrites.forEach((id, document) -> {
+                    if (document == null) {
+                        rebuilt.remove(id);
+                    }
+
+                    else {
+                        rebuilt.add(document);
+                    }
+                });
+
+                pendingWrites = null;
+                index = rebuilt;
+                documents = rebuilt.documents.size();
+                grams = rebuilt.postings.size();
+            }
+
+            finally {
+                lock.writeLock().unlock();
+            }
+
+            ready = true;
+            log.info("Поисковый индекс построен. Продуктов: {}; триграмм: {}; время: {} мс",
+                    documents, grams, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Выполняет поиск по индексу.
+     * Продукт подходит под запрос, если хотя бы одно его поле содержит все триграммы запроса.
+     * Релевантность определяется весом совпавших полей; совпадение с началом названия
+     * и точное совпадение названия повышают релевантность.
+     *
+     * @param query    поисковый запрос (не может быть пустым)
+     * @param pageable номер и размер страницы результатов
+     * @return идентификаторы найденных продуктов, упорядоченные по релевантности
+     * @throws IllegalArgumentException если запрос пуст
+     */
+    @Override
+    public Slice<Long> search(String query, Pageable pageable) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Поисковый запрос не может быть пустым");
+        }
+
+        if (!ready) {
+            return fallback.search(query, pageable);
+        }
+
+        String normalized = normalize(query);
+
+        if (normalized.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+
+        long[] ranked;
+        lock.readLock().lock();
+        try {
+            ranked = index.rank(normalized);
+        }
+
+        finally {
+            lock.readLock().unlock();
+        }
+
+        // ключи упорядочены по возрастанию релевантности, а при равной релевантности - по возрастанию id
+        Arrays.sort(ranked);
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.length);
+        int to = Math.min(from + pageable.getPageSize(), ranked.length);
+        List<Long> ids = new ArrayList<>(to - from);
+
+        for (int i = from; i < to; i++) {
+            ids.add(ranked[ranked.length - 1 - i] & ((1L << ID_BITS) - 1));
+        }
+
+        return new SliceImpl<>(ids, pageable, to < ranked.length);
+    }
+
+    /**
+     * Добавляет продукт в индекс или заменяет его предыдущую версию.
+     *
+     * @param document документ индекса (не может быть null)
+     * @throws IllegalArgumentException если документ или его id равны null
+     */
+    @Override
+    public void index(ProductSearchDocument document) {
+        if (document == null || document.id() == null) {
+            throw new IllegalArgumentException("Документ индекса должен содержать id продукта");
+        }
+
+        lock.writeLock().lock();
+        try {
+            index.add(document);
+
+            if (pendingWrites != null) {
+                pendingWrites.put(document.id(), document);
+            }
+        }
+
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет продукт из индекса.
+     *
+     * @param productId идентификатор продукта
+     */
+    @Override
+    public void remove(Long productId) {
+        if (productId == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            index.remove(productId);
+
+            if (pendingWrites != null) {
+                pendingWrites.put(productId, null);
+            }
+        }
+
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Читает все продукты из базы данных в индекс.
+     *
+     * @param target заполняемый индекс
+     */
+    private void load(TrigramIndex target) {
+        int batchSize = catalogProperties.getSearch().getIndexBatchSize();
+        long lastId = 0;
+
+        List<ProductSearchDocument> batch;
+        do {
+            batch = productRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, batchSize));
+
+            for (ProductSearchDocument document : batch) {
+                target.add(document);
+                lastId = document.id();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Вычисляет релевантность продукта для запроса.
+     *
+     * @param document   проиндексированный продукт
+     * @param mask       маска полей, совпавших с запросом
+     * @param normalized нормализованный запрос
+     * @return релевантность (чем больше, тем выше в результатах)
+     */
+    private static int score(IndexedDocument document, int mask, String normalized) {
+        int score = 0;
+
+        if ((mask & TITLE) != 0) {
+            score += 8;
+        }
+
+        if ((mask & AUTHOR) != 0) {
+            score += 4;
+        }
+
+        if ((mask & GENRE) != 0) {
+            score += 2;
+        }
+
+        if ((mask & DESCRIPTION) != 0) {
+            score += 1;
+        }
+
+        if (document.title().equals(normalized)) {
+            score += 32;
+        }
+
+        else if (document.title().startsWith(normalized)) {
+            score += 16;
+        }
+
+        return score;
+    }
+
+    /**
+     * Добавляет триграммы поля в маски документа.
+     *
+     * @param fieldMasks ключ триграммы -> маска полей документа
+     * @param value      значение поля (может быть null)
+     * @param field      бит поля
+     */
+    private static void addGrams(Map<Long, Integer> fieldMasks, String value, int field) {
+        String normalized = normalize(value);
+
+        if (normalized.length() < GRAM_LENGTH) {
+            return;
+        }
+
+        for (long gram : grams(normalized)) {
+            fieldMasks.merge(gram, field, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Разбивает нормализованную строку на триграммы.
+     * Триграмма хранится как число: три 16-битных символа в младших 48 битах.
+     *
+     * @param normalized нормализованная строка длиной не меньше триграммы
+     * @return множество ключей триграмм
+     */
+    private static Set<Long> grams(String normalized) {
+        Set<Long> grams = new LinkedHashSet<>();
+
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(((long) normalized.charAt(i) << 32) | ((long) normalized.charAt(i + 1) << 16)
+                    | normalized.charAt(i + 2));
+        }
+
+        return grams;
+    }
+
+    /**
+     * Приводит строку к виду для индексации: нижний регистр, «ё» заменена на «е»,
+     * все символы кроме букв и цифр заменены одиночными пробелами.
+     *
+     * @param value исходная строка (может быть null)
+     * @return нормализованная строка (пустая для null)
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        StringBuilder result = new StringBuilder(value.length());
+        boolean space = false;
+
+        for (char c : value.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                result.append(c == 'ё' ? 'е' : c);
+                space = false;
+            }
+
+            else if (!space && result.length() > 0) {
+                result.append(' ');
+                space = true;
+            }
+        }
+
+        int length = result.length();
+        return length > 0 && result.charAt(length - 1) == ' ' ? result.substring(0, length - 1) : result.toString();
+    }
+
+    /**
+     * Инвертированный индекс по триграммам. Не потокобезопасен: доступ синхронизирует движок.
+     */
+    private static final class TrigramIndex {
+
+        /**
+         * Ключ триграммы -> продукты, содержащие триграмму.
+         */
+        private final Map<Long, Posting> postings = new HashMap<>();
+
+        /**
+         * id продукта -> проиндексированные данные продукта.
+         */
+        private final Map<Long, IndexedDocument> documents = new HashMap<>();
+
+        /**
+         * Добавляет продукт в индекс или заменяет его предыдущую версию.
+         *
+         * @param document документ индекса
+         */
+        void add(ProductSearchDocument document) {
+            remove(document.id());
+
+            Map<Long, Integer> fieldMasks = new HashMap<>();
+            addGrams(fieldMasks, document.title(), TITLE);
+            addGrams(fieldMasks, document.author(), AUTHOR);
+            addGrams(fieldMasks, document.genre(), GENRE);
+            addGrams(fieldMasks, document.description(), DESCRIPTION);
+
+            long[] grams = new long[fieldMasks.size()];
+            int i = 0;
+            for (Map.Entry<Long, Integer> entry : fieldMasks.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), gram -> new Posting()).put(document.id(), entry.getValue());
+                grams[i++] = entry.getKey();
+            }
+
+            documents.put(document.id(), new IndexedDocument(normalize(document.title()),
+                    normalize(document.author()), normalize(document.genre()), grams));
+        }
+
+        /**
+         * Удаляет продукт из индекса.
+         *
+         * @param productId идентификатор продукта
+         */
+        void remove(long productId) {
+            IndexedDocument previous = documents.remove(productId);
+
+            if (previous == null) {
+                return;
+            }
+
+            for (long gram : previous.grams()) {
+                Posting posting = postings.get(gram);
+
+                if (posting != null && posting.remove(productId) && posting.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        /**
+         * Освобождает незанятую емкость списков после построения индекса.
+         */
+        void trim() {
+            postings.values().forEach(Posting::trim);
+        }
+
+        /**
+         * Находит продукты, подходящие под запрос, и вычисляет их релевантность.
+         *
+         * @param normalized нормализованный непустой запрос
+         * @return ключи сортировки найденных продуктов: релевантность в старших битах, id в младших
+         */
+        long[] rank(String normalized) {
+            Posting matches = normalized.length() < GRAM_LENGTH
+                    ? scanShortQuery(normalized)
+                    : intersect(grams(normalized));
+
+            long[] ranked = new long[matches.size];
+            int count = 0;
+
+            for (int i = 0; i < matches.size; i++) {
+                IndexedDocument document = documents.get(matches.ids[i]);
+
+                if (document != null) {
+                    ranked[count++] = ((long) score(document, matches.masks[i], normalized) << ID_BITS)
+                            | matches.ids[i];
+                }
+            }
+
+            return count == ranked.length ? ranked : Arrays.copyOf(ranked, count);
+        }
+
+        /**
+         * Находит продукты, содержащие все триграммы запроса хотя бы в одном поле.
+         * Пересечение начинается с самого короткого списка, чтобы число кандидатов было минимальным.
+         *
+         * @param queryGrams ключи триграмм запроса
+         * @return продукты и маски полей, содержащих все триграммы
+         */
+        private Posting intersect(Set<Long> queryGrams) {
+            List<Posting> lists = new ArrayList<>(queryGrams.size());
+
+            for (long gram : queryGrams) {
+                Posting posting = postings.get(gram);
+
+                if (posting == null) {
+                    return new Posting();
+                }
+
+                lists.add(posting);
+            }
+
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+            Posting candidates = lists.get(0).copy();
+            for (int i = 1; i < lists.size() && candidates.size > 0; i++) {
+                candidates.retain(lists.get(i));
+            }
+
+            return candidates;
+        }
+
+        /**
+         * Ищет запросы короче триграммы перебором коротких полей (название, автор, жанр).
+         *
+         * @param normalized нормализованный запрос
+         * @return продукты и маски совпавших полей
+         */
+        private Posting scanShortQuery(String normalized) {
+            Posting matches = new Posting();
+
+            documents.forEach((id, document) -> {
+                int mask = (document.title().contains(normalized) ? TITLE : 0)
+                        | (document.author().contains(normalized) ? AUTHOR : 0)
+                        | (document.genre().contains(normalized) ? GENRE : 0);
+
+                if (mask != 0) {
+                    matches.append(id, mask);
+                }
+            });
+
+            return matches;
+        }
+    }
+
+    /**
+     * Список продуктов триграммы: id по возрастанию и маски полей в параллельных массивах
+     * примитивов, без объекта на каждую пару продукт-триграмма.
+     */
+    private static final class Posting {
+        private long[] ids = new long[2];
+
+        private byte[] masks = new byte[2];
+
+        private int size;
+
+        /**
+         * Добавляет продукт или заменяет его маску.
+         *
+         * @param id   id продукта
+         * @param mask маска полей
+         */
+        void put(long id, int mask) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+
+            if (position >= 0) {
+                masks[position] = (byte) mask;
+                return;
+            }
+
+            position = -position - 1;
+
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                masks = Arrays.copyOf(masks, capacity);
+            }
+
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(masks, position, masks, position + 1, size - position);
+            ids[position] = id;
+            masks[position] = (byte) mask;
+            size++;
+        }
+
+        /**
+         * Добавляет продукт в конец списка без сохранения порядка id.
+         * Используется только для списков результатов, по которым не выполняется поиск.
+         *
+         * @param id   id продукта
+         * @param mask маска полей
+         */
+        void append(long id, int mask) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                masks = Arrays.copyOf(masks, capacity);
+            }
+
+            ids[size] = id;
+            masks[size] = (byte) mask;
+            size++;
+        }
+
+        /**
+         * Удаляет продукт из списка.
+         *
+         * @param id id продукта
+         * @return true, если продукт был в списке
+         */
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+
+            if (position < 0) {
+                return false;
+            }
+
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(masks, position + 1, masks, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        /**
+         * Оставляет только продукты, которые есть в другом списке, объединяя маски по «и».
+         * Продукты, у которых не осталось общих полей, удаляются.
+         *
+         * @param other другой список
+         */
+        void retain(Posting other) {
+            int kept = 0;
+
+            for (int i = 0; i < size; i++) {
+                int position = Arrays.binarySearch(other.ids, 0, other.size, ids[i]);
+                int mask = position >= 0 ? masks[i] & other.masks[position] : 0;
+
+                if (mask != 0) {
+                    ids[kept] = ids[i];
+                    masks[kept] = (byte) mask;
+                    kept++;
+                }
+            }
+
+            size = kept;
+        }
+
+        /**
+         * Возвращает копию списка.
+         *
+         * @return копия с емкостью по размеру
+         */
+        Posting copy() {
+            Posting copy = new Posting();
+            copy.ids = Arrays.copyOf(ids, size);
+            copy.masks = Arrays.copyOf(masks, size);
+            copy.size = size;
+            return copy;
+        }
+
+        /**
+         * Сокращает массивы до размера списка.
+         */
+        void trim() {
+            if (ids.length > size) {
+                ids = Arrays.copyOf(ids, size);
+                masks = Arrays.copyOf(masks, size);
+            }
+        }
+    }
+
+    /**
+     * Проиндексированный продукт: нормализованные короткие поля для ранжирования
+     * и ключи триграмм для удаления из индекса.
+     */
+    private record IndexedDocument(String title, String author, String genre, long[] grams) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ProductSearchDocument;
+import com.example.demo.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+/**
+ * Поисковый движок, выполняющий поиск запросами к базе данных.
+ * Используется, когда встроенный индекс отключен или еще не построен.
+ * Индексом служит сама таблица продуктов, поэтому обновление индекса не требуется.
+ */
+@Service
+@RequiredArgsConstructor
+public class JpaProductSearchEngine implements ProductSearchEngine {
+    private final ProductRepository productRepository;
+
+    /**
+     * Выполняет поиск по названию, автору и жанру.
+     * Продукты, название которых начинается с запроса, выводятся первыми.
+     *
+     * @param query    поисковый запрос (не может быть пустым)
+     * @param pageable номер и размер страницы результатов
+     * @return идентификаторы найденных продуктов
+     * @throws IllegalArgumentException если запрос пуст
+     */
+    @Override
+    public Slice<Long> search(String query, Pageable pageable) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("Поисковый запрос не может быть пустым");
+        }
+
+        return productRepository.searchIds(query.trim(), pageable);
+    }
+
+    /**
+     * Ничего не делает: данные уже сохранены в таблице продуктов.
+     *
+     * @param document документ индекса
+     */
+    @Override
+    public void index(ProductSearchDocument document) {
+    }
+
+    /**
+     * Ничего не делает: продукт уже удален из таблицы продуктов.
+     *
+     * @param productId идентификатор продукта
+     */
+    @Override
+    public void remove(Long productId) {
+    }
+}
\ No newline at end of file
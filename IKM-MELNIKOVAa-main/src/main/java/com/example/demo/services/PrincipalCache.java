@@ -0,0 +1,176 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.AuthProperties;
+import com.example.demo.models.UserPrincipal;
+import org.springframework.stereotype.Service;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кеш аутентифицированных пользователей с ограниченным временем жизни записей.
+ * Позволяет не читать пользователя и его роли из базы данных при каждом входе.
+ * Записи удаляются явно при регистрации пользователя и изменении его ролей или пароля,
+ * а изменения в обход {@link UserService} становятся видны по истечении времени жизни.
+ */
+@Service
+public class PrincipalCache {
+    private final boolean enabled;
+
+    private final long ttlNanos;
+
+    private final int maxSize;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Конструктор кеша.
+     *
+     * @param authProperties настройки аутентификации (не может быть null)
+     * @throws IllegalArgumentException если настройки равны null или некорректны
+     */
+    public PrincipalCache(AuthProperties authProperties) {
+        if (authProperties == null) {
+            throw new IllegalArgumentException("AuthProperties не может быть null");
+        }
+
+        AuthProperties.PrincipalCache cache = authProperties.getPrincipalCache();
+
+        if (cache.getTtl() == null || cache.getTtl().isNegative() || cache.getMaxSize() < 0) {
+            throw new IllegalArgumentException("Некорректные настройки кеша пользователей");
+        }
+
+        this.enabled = cache.isEnabled() && !cache.getTtl().isZero() && cache.getMaxSize() > 0;
+        this.ttlNanos = cache.getTtl().toNanos();
+        this.maxSize = cache.getMaxSize();
+    }
+
+    /**
+     * Возвращает пользователя из кеша, если запись не устарела.
+     *
+     * @param username имя пользователя
+     * @return {@link Optional} с пользователем или пустой при промахе
+     */
+    public Optional<UserPrincipal> get(String username) {
+        if (!enabled || username == null) {
+            return Optional.empty();
+        }
+
+        Entry entry = entries.get(username);
+
+        if (entry == null || entry.isExpired(System.nanoTime())) {
+            if (entry != null && entries.remove(username, entry)) {
+                evictions.incrementAndGet();
+            }
+
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        hits.incrementAndGet();
+        return Optional.of(entry.principal());
+    }
+
+    /**
+     * Помещает пользователя в кеш. Если кеш заполнен, сначала удаляются устаревшие записи,
+     * а если их нет - произвольная запись.
+     *
+     * @param principal пользователь (не может быть null)
+     */
+    public void put(UserPrincipal principal) {
+        if (!enabled || principal == null) {
+            return;
+        }
+
+        if (entries.size() >= maxSize) {
+            evictExpired();
+        }
+
+        if (entries.size() >= maxSize) {
+            entries.keySet().stream().findAny().ifPresent(username -> {
+                if (entries.remove(username) != null) {
+                    evictions.incrementAndGet();
+                }
+            });
+        }
+
+        entries.put(principal.getUsername(), new Entry(principal, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Удаляет пользователя из кеша.
+     *
+     * @param username имя пользователя
+     */
+    public void evict(String username) {
+        if (username != null && entries.remove(username) != null) {
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Возвращает статистику кеша.
+     *
+     * @return снимок счетчиков и заполненности кеша
+     */
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), entries.size());
+    }
+
+    /**
+     * Удаляет устаревшие записи.
+     */
+    private void evictExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(entry -> {
+            boolean expired = entry.getValue().isExpired(now);
+
+            if (expired) {
+                evictions.incrementAndGet();
+            }
+
+            return expired;
+        });
+    }
+
+    /**
+     * Запись кеша.
+     *
+     * @param principal пользователь
+     * @param expiresAt момент устаревания в единицах {@link System#nanoTime()}
+     */
+    private record Entry(UserPrincipal principal, long expiresAt) {
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * Снимок статистики кеша.
+     *
+     * @param hits      количество попаданий
+     * @param misses    количество промахов
+     * @param evictions количество удаленных записей
+     * @param entries   количество записей в кеше
+     */
+    public record Stats(long hits, long misses, long evictions, long entries) {
+
+        /**
+         * Вычисляет долю попаданий.
+         *
+         * @return доля попаданий от 0 до 1 (0, если обращений не было)
+         */
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
\ No newline at end of file
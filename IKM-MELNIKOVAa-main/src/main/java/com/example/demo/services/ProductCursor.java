@@ -0,0 +1,71 @@
+package com.example.demo.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Курсор постраничной навигации по каталогу.
+ * Указывает на последний показанный продукт: следующая страница начинается
+ * с продуктов, созданных раньше него (сортировка по дате создания и id по убыванию).
+ * Для клиента курсор непрозрачен и передается как строка base64url.
+ *
+ * @param dateOfCreated дата создания последнего продукта страницы
+ * @param id            идентификатор последнего продукта страницы
+ */
+public record ProductCursor(LocalDateTime dateOfCreated, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Создает курсор, проверяя его поля.
+     *
+     * @throws IllegalArgumentException если дата или id равны null
+     */
+    public ProductCursor {
+        if (dateOfCreated == null || id == null) {
+            throw new IllegalArgumentException("Курсор должен содержать дату создания и id продукта");
+        }
+    }
+
+    /**
+     * Кодирует курсор в непрозрачную строку для передачи клиенту.
+     *
+     * @return строка курсора в формате base64url
+     */
+    public String encode() {
+        String raw = dateOfCreated + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстанавливает курсор из строки, полученной от клиента.
+     *
+     * @param value строка курсора (не может быть пустой)
+     * @return курсор
+     * @throws IllegalArgumentException если строка не является корректным курсором
+     */
+    public static ProductCursor decode(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Курсор не может быть пустым");
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Некорректный курсор страницы");
+            }
+
+            return new ProductCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        }
+
+        catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор страницы", e);
+        }
+    }
+}
\ No newline at end of file
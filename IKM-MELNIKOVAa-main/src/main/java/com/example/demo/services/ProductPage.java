@@ -0,0 +1,22 @@
+package com.example.demo.services;
+
+import java.util.List;
+
+/**
+ * Страница каталога, полученная постраничной (keyset) выборкой.
+ *
+ * @param items      элементы текущей страницы
+ * @param nextCursor курсор следующей страницы или null, если страница последняя
+ * @param <T>        тип элементов страницы
+ */
+public record ProductPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Проверяет, есть ли страница после текущей.
+     *
+     * @return true если следующая страница существует
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
\ No newline at end of file
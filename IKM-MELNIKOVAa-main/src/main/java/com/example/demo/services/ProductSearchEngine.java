@@ -0,0 +1,38 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ProductSearchDocument;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Поисковый движок каталога.
+ * Ищет продукты по названию, автору, жанру и описанию и возвращает
+ * идентификаторы найденных продуктов в порядке убывания релевантности.
+ * Реализации обновляют индекс инкрементально при сохранении и удалении продуктов.
+ */
+public interface ProductSearchEngine {
+
+    /**
+     * Выполняет поиск продуктов.
+     *
+     * @param query    поисковый запрос (не может быть пустым)
+     * @param pageable номер и размер страницы результатов
+     * @return идентификаторы найденных продуктов, упорядоченные по релевантности
+     * @throws IllegalArgumentException если запрос пуст
+     */
+    Slice<Long> search(String query, Pageable pageable);
+
+    /**
+     * Добавляет продукт в индекс или обновляет его.
+     *
+     * @param document документ индекса (не может быть null)
+     */
+    void index(ProductSearchDocument document);
+
+    /**
+     * Удаляет продукт из индекса.
+     *
+     * @param productId идентификатор продукта
+     */
+    void remove(Long productId);
+}
\ No newline at end of file
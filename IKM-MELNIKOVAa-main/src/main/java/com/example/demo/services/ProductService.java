@@ -1,95 +1,196 @@
 package com.example.demo.services;
 
+import com.example.demo.configurations.CacheConfig;
+import com.example.demo.configurations.CatalogProperties;
 import com.example.demo.models.Image;
 import com.example.demo.models.Product;
+import com.example.demo.models.ProductSearchDocument;
+import com.example.demo.models.ProductSummary;
 import com.example.demo.repositories.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с продуктами.
  * Обеспечивает бизнес-логику для операций с продуктами и их изображениями.
+ * Время выполнения публичных методов публикуется в метрике {@code softa.products}
+ * с тегами {@code method} и {@code exception}.
+ * Страницы каталога и результаты поиска кешируются в {@link CacheConfig#CATALOG_PAGES}
+ * с ключом, включающим {@link CatalogVersion}. Методы, изменяющие каталог, после успешной записи
+ * увеличивают версию (новые запросы не видят старых страниц) и очищают кеш.
  */
 @Service
+@Timed(value = "softa.products", histogram = true)
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService {
     private final ProductRepository productRepository;
 
+    private final CatalogProperties catalogProperties;
+
+    private final ProductSearchEngine productSearchEngine;
+
+    private final ImageService imageService;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CatalogVersion catalogVersion;
+
+    /**
+     * Приводит поисковый запрос к виду, по которому кешируются страницы каталога: без пробелов
+     * по краям и в нижнем регистре. Поиск не зависит от регистра, поэтому запросы, отличающиеся
+     * только регистром, получают одну и ту же страницу.
+     *
+     * @param title поисковый запрос (может быть null)
+     * @return нормализованный запрос (пустая строка для null)
+     */
+    public static String normalizeTitle(String title) {
+        return title == null ? "" : title.trim().toLowerCase(Locale.ROOT);
+    }
+
     /**
-     * Возвращает список продуктов, отфильтрованный по названию (если указано).
+     * Возвращает страницу продуктов, отфильтрованную по поисковому запросу (если указан).
+     * Без запроса страницы выбираются по курсору (keyset), поэтому стоимость запроса
+     * не зависит от размера каталога и номера страницы. С запросом продукты ищутся
+     * поисковым движком и упорядочиваются по релевантности.
+     * Возвращаются проекции, а не сущности: странице каталога не нужны описание, владелец и изображения.
      *
-     * @param title часть названия для поиска (может быть null)
-     * @return список продуктов, удовлетворяющих критериям поиска
+     * @param title  поисковый запрос по названию, автору, жанру и описанию (может быть null)
+     * @param cursor курсор, полученный с предыдущей страницей (null для первой страницы)
+     * @return страница продуктов, удовлетворяющих критериям поиска
+     * @throws IllegalArgumentException если курсор некорректен
      */
-    public List<Product> listProducts(String title) {
+    @Cacheable(cacheNames = CacheConfig.CATALOG_PAGES,
+            key = "@catalogVersion.current() + '|' "
+                    + "+ T(com.example.demo.services.ProductService).normalizeTitle(#title) + '|' "
+                    + "+ (#cursor == null ? '' : #cursor.trim())")
+    public ProductPage<ProductSummary> listProducts(String title, String cursor) {
+        boolean hasCursor = cursor != null && !cursor.trim().isEmpty();
+
         if (title != null && !title.trim().isEmpty()) {
-            return productRepository.findByTitle(title);
+            return searchProducts(title, hasCursor ? SearchCursor.decode(cursor) : new SearchCursor(0));
+        }
+
+        int pageSize = catalogProperties.getPageSize();
+        // Запрашиваем на один элемент больше, чтобы узнать, есть ли следующая страница
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        ProductCursor after = hasCursor ? ProductCursor.decode(cursor) : null;
+
+        List<ProductSummary> products = after == null
+                ? productRepository.findFirstPage(limit)
+                : productRepository.findPageAfter(after.dateOfCreated(), after.id(), limit);
+
+        if (products.size() <= pageSize) {
+            return new ProductPage<>(products, null);
         }
 
-        return productRepository.findAll();
+        List<ProductSummary> items = products.subList(0, pageSize);
+        ProductSummary last = items.get(pageSize - 1);
+        return new ProductPage<>(items, new ProductCursor(last.getDateOfCreated(), last.getId()).encode());
     }
 
     /**
-     * Сохраняет продукт с прикрепленным изображением.
+     * Передает обработчику все продукты каталога (новые сначала), читая их курсором базы данных.
+     * Транзакция открыта на время работы обработчика, поэтому он может выводить продукты
+     * по мере чтения, не накапливая их в памяти. Продукты - проекции, а не сущности,
+     * и не накапливаются в контексте сохранения.
      *
-     * @param product продукт для сохранения (не может быть null)
-     * @param file1 файл изображения (может быть null)
-     * @throws IOException если произошла ошибка при чтении файла
-     * @throws IllegalArgumentException если продукт невалиден
+     * @param consumer обработчик продуктов (не может быть null)
+     * @throws IOException если обработчик не смог записать продукты
+     * @throws IllegalArgumentException если обработчик равен null
      */
-    public void saveProduct(Product product, MultipartFile file1) throws IOException {
-        validateProduct(product);
+    @Transactional(readOnly = true)
+    public void streamProducts(ProductStreamConsumer consumer) throws IOException {
+        if (consumer == null) {
+            throw new IllegalArgumentException("Обработчик продуктов не может быть null");
+        }
 
-        if (file1 != null && !file1.isEmpty()) {
-            validateImageFile(file1);
-            Image image1 = toImageEntity(file1);
-            image1.setPreviewImage(true);
-            product.addImageToProduct(image1);
+        try (Stream<ProductSummary> products = productRepository.streamAll()) {
+            consumer.accept(products.iterator());
         }
+    }
 
-        log.info("Сохраняем новый продукт. Название: {}; Автор: {}", product.getTitle(), product.getAuthor());
+    /**
+     * Возвращает страницу результатов поиска в порядке релевантности.
+     *
+     * @param query  поисковый запрос (не может быть пустым)
+     * @param cursor курсор страницы результатов
+     * @return страница найденных продуктов
+     */
+    private ProductPage<ProductSummary> searchProducts(String query, SearchCursor cursor) {
+        Slice<Long> hits = productSearchEngine.search(query,
+                PageRequest.of(cursor.page(), catalogProperties.getPageSize()));
 
-        Product savedProduct = productRepository.save(product);
-        setPreviewImageId(savedProduct);
+        if (hits.isEmpty()) {
+            return new ProductPage<>(List.of(), null);
+        }
+
+        Map<Long, ProductSummary> found = productRepository.findSummariesByIdIn(hits.getContent()).stream()
+                .collect(Collectors.toMap(ProductSummary::getId, Function.identity()));
+
+        List<ProductSummary> items = hits.getContent().stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new ProductPage<>(items, hits.hasNext() ? new SearchCursor(cursor.page() + 1).encode() : null);
     }
 
     /**
-     * Устанавливает ID превью-изображения для продукта.
+     * Сохраняет продукт с прикрепленным изображением.
+     * Вызывается при фоновой обработке загрузки, см. {@link UploadIngestionService}.
+     * Идентификатор превью записывается в той же вставке, что и продукт,
+     * поэтому продукт не сохраняется повторно.
      *
-     * @param product продукт для обновления
+     * @param product продукт для сохранения (не может быть null)
+     * @param upload  загруженный файл изображения (может быть null)
+     * @return сохраненный продукт
+     * @throws IOException если произошла ошибка при чтении файла
+     * @throws IllegalArgumentException если продукт невалиден
      * @throws ProductImageException если у продукта нет изображений
      */
-    private void setPreviewImageId(Product product) {
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_PAGES, allEntries = true)
+    public Product saveProduct(Product product, StagedUpload upload) throws IOException {
+        validateProduct(product);
+
+        if (upload != null) {
+            validateImageFile(upload);
+            Image image1 = imageService.createImage(upload);
+            image1.setPreviewImage(true);
+            product.addImageToProduct(image1);
+        }
+
         if (product.getImages() == null || product.getImages().isEmpty()) {
             log.warn("У продукта нет изображения. Название: {}", product.getTitle());
             throw new ProductImageException("Продукт должен иметь хотя бы одно изображение");
         }
 
-        product.setPreviewImageId(product.getImages().get(0).getId());
-        productRepository.save(product);
-    }
+        log.info("Сохраняем новый продукт. Название: {}; Автор: {}", product.getTitle(), product.getAuthor());
 
-    /**
-     * Преобразует файл в сущность Image.
-     *
-     * @param file файл изображения (не может быть null)
-     * @return сущность Image
-     * @throws IOException если произошла ошибка при чтении файла
-     */
-    private Image toImageEntity(MultipartFile file) throws IOException {
-        Image image = new Image();
-        image.setName(file.getName());
-        image.setOriginalFilename(file.getOriginalFilename());
-        image.setContentType(file.getContentType());
-        image.setSize(file.getSize());
-        image.setBytes(file.getBytes());
-        return image;
+        Product savedProduct = productRepository.saveNew(product);
+        productSearchEngine.index(ProductSearchDocument.of(savedProduct));
+        catalogVersion.increment();
+        return savedProduct;
     }
 
     /**
@@ -98,24 +199,56 @@ public class ProductService {
      * @param id ID продукта для удаления (не может быть null)
      * @throws ProductNotFoundException если продукт не найден
      */
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_PAGES, allEntries = true)
     public void deleteProduct(Long id) {
         if (!productRepository.existsById(id)) {
             throw new ProductNotFoundException("Продукт со следующим id не найден: " + id);
         }
 
+        List<String> contentHashes = imageService.getContentHashes(id);
         productRepository.deleteById(id);
+        productSearchEngine.remove(id);
+        catalogVersion.increment();
+        imageService.releaseContent(contentHashes);
     }
 
     /**
      * Находит продукт по ID.
      *
      * @param id ID продукта (не может быть null)
-     * @return найденный продукт
-     * @throws ProductNotFoundException если продукт не найден
+     * @return {@link Optional} с найденным продуктом или пустой, если продукт не найден
+     */
+    public Optional<Product> getProductById(Long id) {
+        return productRepository.findById(id);
+    }
+
+    /**
+     * Находит продукт по ID вместе с его изображениями.
+     * Если продукт есть в кеше второго уровня, он и его изображения берутся из кеша
+     * без обращения к базе данных; иначе загружаются одним запросом, который заполняет кеш.
+     *
+     * @param id ID продукта (не может быть null)
+     * @return {@link Optional} с найденным продуктом или пустой, если продукт не найден
+     */
+    @Transactional(readOnly = true)
+    public Optional<Product> getProductWithImages(Long id) {
+        if (!entityManagerFactory.getCache().contains(Product.class, id)) {
+            return productRepository.findWithImagesById(id);
+        }
+
+        Optional<Product> product = productRepository.findById(id);
+        product.ifPresent(found -> Hibernate.initialize(found.getImages()));
+        return product;
+    }
+
+    /**
+     * Проверяет существование продукта по ID.
+     *
+     * @param id ID продукта (не может быть null)
+     * @return true если продукт существует
      */
-    public Product getProductById(Long id) {
-        return productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException("Продукт со следующим id не найден: " + id));
+    public boolean productExists(Long id) {
+        return productRepository.existsById(id);
     }
 
     /**
@@ -124,9 +257,21 @@ public class ProductService {
      * @param product продукт для сохранения (не может быть null)
      * @throws IllegalArgumentException если продукт невалиден
      */
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_PAGES, allEntries = true)
     public void saveProductWithoutImages(Product product) {
         validateProduct(product);
-        productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        productSearchEngine.index(ProductSearchDocument.of(savedProduct));
+        catalogVersion.increment();
+    }
+
+    /**
+     * Увеличивает версию каталога и очищает кеш страниц после изменения продуктов в обход
+     * методов этого сервиса (например, при массовом импорте).
+     */
+    @CacheEvict(cacheNames = CacheConfig.CATALOG_PAGES, allEntries = true)
+    public void evictCatalogPages() {
+        catalogVersion.increment();
     }
 
     /**
@@ -135,7 +280,7 @@ public class ProductService {
      * @param product продукт для проверки
      * @throws IllegalArgumentException если продукт невалиден
      */
-    private void validateProduct(Product product) {
+    void validateProduct(Product product) {
         if (product == null) {
             throw new IllegalArgumentException("Продукт не может быть пустым значением");
         }
@@ -152,15 +297,29 @@ public class ProductService {
     /**
      * Проверяет валидность файла изображения.
      *
-     * @param file файл для проверки
+     * @param upload файл для проверки
      * @throws IllegalArgumentException если файл невалиден
      */
-    private void validateImageFile(MultipartFile file) {
-        if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+    private void validateImageFile(StagedUpload upload) {
+        if (upload.contentType() == null || !upload.contentType().startsWith("image/")) {
             throw new IllegalArgumentException("Разрешены только изображения");
         }
     }
 
+    /**
+     * Обработчик продуктов, читаемых из базы данных по мере вывода.
+     */
+    @FunctionalInterface
+    public interface ProductStreamConsumer {
+        /**
+         * Обрабатывает продукты.
+         *
+         * @param products итератор продуктов, действительный только во время вызова
+         * @throws IOException если продукты не удалось записать
+         */
+        void accept(Iterator<ProductSummary> products) throws IOException;
+    }
+
     /**
      * Исключение, выбрасываемое при ошибках работы с изображениями продукта.
      */
@@ -0,0 +1,164 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.RateLimitProperties;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограничение частоты запросов по алгоритму GCRA (эквивалент корзины токенов).
+ * Для каждого клиента хранится одно число - теоретическое время прибытия следующего запроса,
+ * которое обновляется без блокировок через compare-and-set. Клиенты, чей запас полностью
+ * восстановился, неотличимы от новых, поэтому их записи удаляются при переполнении,
+ * и количество записей не превышает заданного в настройках. Записи клиентов, чей запас
+ * еще расходуется, не удаляются никогда (иначе удаление сбрасывало бы их лимит): если места
+ * для нового клиента нет, его запросы отклоняются, пока какая-нибудь запись не освободится.
+ */
+@Service
+public class RateLimiter {
+    private final int maxKeys;
+
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Момент в единицах {@link System#nanoTime()}, раньше которого ни одна запись не освободится.
+     * Изменяется под {@link #evictionLock}.
+     */
+    private volatile long nextIdleAt = System.nanoTime();
+
+    /**
+     * Конструктор ограничителя.
+     *
+     * @param rateLimitProperties настройки ограничения частоты (не может быть null)
+     * @throws IllegalArgumentException если настройки равны null или некорректны
+     */
+    public RateLimiter(RateLimitProperties rateLimitProperties) {
+        if (rateLimitProperties == null) {
+            throw new IllegalArgumentException("RateLimitProperties не может быть null");
+        }
+
+        if (rateLimitProperties.getMaxKeys() <= 0) {
+            throw new IllegalArgumentException("Максимальное количество клиентов должно быть положительным");
+        }
+
+        this.maxKeys = rateLimitProperties.getMaxKeys();
+    }
+
+    /**
+     * Пытается учесть запрос клиента.
+     *
+     * @param key    ключ клиента, включающий имя правила (не может быть null)
+     * @param policy правило ограничения (не может быть null)
+     * @return {@link Duration#ZERO}, если запрос разрешен, иначе время до следующего разрешенного запроса
+     * @throws IllegalArgumentException если параметры равны null или правило некорректно
+     */
+    public Duration acquire(String key, RateLimitProperties.Policy policy) {
+        if (key == null || policy == null) {
+            throw new IllegalArgumentException("Ключ и правило не могут быть null");
+        }
+
+        if (policy.getCapacity() <= 0 || policy.getPeriod() == null || policy.getPeriod().isNegative()
+                || policy.getPeriod().isZero()) {
+            throw new IllegalArgumentException("Некорректное правило ограничения частоты");
+        }
+
+        long interval = policy.getPeriod().toNanos() / policy.getCapacity();
+        long tolerance = policy.getPeriod().toNanos() - interval;
+        long now = System.nanoTime();
+
+        AtomicLong bucket = buckets.get(key);
+
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys && !evictIdle(now)) {
+                rejected.incrementAndGet();
+                return Duration.ofNanos(Math.max(1, nextIdleAt - now));
+            }
+
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long arrival = bucket.get();
+            long base = arrival - now > 0 ? arrival : now;
+            long wait = base - tolerance - now;
+
+            if (wait > 0) {
+                rejected.incrementAndGet();
+                return Duration.ofNanos(wait);
+            }
+
+            if (bucket.compareAndSet(arrival, base + interval)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    /**
+     * Возвращает количество отклоненных запросов с момента запуска.
+     *
+     * @return количество отклоненных запросов
+     */
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Возвращает количество отслеживаемых клиентов.
+     *
+     * @return количество записей
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Удаляет записи клиентов, чей запас полностью восстановился, и запоминает, когда освободится
+     * ближайшая из оставшихся. До этого момента записи не перебираются повторно.
+     *
+     * @param now текущее время в единицах {@link System#nanoTime()}
+     * @return true если для нового клиента есть место
+     */
+    private boolean evictIdle(long now) {
+        evictionLock.lock();
+
+        try {
+            if (buckets.size() < maxKeys) {
+                return true;
+            }
+
+            if (nextIdleAt - now > 0) {
+                return false;
+            }
+
+            long earliest = Long.MAX_VALUE;
+            Iterator<AtomicLong> iterator = buckets.values().iterator();
+
+            while (iterator.hasNext()) {
+                long remaining = iterator.next().get() - now;
+
+                if (remaining <= 0) {
+                    iterator.remove();
+                }
+
+                else {
+                    earliest = Math.min(earliest, remaining);
+                }
+            }
+
+            nextIdleAt = earliest == Long.MAX_VALUE ? now : now + earliest;
+            return buckets.size() < maxKeys;
+        }
+
+        finally {
+            evictionLock.unlock();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.example.demo.services;
+
+/**
+ * Событие: каталог изменен другим экземпляром приложения.
+ * Публикуется {@link CatalogVersion}, когда версия в базе данных опережает локальную,
+ * чтобы данные, которые экземпляр держит в памяти, были перестроены по базе данных.
+ *
+ * @param version версия каталога в базе данных
+ */
+public record RemoteCatalogChange(long version) {
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.CacheConfig;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.ui.freemarker.FreeMarkerTemplateUtils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Кеш HTML-страниц, отрисованных FreeMarker.
+ * Страница хранится в виде двух массивов байтов UTF-8 - до и после метки {@link #USER_SLOT}.
+ * На место метки при каждом ответе подставляется фрагмент текущего пользователя (кнопка выхода,
+ * CSRF-токен), поэтому одна отрисовка обслуживает всех пользователей, а популярные страницы
+ * отдаются из памяти без вычисления шаблона и без обращения к базе данных.
+ * Ключ страницы должен включать {@link CatalogVersion}: при изменении каталога страница
+ * отрисовывается заново под новым ключом, а старые записи вытесняются из кеша.
+ */
+@Service
+public class RenderedPageCache {
+    /**
+     * Метка в шаблоне, на место которой подставляется фрагмент пользователя.
+     */
+    public static final String USER_SLOT = "<!--user-->";
+
+    /**
+     * Число байтов SHA-256, входящих в ETag.
+     */
+    private static final int ETAG_DIGEST_BYTES = 16;
+
+    private final Configuration freemarker;
+
+    private final Cache cache;
+
+    /**
+     * Конструктор кеша.
+     *
+     * @param freemarker   конфигурация FreeMarker (не может быть null)
+     * @param cacheManager менеджер кешей (не может быть null)
+     * @throws IllegalArgumentException если параметры равны null или кеш не настроен
+     */
+    public RenderedPageCache(Configuration freemarker, CacheManager cacheManager) {
+        if (freemarker == null) {
+            throw new IllegalArgumentException("Configuration не может быть null");
+        }
+
+        if (cacheManager == null || cacheManager.getCache(CacheConfig.RENDERED_PAGES) == null) {
+            throw new IllegalArgumentException("Кеш " + CacheConfig.RENDERED_PAGES + " не настроен");
+        }
+
+        this.freemarker = freemarker;
+        this.cache = cacheManager.getCache(CacheConfig.RENDERED_PAGES);
+    }
+
+    /**
+     * Возвращает страницу из кеша или отрисовывает ее.
+     * Модель запрашивается только при промахе; исключения при ее построении передаются вызывающему.
+     *
+     * @param key      ключ страницы (включает версию каталога)
+     * @param template имя шаблона
+     * @param model    построение модели шаблона
+     * @return отрисованная страница
+     * @throws PageRenderingException если шаблон не удалось отрисовать
+     */
+    public RenderedPage get(String key, String template, Supplier<Map<String, Object>> model) {
+        RenderedPage cached = cache.get(key, RenderedPage.class);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        String html;
+        try {
+            html = FreeMarkerTemplateUtils.processTemplateIntoString(freemarker.getTemplate(template), model.get());
+        }
+
+        catch (IOException | TemplateException e) {
+            throw new PageRenderingException("Не удалось отрисовать шаблон " + template, e);
+        }
+
+        int slot = html.indexOf(USER_SLOT);
+        RenderedPage page = slot < 0
+                ? new RenderedPage(html.getBytes(StandardCharsets.UTF_8), new byte[0])
+                : new RenderedPage(html.substring(0, slot).getBytes(StandardCharsets.UTF_8),
+                        html.substring(slot + USER_SLOT.length()).getBytes(StandardCharsets.UTF_8));
+
+        cache.put(key, page);
+        return page;
+    }
+
+    /**
+     * Вычисляет ETag страницы без ее отрисовки: версия каталога и первые {@value #ETAG_DIGEST_BYTES}
+     * байтов SHA-256 от ключа страницы и фрагмента пользователя. Меняется при изменении каталога
+     * и при смене CSRF-токена, а разные страницы одной версии не совпадают даже случайно.
+     * ETag слабый: Tomcat не сжимает ответы с сильным ETag, а сжатая страница
+     * отличается от несжатой только кодированием.
+     *
+     * @param catalogVersion версия каталога, входящая в ключ страницы
+     * @param key            ключ страницы
+     * @param userSlot       фрагмент пользователя
+     * @return слабый ETag
+     */
+    public String eTag(long catalogVersion, String key, String userSlot) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(userSlot.getBytes(StandardCharsets.UTF_8));
+
+        return "W/\"" + Long.toHexString(catalogVersion) + "-"
+                + HexFormat.of().formatHex(digest.digest(), 0, ETAG_DIGEST_BYTES) + "\"";
+    }
+
+    /**
+     * Отрисованная страница, разделенная меткой фрагмента пользователя.
+     *
+     * @param head содержимое до метки
+     * @param tail содержимое после метки
+     */
+    public record RenderedPage(byte[] head, byte[] tail) {
+
+        /**
+         * Собирает страницу с фрагментом пользователя.
+         *
+         * @param userSlot фрагмент пользователя (HTML)
+         * @return содержимое страницы в UTF-8
+         */
+        public byte[] with(String userSlot) {
+            byte[] user = userSlot.getBytes(StandardCharsets.UTF_8);
+            byte[] body = new byte[head.length + user.length + tail.length];
+            System.arraycopy(head, 0, body, 0, head.length);
+            System.arraycopy(user, 0, body, head.length, user.length);
+            System.arraycopy(tail, 0, body, head.length + user.length, tail.length);
+            return body;
+        }
+    }
+
+    /**
+     * Исключение, выбрасываемое при ошибке отрисовки шаблона.
+     */
+    public static class PageRenderingException extends RuntimeException {
+        public PageRenderingException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.demo.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор постраничной навигации по результатам поиска.
+ * Результаты поиска упорядочены по релевантности, поэтому курсор хранит номер страницы.
+ * Для клиента курсор непрозрачен и передается как строка base64url.
+ *
+ * @param page номер следующей страницы результатов (начиная с 0)
+ */
+public record SearchCursor(int page) {
+
+    private static final String PREFIX = "search:";
+
+    /**
+     * Создает курсор, проверяя номер страницы.
+     *
+     * @throws IllegalArgumentException если номер страницы отрицателен
+     */
+    public SearchCursor {
+        if (page < 0) {
+            throw new IllegalArgumentException("Номер страницы не может быть отрицательным");
+        }
+    }
+
+    /**
+     * Кодирует курсор в непрозрачную строку для передачи клиенту.
+     *
+     * @return строка курсора в формате base64url
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + page).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Восстанавливает курсор из строки, полученной от клиента.
+     *
+     * @param value строка курсора (не может быть пустой)
+     * @return курсор
+     * @throws IllegalArgumentException если строка не является корректным курсором
+     */
+    public static SearchCursor decode(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Курсор не может быть пустым");
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Некорректный курсор поиска");
+            }
+
+            return new SearchCursor(Integer.parseInt(raw.substring(PREFIX.length())));
+        }
+
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор поиска", e);
+        }
+    }
+}
\ No newline at end of file
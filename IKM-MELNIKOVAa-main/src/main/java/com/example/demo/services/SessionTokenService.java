@@ -0,0 +1,369 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.AuthProperties;
+import com.example.demo.models.UserPrincipal;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Выпуск и проверка подписанных токенов сессии для режима без серверных сессий.
+ * Токен имеет вид {@code <id ключа>.<данные>.<подпись>}: данные - JSON с идентификатором токена,
+ * пользователем, его правами и сроком действия в Base64url, подпись - HMAC-SHA256 ключом из настроек.
+ * Проверка не обращается ни к базе данных, ни к хранилищу сессий; подпись сравнивается
+ * за постоянное время.
+ * <p>
+ * Отзыв токенов (выход из системы, изменение ролей, вывод ключа из обращения) хранится в небольшом
+ * списке в памяти: записи живут не дольше самих токенов. Список не разделяется между экземплярами
+ * приложения, поэтому на других экземплярах отозванный токен действует до истечения срока;
+ * для немедленного отзыва везде ключ удаляется из настроек.
+ */
+@Service
+@Slf4j
+public class SessionTokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_KEY_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final boolean enabled;
+
+    private final String cookieName;
+
+    private final Duration ttl;
+
+    private final boolean secureCookie;
+
+    private final Map<String, SecretKeySpec> keys;
+
+    private final String activeKey;
+
+    private final ConcurrentMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Long> revokedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор сервиса.
+     * Если режим включен, но ключи не заданы, создается случайный ключ: токены тогда
+     * действуют только на этом экземпляре и до его перезапуска.
+     *
+     * @param authProperties настройки аутентификации (не может быть null)
+     * @throws IllegalArgumentException если настройки равны null или ключи некорректны
+     */
+    public SessionTokenService(AuthProperties authProperties) {
+        if (authProperties == null) {
+            throw new IllegalArgumentException("AuthProperties не может быть null");
+        }
+
+        AuthProperties.SessionToken settings = authProperties.getSessionToken();
+
+        if (settings.getTtl() == null || settings.getTtl().isNegative() || settings.getTtl().isZero()) {
+            throw new IllegalArgumentException("Время жизни токена должно быть положительным");
+        }
+
+        this.enabled = settings.isEnabled();
+        this.cookieName = settings.getCookieName();
+        this.ttl = settings.getTtl();
+        this.secureCookie = settings.isSecureCookie();
+
+        Map<String, SecretKeySpec> configured = new HashMap<>();
+        settings.getKeys().forEach((id, secret) -> configured.put(id, toKey(id, secret)));
+
+        if (configured.isEmpty() && enabled) {
+            log.warn("Ключи подписи токенов не заданы: используется случайный ключ, "
+                    + "токены не будут приниматься другими экземплярами приложения и после перезапуска");
+            byte[] secret = new byte[MIN_KEY_BYTES];
+            new SecureRandom().nextBytes(secret);
+            configured.put("local", new SecretKeySpec(secret, ALGORITHM));
+        }
+
+        String active = settings.getActiveKey() != null ? settings.getActiveKey()
+                : configured.size() == 1 ? configured.keySet().iterator().next() : null;
+
+        if (enabled && (active == null || !configured.containsKey(active))) {
+            throw new IllegalArgumentException("Активный ключ подписи токенов не задан или отсутствует среди ключей");
+        }
+
+        this.keys = Map.copyOf(configured);
+        this.activeKey = active;
+    }
+
+    /**
+     * Проверяет, включен ли режим без серверных сессий.
+     *
+     * @return true если режим включен
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Возвращает имя cookie с токеном.
+     *
+     * @return имя cookie
+     */
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    /**
+     * Выпускает токен для аутентифицированного пользователя.
+     *
+     * @param principal пользователь (не может быть null)
+     * @return токен
+     * @throws IllegalArgumentException если пользователь равен null
+     */
+    public String issue(UserPrincipal principal) {
+        if (principal == null) {
+            throw new IllegalArgumentException("Пользователь не может быть null");
+        }
+
+        long now = Instant.now().getEpochSecond();
+        Claims claims = new Claims(UUID.randomUUID().toString(), principal.getId(), principal.getUsername(),
+                principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).sorted().toList(),
+                now, now + ttl.toSeconds());
+
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            String signed = activeKey + "." + payload;
+            return signed + "." + ENCODER.encodeToString(sign(keys.get(activeKey), signed));
+        }
+
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать токен", e);
+        }
+    }
+
+    /**
+     * Проверяет токен: формат, подпись, срок действия и отсутствие в списке отозванных.
+     *
+     * @param token токен из cookie (может быть null)
+     * @return {@link Optional} с данными токена или пустой, если токен недействителен
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (!enabled || token == null) {
+            return Optional.empty();
+        }
+
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+
+        if (first <= 0 || last <= first) {
+            return Optional.empty();
+        }
+
+        String keyId = token.substring(0, first);
+        SecretKeySpec key = keys.get(keyId);
+
+        if (key == null || revokedKeys.containsKey(keyId)) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] expected = sign(key, token.substring(0, last));
+            byte[] actual = DECODER.decode(token.substring(last + 1));
+
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return Optional.empty();
+            }
+
+            Claims claims = objectMapper.readValue(DECODER.decode(token.substring(first + 1, last)), Claims.class);
+            long now = Instant.now().getEpochSecond();
+
+            if (claims.exp() <= now || revokedTokens.containsKey(claims.jti())) {
+                return Optional.empty();
+            }
+
+            Long revokedAt = revokedUsers.get(claims.sub());
+
+            if (revokedAt != null && claims.iat() <= revokedAt) {
+                return Optional.empty();
+            }
+
+            List<SimpleGrantedAuthority> authorities = claims.auth().stream().map(SimpleGrantedAuthority::new).toList();
+            UserPrincipal principal = new UserPrincipal(claims.uid(), claims.sub(), "", authorities);
+            boolean renew = claims.exp() - now < ttl.toSeconds() / 2 || !keyId.equals(activeKey);
+            return Optional.of(new VerifiedToken(principal, claims.jti(), claims.exp(), renew));
+        }
+
+        catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Отзывает токен (например, при выходе из системы).
+     *
+     * @param token токен из cookie (может быть null)
+     */
+    public void revoke(String token) {
+        verify(token).ifPresent(verified -> {
+            purgeExpired();
+            revokedTokens.put(verified.tokenId(), verified.expiresAt());
+        });
+    }
+
+    /**
+     * Отзывает все токены пользователя, выпущенные до текущего момента
+     * (например, после изменения его ролей).
+     *
+     * @param username имя пользователя
+     */
+    public void revokeUser(String username) {
+        if (username != null) {
+            purgeExpired();
+            revokedUsers.put(username, Instant.now().getEpochSecond());
+        }
+    }
+
+    /**
+     * Выводит ключ из обращения на этом экземпляре: подписанные им токены больше не принимаются.
+     *
+     * @param keyId идентификатор ключа
+     * @throws IllegalArgumentException если это активный ключ
+     */
+    public void revokeKey(String keyId) {
+        if (keyId != null && keyId.equals(activeKey)) {
+            throw new IllegalArgumentException("Нельзя отозвать активный ключ подписи");
+        }
+
+        if (keyId != null && keys.containsKey(keyId)) {
+            purgeExpired();
+            revokedKeys.put(keyId, Instant.now().getEpochSecond() + ttl.toSeconds());
+        }
+    }
+
+    /**
+     * Создает cookie с токеном.
+     *
+     * @param token токен
+     * @return cookie
+     */
+    public ResponseCookie cookie(String token) {
+        return ResponseCookie.from(cookieName, token)
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(ttl)
+                .build();
+    }
+
+    /**
+     * Создает cookie, удаляющий токен из браузера.
+     *
+     * @return cookie
+     */
+    public ResponseCookie clearCookie() {
+        return ResponseCookie.from(cookieName, "")
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(0)
+                .build();
+    }
+
+    /**
+     * Удаляет из списков отзыва записи, которые пережили все затронутые ими токены.
+     */
+    private void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + ttl.toSeconds() <= now);
+        revokedKeys.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    /**
+     * Вычисляет подпись HMAC-SHA256.
+     *
+     * @param key  ключ
+     * @param data подписываемые данные
+     * @return подпись
+     */
+    private static byte[] sign(SecretKeySpec key, String data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 недоступен", e);
+        }
+    }
+
+    /**
+     * Создает ключ подписи из строки Base64.
+     *
+     * @param id     идентификатор ключа
+     * @param secret ключ в Base64
+     * @return ключ подписи
+     * @throws IllegalArgumentException если ключ некорректен или слишком короткий
+     */
+    private static SecretKeySpec toKey(String id, String secret) {
+        if (id == null || id.isEmpty() || id.contains(".")) {
+            throw new IllegalArgumentException("Идентификатор ключа не может быть пустым или содержать точку");
+        }
+
+        byte[] bytes = Base64.getDecoder().decode(secret == null ? "" : secret.trim());
+
+        if (bytes.length < MIN_KEY_BYTES) {
+            throw new IllegalArgumentException("Ключ подписи " + id + " должен быть не короче " + MIN_KEY_BYTES + " байт");
+        }
+
+        return new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    /**
+     * Данные токена.
+     *
+     * @param jti  идентификатор токена
+     * @param uid  идентификатор пользователя
+     * @param sub  имя пользователя
+     * @param auth права доступа
+     * @param iat  время выпуска (секунды эпохи)
+     * @param exp  время истечения (секунды эпохи)
+     */
+    private record Claims(String jti, Long uid, String sub, List<String> auth, long iat, long exp) {
+    }
+
+    /**
+     * Проверенный токен.
+     *
+     * @param principal  пользователь из токена
+     * @param tokenId    идентификатор токена
+     * @param expiresAt  время истечения (секунды эпохи)
+     * @param shouldRenew нужно ли перевыпустить токен (прожита больше половины срока или ключ не активный)
+     */
+    public record VerifiedToken(UserPrincipal principal, String tokenId, long expiresAt, boolean shouldRenew) {
+    }
+}
\ No newline at end of file
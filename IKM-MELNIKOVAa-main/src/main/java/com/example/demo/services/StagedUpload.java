@@ -0,0 +1,15 @@
+package com.example.demo.services;
+
+import java.nio.file.Path;
+
+/**
+ * Загруженный файл, сохраненный во временный каталог до фоновой обработки.
+ *
+ * @param file             путь к временному файлу
+ * @param name             имя поля формы
+ * @param originalFilename исходное имя файла
+ * @param contentType      MIME-тип, заявленный клиентом
+ * @param size             размер файла в байтах
+ */
+public record StagedUpload(Path file, String name, String originalFilename, String contentType, long size) {
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ImageMetadata;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Изображение, подготовленное к выдаче клиенту.
+ * Содержимое находится либо в файле хранилища, либо в памяти (в кеше изображений
+ * или, для еще не перенесенных изображений, прочитанное из базы данных).
+ *
+ * @param metadata метаданные изображения
+ * @param file     путь к файлу с содержимым (null, если содержимое в памяти)
+ * @param content  содержимое в памяти, только для чтения (null, если содержимое в файле)
+ */
+public record StoredImage(ImageMetadata metadata, Path file, ByteBuffer content) {
+
+    /**
+     * Проверяет, находится ли содержимое в файловом хранилище.
+     *
+     * @return true если содержимое можно отдать из файла
+     */
+    public boolean isFileBacked() {
+        return file != null;
+    }
+}
\ No newline at end of file
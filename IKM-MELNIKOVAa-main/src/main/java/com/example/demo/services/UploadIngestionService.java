@@ -0,0 +1,354 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.UploadProperties;
+import com.example.demo.configurations.WorkerThreads;
+import com.example.demo.models.Image;
+import com.example.demo.models.Product;
+import com.example.demo.models.UploadState;
+import com.example.demo.repositories.UploadStateRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фоновая обработка загружаемых продуктов.
+ * В потоке запроса файл только переносится во временный каталог и ставится в ограниченную очередь;
+ * проверка изображения, вычисление хеша, сохранение в базу и создание уменьшенных копий выполняются
+ * фиксированным числом рабочих потоков. Когда очередь заполнена, загрузка сразу отклоняется,
+ * поэтому всплеск загрузок не занимает потоки, обслуживающие чтение каталога.
+ * Рабочие потоки создаются {@link WorkerThreads} и в режиме виртуальных потоков тоже виртуальные.
+ * Состояния загрузок хранятся в базе данных, поэтому состояние загрузки, принятой одним экземпляром
+ * приложения, отдает любой экземпляр и липкие сессии на балансировщике не нужны.
+ * Загрузка, которая обрабатывалась во время остановки экземпляра, остается в состоянии обработки,
+ * пока ее состояние не будет удалено как устаревшее.
+ */
+@Service
+@Slf4j
+public class UploadIngestionService {
+    private final ProductService productService;
+
+    private final UploadStateRepository uploadStateRepository;
+
+    private final ImageVariantService imageVariantService;
+
+    private final Path stagingDirectory;
+
+    private final Duration retryAfter;
+
+    private final Duration statusRetention;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Конструктор сервиса. Создает временный каталог и удаляет из него файлы,
+     * оставшиеся от загрузок, которые не были обработаны до остановки приложения.
+     *
+     * @param productService        сервис продуктов (не может быть null)
+     * @param uploadStateRepository репозиторий состояний загрузок (не может быть null)
+     * @param imageVariantService сервис уменьшенных копий изображений (не может быть null)
+     * @param uploadProperties    настройки загрузок (не может быть null)
+     * @param workerThreads       фабрика рабочих потоков (не может быть null)
+     * @throws IllegalArgumentException если любой из параметров равен null или настройки некорректны
+     * @throws UncheckedIOException     если не удалось подготовить временный каталог
+     */
+    public UploadIngestionService(ProductService productService, UploadStateRepository uploadStateRepository,
+                                  ImageVariantService imageVariantService, UploadProperties uploadProperties,
+                                  WorkerThreads workerThreads) {
+        if (productService == null || uploadStateRepository == null || imageVariantService == null
+                || uploadProperties == null || workerThreads == null) {
+            throw new IllegalArgumentException("Зависимости сервиса загрузок не могут быть null");
+        }
+
+        if (uploadProperties.getWorkers() <= 0 || uploadProperties.getQueueCapacity() <= 0) {
+            throw new IllegalArgumentException("Число потоков и размер очереди загрузок должны быть положительными");
+        }
+
+        this.productService = productService;
+        this.uploadStateRepository = uploadStateRepository;
+        this.imageVariantService = imageVariantService;
+        this.stagingDirectory = uploadProperties.getStagingDir().toAbsolutePath().normalize();
+        this.retryAfter = uploadProperties.getRetryAfter();
+        this.statusRetention = uploadProperties.getStatusRetention();
+        this.executor = new ThreadPoolExecutor(uploadProperties.getWorkers(), uploadProperties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(uploadProperties.getQueueCapacity()),
+                workerThreads.factory("upload-ingest-"), new ThreadPoolExecutor.AbortPolicy());
+
+        prepareStagingDirectory();
+    }
+
+    /**
+     * Принимает продукт с изображением в обработку.
+     *
+     * @param product продукт, заполненный из формы (не может быть null)
+     * @param file    загруженный файл изображения (может быть null)
+     * @return состояние принятой загрузки
+     * @throws IllegalArgumentException если продукт равен null
+     * @throws UploadRejectedException  если очередь обработки заполнена
+     * @throws IOException              если не удалось сохранить файл во временный каталог
+     * @throws DataAccessException      если не удалось сохранить состояние загрузки
+     */
+    public UploadStatus submit(Product product, MultipartFile file) throws IOException {
+        if (product == null) {
+            throw new IllegalArgumentException("Продукт не может быть пустым значением");
+        }
+
+        // Не тратим время на перенос файла, если задача все равно не поместится в очередь
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new UploadRejectedException("Сервер перегружен загрузками, повторите попытку позже", retryAfter);
+        }
+
+        String id = UUID.randomUUID().toString();
+        StagedUpload staged = file == null || file.isEmpty() ? null : stage(id, file);
+        UploadStatus queued = UploadStatus.queued(id);
+
+        try {
+            uploadStateRepository.save(toState(queued));
+        }
+
+        catch (DataAccessException e) {
+            discard(staged);
+            throw e;
+        }
+
+        try {
+            executor.execute(() -> ingest(queued, product, staged));
+        }
+
+        catch (RejectedExecutionException e) {
+            uploadStateRepository.deleteById(id);
+            discard(staged);
+            throw new UploadRejectedException("Сервер перегружен загрузками, повторите попытку позже", retryAfter);
+        }
+
+        return queued;
+    }
+
+    /**
+     * Возвращает состояние загрузки.
+     *
+     * @param id идентификатор загрузки
+     * @return {@link Optional} с состоянием или пустой, если загрузка неизвестна или ее состояние устарело
+     */
+    public Optional<UploadStatus> getStatus(String id) {
+        return id == null ? Optional.empty() : uploadStateRepository.findById(id).map(UploadIngestionService::toStatus);
+    }
+
+    /**
+     * Удаляет состояния загрузок, завершенных раньше {@code uploads.status-retention}.
+     */
+    @Scheduled(fixedDelayString = "${uploads.status-purge-interval:10m}")
+    public void purgeExpiredStatuses() {
+        try {
+            uploadStateRepository.deleteByStateInAndUpdatedAtBefore(
+                    List.of(UploadStatus.State.COMPLETED.name(), UploadStatus.State.FAILED.name()),
+                    Instant.now().minus(statusRetention));
+        }
+
+        catch (DataAccessException e) {
+            log.warn("Не удалось удалить устаревшие состояния загрузок", e);
+        }
+    }
+
+    /**
+     * Останавливает рабочие потоки, давая завершиться уже начатой обработке.
+     *
+     * @throws InterruptedException если ожидание было прервано
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Не все загрузки обработаны до остановки: {}", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Обрабатывает загрузку в рабочем потоке.
+     *
+     * @param queued  состояние принятой загрузки
+     * @param product продукт для сохранения
+     * @param staged  сохраненный файл изображения (может быть null)
+     */
+    private void ingest(UploadStatus queued, Product product, StagedUpload staged) {
+        String id = queued.getId();
+        update(queued.processing());
+
+        try {
+            if (staged != null) {
+                validateImage(staged);
+            }
+
+            Product saved = productService.saveProduct(product, staged);
+
+            for (Image image : saved.getImages()) {
+                imageVariantService.generateVariants(image.getId());
+            }
+
+            update(queued.completed(saved.getId()));
+        }
+
+        catch (IOException | RuntimeException e) {
+            log.warn("Не удалось обработать загрузку {}", id, e);
+            update(queued.failed(e.getMessage()));
+        }
+
+        finally {
+            discard(staged);
+        }
+    }
+
+    /**
+     * Переносит загруженный файл во временный каталог.
+     * Контейнер сервлетов обычно уже хранит файл на диске, и тогда он просто перемещается.
+     *
+     * @param id   идентификатор загрузки
+     * @param file загруженный файл
+     * @return сохраненный файл
+     * @throws IOException если не удалось сохранить файл
+     */
+    private StagedUpload stage(String id, MultipartFile file) throws IOException {
+        Path target = stagingDirectory.resolve(id + ".upload");
+        file.transferTo(target.toFile());
+        return new StagedUpload(target, file.getName(), file.getOriginalFilename(), file.getContentType(),
+                file.getSize());
+    }
+
+    /**
+     * Проверяет, что файл действительно является изображением поддерживаемого формата.
+     * Читается только заголовок файла.
+     *
+     * @param staged сохраненный файл
+     * @throws IOException              если не удалось прочитать файл
+     * @throws IllegalArgumentException если формат файла не поддерживается
+     */
+    private void validateImage(StagedUpload staged) throws IOException {
+        try (InputStream content = Files.newInputStream(staged.file());
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            if (input == null || !ImageIO.getImageReaders(input).hasNext()) {
+                throw new IllegalArgumentException("Файл не является изображением поддерживаемого формата");
+            }
+        }
+    }
+
+    /**
+     * Удаляет временный файл загрузки.
+     *
+     * @param staged сохраненный файл (может быть null)
+     */
+    private void discard(StagedUpload staged) {
+        if (staged == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(staged.file());
+        }
+
+        catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}", staged.file(), e);
+        }
+    }
+
+    /**
+     * Сохраняет новое состояние загрузки. Ошибка базы данных только логируется,
+     * чтобы не прерывать обработку загрузки.
+     *
+     * @param status новое состояние
+     */
+    private void update(UploadStatus status) {
+        try {
+            uploadStateRepository.save(toState(status));
+        }
+
+        catch (DataAccessException e) {
+            log.warn("Не удалось сохранить состояние загрузки {}: {}", status.getId(), status.getState(), e);
+        }
+    }
+
+    /**
+     * Преобразует состояние загрузки в сохраняемую запись, обрезая слишком длинную причину ошибки.
+     *
+     * @param status состояние загрузки
+     * @return запись для базы данных
+     */
+    private static UploadState toState(UploadStatus status) {
+        String error = status.getError();
+
+        if (error != null && error.length() > UploadState.ERROR_LENGTH) {
+            error = error.substring(0, UploadState.ERROR_LENGTH);
+        }
+
+        return new UploadState(status.getId(), status.getState().name(), status.getProductId(), error,
+                status.getUpdatedAt());
+    }
+
+    /**
+     * Преобразует сохраненную запись в состояние загрузки.
+     *
+     * @param state запись из базы данных
+     * @return состояние загрузки
+     */
+    private static UploadStatus toStatus(UploadState state) {
+        return new UploadStatus(state.getId(), UploadStatus.State.valueOf(state.getState()), state.getProductId(),
+                state.getError(), state.getUpdatedAt());
+    }
+
+    /**
+     * Создает временный каталог и очищает его от файлов предыдущего запуска.
+     *
+     * @throws UncheckedIOException если не удалось создать каталог
+     */
+    private void prepareStagingDirectory() {
+        try {
+            Files.createDirectories(stagingDirectory);
+
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(stagingDirectory, "*.upload")) {
+                for (Path leftover : leftovers) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        }
+
+        catch (IOException e) {
+            throw new UncheckedIOException("Не удалось подготовить каталог загрузок " + stagingDirectory, e);
+        }
+    }
+
+    /**
+     * Исключение, выбрасываемое когда очередь обработки загрузок заполнена.
+     */
+    public static class UploadRejectedException extends RuntimeException {
+        private final Duration retryAfter;
+
+        public UploadRejectedException(String message, Duration retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+}
\ No newline at end of file
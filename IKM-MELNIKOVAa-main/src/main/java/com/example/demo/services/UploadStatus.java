@@ -0,0 +1,95 @@
+package com.example.demo.services;
+
+import lombok.Value;
+import java.time.Instant;
+
+/**
+ * Состояние фоновой обработки загруженного продукта.
+ * Объект неизменяемый: при каждом переходе создается новый экземпляр.
+ */
+@Value
+public class UploadStatus {
+
+    /**
+     * Идентификатор загрузки.
+     */
+    String id;
+
+    /**
+     * Этап обработки.
+     */
+    State state;
+
+    /**
+     * Идентификатор созданного продукта (после сохранения).
+     */
+    Long productId;
+
+    /**
+     * Причина ошибки (для неудачной обработки).
+     */
+    String error;
+
+    /**
+     * Время последнего изменения состояния.
+     */
+    Instant updatedAt;
+
+    /**
+     * Создает состояние загрузки, ожидающей обработки.
+     *
+     * @param id идентификатор загрузки
+     * @return состояние загрузки
+     */
+    public static UploadStatus queued(String id) {
+        return new UploadStatus(id, State.QUEUED, null, null, Instant.now());
+    }
+
+    /**
+     * Возвращает состояние начатой обработки.
+     *
+     * @return новое состояние
+     */
+    public UploadStatus processing() {
+        return new UploadStatus(id, State.PROCESSING, null, null, Instant.now());
+    }
+
+    /**
+     * Возвращает состояние успешно завершенной обработки.
+     *
+     * @param productId идентификатор созданного продукта
+     * @return новое состояние
+     */
+    public UploadStatus completed(Long productId) {
+        return new UploadStatus(id, State.COMPLETED, productId, null, Instant.now());
+    }
+
+    /**
+     * Возвращает состояние неудачной обработки.
+     *
+     * @param error причина ошибки
+     * @return новое состояние
+     */
+    public UploadStatus failed(String error) {
+        return new UploadStatus(id, State.FAILED, null, error, Instant.now());
+    }
+
+    /**
+     * Проверяет, завершена ли обработка (успешно или с ошибкой).
+     *
+     * @return true если обработка завершена
+     */
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    /**
+     * Этапы обработки загрузки.
+     */
+    public enum State {
+        QUEUED,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+}
\ No newline at end of file
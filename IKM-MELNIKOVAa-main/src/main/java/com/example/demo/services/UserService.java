@@ -1,33 +1,55 @@
 package com.example.demo.services;
 
 import com.example.demo.models.User;
+import com.example.demo.models.UserPrincipal;
 import com.example.demo.repositories.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Сервис для работы с пользователями.
  * Реализует интерфейс UserDetailsService
+ * и UserDetailsPasswordService для пересчета устаревших хешей паролей при входе.
+ * Загруженные пользователи кешируются в {@link PrincipalCache}. При изменении пользователя
+ * кеш и токены сессии сбрасываются после фиксации транзакции: иначе параллельный вход
+ * успел бы снова закешировать еще не зафиксированные старые данные.
+ * Время загрузки пользователя при входе, регистрации и смены ролей публикуется в метрике
+ * {@code softa.users} с тегами {@code method} и {@code exception}.
  */
 @Service
-public class UserService implements UserDetailsService {
+@Timed(value = "softa.users", histogram = true)
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
     private final PasswordEncoder passwordEncoder;
 
+    private final PrincipalCache principalCache;
+
+    private final SessionTokenService sessionTokenService;
+
     /**
      * Конструктор сервиса пользователей.
      *
      * @param userRepository репозиторий пользователей (не может быть null)
      * @param passwordEncoder кодировщик паролей (не может быть null)
+     * @param principalCache кеш аутентифицированных пользователей (не может быть null)
+     * @param sessionTokenService сервис токенов сессии (не может быть null)
      * @throws IllegalArgumentException если любой из параметров равен null
      */
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       PrincipalCache principalCache, SessionTokenService sessionTokenService) {
         if (userRepository == null) {
             throw new IllegalArgumentException("UserRepository cannot be null");
         }
@@ -36,8 +58,18 @@ public class UserService implements UserDetailsService {
             throw new IllegalArgumentException("PasswordEncoder cannot be null");
         }
 
+        if (principalCache == null) {
+            throw new IllegalArgumentException("PrincipalCache cannot be null");
+        }
+
+        if (sessionTokenService == null) {
+            throw new IllegalArgumentException("SessionTokenService cannot be null");
+        }
+
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.sessionTokenService = sessionTokenService;
     }
 
     /**
@@ -52,15 +84,115 @@ public class UserService implements UserDetailsService {
      */
     public User registerUser(String username, String password, List<String> roles) {
         validateUserCredentials(username, password, roles);
+        // Хеширование вне блока try: отказ перегруженного пула хеширования передается вызывающему как есть
+        String encodedPassword = passwordEncoder.encode(password);
 
         try {
-            User user = new User(username, passwordEncoder.encode(password), roles);
+            User user = new User(username, encodedPassword, roles);
             return userRepository.save(user);
         }
 
         catch (Exception e) {
             throw new UserRegistrationException("Failed to register user: " + username, e);
         }
+
+        finally {
+            principalCache.evict(username);
+        }
+    }
+
+    /**
+     * Заменяет роли пользователя, а после фиксации транзакции удаляет его из кеша и отзывает
+     * выданные ему токены сессии, чтобы новые права применились при следующей аутентификации.
+     *
+     * @param username имя пользователя (не может быть null или пустым)
+     * @param roles новые роли (не может быть null или пустым)
+     * @return обновленный пользователь
+     * @throws IllegalArgumentException если параметры невалидны
+     * @throws UsernameNotFoundException если пользователь не найден
+     */
+    @Transactional
+    public User updateRoles(String username, Collection<String> roles) {
+        if (!StringUtils.hasText(username)) {
+            throw new IllegalArgumentException("Имя пользователя не может быть пустым");
+        }
+
+        if (roles == null || roles.isEmpty()) {
+            throw new IllegalArgumentException("Пользователю должна быть присвоена хотя бы одна роль");
+        }
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException(
+                        String.format("Пользователь с именем '%s' не найден", username)));
+
+        user.getRoles().clear();
+        user.getRoles().addAll(roles);
+        afterCommit(() -> {
+            principalCache.evict(username);
+            sessionTokenService.revokeUser(username);
+        });
+        return user;
+    }
+
+    /**
+     * Сохраняет пересчитанный при входе хеш пароля (другим алгоритмом или с большей стоимостью)
+     * и после фиксации транзакции удаляет пользователя из кеша.
+     *
+     * @param user        аутентифицированный пользователь (не может быть null)
+     * @param newPassword новый хеш пароля
+     * @return пользователь с новым хешем пароля
+     * @throws UsernameNotFoundException если пользователь не найден
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (user == null || !StringUtils.hasText(newPassword)) {
+            throw new IllegalArgumentException("Пользователь и хеш пароля не могут быть пустыми");
+        }
+
+        User entity = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException(
+                        String.format("Пользователь с именем '%s' не найден", user.getUsername())));
+
+        entity.setPassword(newPassword);
+        afterCommit(() -> principalCache.evict(user.getUsername()));
+        return UserPrincipal.of(entity);
+    }
+
+    /**
+     * Возвращает ссылку на пользователя без загрузки его из базы данных,
+     * например чтобы назначить аутентифицированного пользователя владельцем продукта.
+     *
+     * @param principal аутентифицированный пользователь (не может быть null)
+     * @return ссылка на сущность пользователя
+     * @throws IllegalArgumentException если пользователь равен null
+     */
+    public User getReference(UserPrincipal principal) {
+        if (principal == null || principal.getId() == null) {
+            throw new IllegalArgumentException("Пользователь не может быть null");
+        }
+
+        return userRepository.getReferenceById(principal.getId());
+    }
+
+    /**
+     * Выполняет действие после фиксации текущей транзакции или сразу, если транзакции нет.
+     * При откате транзакции действие не выполняется.
+     *
+     * @param action действие
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
 
@@ -101,6 +233,9 @@ public class UserService implements UserDetailsService {
 
     /**
      * Загружает пользователя по имени пользователя.
+     * Пользователь сначала ищется в кеше; при промахе читается из базы данных и кешируется
+     * вместе с заранее вычисленными правами доступа. Хеш пароля в кеше совпадает с хранимым
+     * в базе: при смене пароля или ролей через этот сервис запись удаляется из кеша.
      *
      * @param username имя пользователя для поиска (не может быть null или пустым)
      * @return найденный пользователь
@@ -108,13 +243,18 @@ public class UserService implements UserDetailsService {
      * @throws UsernameNotFoundException если пользователь не найден
      */
     @Override
-    public User loadUserByUsername(String username) throws UsernameNotFoundException {
+    public UserPrincipal loadUserByUsername(String username) throws UsernameNotFoundException {
         if (!StringUtils.hasText(username)) {
             throw new IllegalArgumentException("Имя пользователя не может быть пустым");
         }
 
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException(
-                        String.format("Пользователь с именем '%s' не найден", username)));
+        return principalCache.get(username).orElseGet(() -> {
+            UserPrincipal principal = userRepository.findByUsername(username)
+                    .map(UserPrincipal::of)
+                    .orElseThrow(() -> new UsernameNotFoundException(
+                            String.format("Пользователь с именем '%s' не найден", username)));
+            principalCache.put(principal);
+            return principal;
+        });
     }
 }
\ No newline at end of file
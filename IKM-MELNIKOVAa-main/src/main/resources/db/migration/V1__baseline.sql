@@ -0,0 +1,46 @@
+-- Исходная схема: совпадает со схемой, которую Hibernate создавал из сущностей до перехода
+-- на миграции (ddl-auto=update). Существующие базы отмечаются этой версией без выполнения
+-- скрипта (spring.flyway.baseline-on-migrate), новые создаются им. Все последующие изменения
+-- схемы вносятся только следующими миграциями, одинаково для новых и существующих баз.
+
+-- Изображения получали идентификаторы из неявной последовательности (GenerationType.AUTO).
+CREATE SEQUENCE image_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username   VARCHAR(50)  NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT       NOT NULL,
+    role    VARCHAR(255) NOT NULL,
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE products (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title            VARCHAR(100) NOT NULL,
+    description      TEXT,
+    price            FLOAT(53)    NOT NULL,
+    genre            VARCHAR(50),
+    author           VARCHAR(100),
+    preview_image_id BIGINT,
+    date_of_created  TIMESTAMP(6) NOT NULL,
+    user_id          BIGINT       NOT NULL,
+    CONSTRAINT fk_products_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE images (
+    id                BIGINT PRIMARY KEY,
+    name              VARCHAR(255) NOT NULL,
+    original_filename VARCHAR(255) NOT NULL,
+    content_type      VARCHAR(255) NOT NULL,
+    is_preview_image  BOOLEAN      NOT NULL,
+    size              BIGINT       NOT NULL,
+    bytes             OID          NOT NULL,
+    product_id        BIGINT       NOT NULL,
+    CONSTRAINT fk_images_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
@@ -0,0 +1,40 @@
+-- Переход к файловому хранилищу изображений, уменьшенным копиям и пакетной вставке.
+-- Скрипт выполняется и на базах, схема которых была обновлена Hibernate или бывшим
+-- schema.sql до перехода на миграции, поэтому все изменения допускают повторное применение.
+
+-- Содержимое новых изображений хранится в файловом хранилище и адресуется хешем.
+-- Столбец bytes остается только для изображений, загруженных раньше, поэтому допускает NULL.
+ALTER TABLE images ALTER COLUMN bytes DROP NOT NULL;
+ALTER TABLE images ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+ALTER TABLE images ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6);
+
+CREATE TABLE IF NOT EXISTS image_variants (
+    id           BIGINT PRIMARY KEY,
+    image_id     BIGINT       NOT NULL,
+    width        INTEGER      NOT NULL,
+    pixel_width  INTEGER      NOT NULL,
+    pixel_height INTEGER      NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    size         BIGINT       NOT NULL,
+    content_hash VARCHAR(64)  NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_image_variants_image_width UNIQUE (image_id, width),
+    CONSTRAINT fk_image_variants_image FOREIGN KEY (image_id) REFERENCES images (id) ON DELETE CASCADE
+);
+
+-- Продукты получают идентификаторы из последовательности с шагом 50 вместо IDENTITY,
+-- чтобы Hibernate мог объединять вставки в пакеты.
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS image_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS image_variant_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+-- Последовательности не должны выдавать уже занятые идентификаторы: Hibernate резервирует
+-- диапазон из 50 значений, заканчивающийся очередным значением последовательности, поэтому
+-- текущее значение поднимается не ниже наибольшего существующего идентификатора.
+SELECT setval('products_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM products),
+                                       (SELECT last_value FROM products_seq)));
+SELECT setval('image_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM images),
+                                    (SELECT last_value FROM image_seq)));
+SELECT setval('image_variant_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM image_variants),
+                                            (SELECT last_value FROM image_variant_seq)));
@@ -0,0 +1,31 @@
+-- Индексы для основных запросов каталога, изображений и пользователей.
+
+-- Список каталога (ProductRepository.findFirstPage/findPageAfter/streamAll): порядок
+-- date_of_created DESC, id DESC совпадает с индексом, а остальные столбцы проекции ProductSummary
+-- (title, price, preview_image_id) включены в индекс. Страница читается сканированием только
+-- индекса; к таблице обращаются лишь строки страниц, еще не отмеченных в карте видимости.
+CREATE INDEX idx_products_catalog ON products (date_of_created DESC, id DESC)
+    INCLUDE (title, price, preview_image_id);
+
+-- Удаление пользователя и выборка его продуктов.
+CREATE INDEX idx_products_user_id ON products (user_id);
+
+-- Изображения продукта (загрузка продукта с изображениями, удаление продукта).
+CREATE INDEX idx_images_product_id ON images (product_id);
+
+-- Проверка, используется ли еще содержимое перед удалением файла из хранилища.
+CREATE INDEX idx_images_content_hash ON images (content_hash);
+CREATE INDEX idx_image_variants_content_hash ON image_variants (content_hash);
+
+-- Изображения, содержимое которых еще хранится в базе данных (перенос в файловое хранилище).
+CREATE INDEX idx_images_stored_in_database ON images (id) WHERE content_hash IS NULL;
+
+-- Роли загружаются вместе с пользователем при каждой аутентификации.
+CREATE INDEX idx_user_roles_user_id ON user_roles (user_id);
+
+-- Поиск подстроки без учета регистра (ProductRepository.searchIds):
+-- LOWER(столбец) LIKE '%запрос%' использует триграммные GIN-индексы.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_products_title_trgm ON products USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX idx_products_author_trgm ON products USING gin (lower(author) gin_trgm_ops);
+CREATE INDEX idx_products_genre_trgm ON products USING gin (lower(genre) gin_trgm_ops);
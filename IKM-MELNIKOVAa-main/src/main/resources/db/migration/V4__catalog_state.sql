@@ -0,0 +1,9 @@
+-- Общая для всех экземпляров приложения версия каталога (CatalogVersion).
+-- Начальное значение - текущее время в миллисекундах, чтобы не совпасть с версиями,
+-- которые экземпляры вели в памяти до этой миграции и выдавали в ETag.
+CREATE TABLE catalog_state (
+    id      SMALLINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO catalog_state (id, version) VALUES (1, (EXTRACT(EPOCH FROM clock_timestamp()) * 1000)::BIGINT);
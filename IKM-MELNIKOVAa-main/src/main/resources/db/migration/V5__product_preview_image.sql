@@ -0,0 +1,8 @@
+-- Идентификатор превью-изображения хранится в продукте и записывается вместе с ним.
+-- Столбец есть в исходной схеме; для продуктов без значения (созданных, пока превью
+-- определялось по флагу изображения) он заполняется первым изображением с флагом превью.
+ALTER TABLE products ADD COLUMN IF NOT EXISTS preview_image_id BIGINT;
+
+UPDATE products p
+SET preview_image_id = (SELECT min(i.id) FROM images i WHERE i.product_id = p.id AND i.is_preview_image)
+WHERE p.preview_image_id IS NULL;
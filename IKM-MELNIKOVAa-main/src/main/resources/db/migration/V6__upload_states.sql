@@ -0,0 +1,12 @@
+-- Состояния фоновой обработки загрузок (UploadIngestionService). Хранятся в базе данных,
+-- чтобы состояние загрузки, принятой одним экземпляром приложения, отдавал любой экземпляр.
+CREATE TABLE upload_states (
+    id         VARCHAR(36)                 PRIMARY KEY,
+    state      VARCHAR(16)                 NOT NULL,
+    product_id BIGINT,
+    error      VARCHAR(1000),
+    updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Удаление устаревших состояний завершенных загрузок.
+CREATE INDEX idx_upload_states_updated_at ON upload_states (updated_at);
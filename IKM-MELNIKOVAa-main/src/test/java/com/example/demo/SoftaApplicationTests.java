@@ -3,6 +3,7 @@ package com.example.demo;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -10,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  * Содержит smoke-тесты для проверки работоспособности основных компонентов.
  */
 @SpringBootTest
+@ActiveProfiles("test")
 @DisplayName("Тесты программы")
 class SoftaApplicationTests {
 
@@ -0,0 +1,60 @@
+package com.example.demo.configurations;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты доступа к endpoints actuator.
+ * Метрики Prometheus доступны без аутентификации только на отдельном порту управления.
+ * Экспорт метрик в тестах по умолчанию отключен, поэтому включается явно.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@DisplayName("Тесты доступа к endpoints actuator")
+class ActuatorSecurityTests {
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@LocalManagementPort
+	private int managementPort;
+
+	@Test
+	@DisplayName("Prometheus опрашивает метрики на порту управления без аутентификации")
+	void prometheusIsServedOnManagementPort() throws IOException, InterruptedException {
+		HttpResponse<String> response = get(managementPort, "/actuator/prometheus");
+
+		assertEquals(200, response.statusCode());
+		assertTrue(response.body().contains("jvm_memory_used_bytes"), "В ответе нет метрик JVM");
+	}
+
+	@Test
+	@DisplayName("На основном порту метрики недоступны без входа")
+	void prometheusIsNotPublicOnApplicationPort() throws IOException, InterruptedException {
+		assertNotEquals(port, managementPort);
+
+		HttpResponse<String> response = get(port, "/actuator/prometheus");
+
+		assertEquals(302, response.statusCode());
+	}
+
+	private HttpResponse<String> get(int port, String path) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
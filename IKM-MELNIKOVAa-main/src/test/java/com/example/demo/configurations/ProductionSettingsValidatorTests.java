@@ -0,0 +1,74 @@
+package com.example.demo.configurations;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты проверки настроек профиля prod.
+ */
+@DisplayName("Тесты проверки настроек профиля prod")
+class ProductionSettingsValidatorTests {
+	private final ProductionSettingsValidator validator = new ProductionSettingsValidator();
+
+	@Test
+	@DisplayName("Отладочные настройки в профиле prod не допускаются")
+	void debugSettingsAreRejectedInProd() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("spring.jpa.show-sql", "true")
+				.withProperty("spring.jpa.hibernate.ddl-auto", "update")
+				.withProperty("logging.level.org.hibernate.SQL", "DEBUG")
+				.withProperty("management.server.port", "8081");
+		environment.setActiveProfiles(ProductionSettingsValidator.PROFILE);
+
+		ProductionSettingsValidator.InvalidProductionSettingsException exception = assertThrows(
+				ProductionSettingsValidator.InvalidProductionSettingsException.class,
+				() -> validator.postProcessEnvironment(environment, new SpringApplication()));
+
+		assertEquals(3, exception.getViolations().size());
+	}
+
+	@Test
+	@DisplayName("Настройки production проходят проверку")
+	void productionSettingsAreAccepted() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("spring.jpa.show-sql", "false")
+				.withProperty("spring.jpa.hibernate.ddl-auto", "validate")
+				.withProperty("spring.sql.init.mode", "never")
+				.withProperty("logging.level.org.hibernate.SQL", "WARN")
+				.withProperty("management.server.port", "8081");
+
+		List<String> violations = validator.validate(environment);
+
+		assertTrue(violations.isEmpty(), violations::toString);
+	}
+
+	@Test
+	@DisplayName("Actuator на основном порту не допускается")
+	void managementOnApplicationPortIsRejected() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("server.port", "8080")
+				.withProperty("management.server.port", "8080");
+
+		List<String> violations = validator.validate(environment);
+
+		assertEquals(1, violations.size(), violations::toString);
+		assertTrue(violations.get(0).startsWith("management.server.port"));
+	}
+
+	@Test
+	@DisplayName("Без профиля prod отладочные настройки разрешены")
+	void otherProfilesAreNotChecked() {
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("spring.jpa.show-sql", "true");
+		environment.setActiveProfiles("test");
+
+		assertDoesNotThrow(() -> validator.postProcessEnvironment(environment, new SpringApplication()));
+	}
+}
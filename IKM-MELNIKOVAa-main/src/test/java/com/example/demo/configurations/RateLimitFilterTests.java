@@ -0,0 +1,50 @@
+package com.example.demo.configurations;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты ограничения частоты запросов по адресу клиента за прокси.
+ * Тест обращается к серверу с локального адреса, который считается доверенным прокси,
+ * поэтому адрес клиента берется из {@code X-Forwarded-For}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DisplayName("Тесты ограничения частоты запросов за прокси")
+class RateLimitFilterTests {
+	private static final int LOGIN_CAPACITY = 10;
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	@DisplayName("Клиенты за доверенным прокси ограничиваются по своим адресам")
+	void limitsClientsByForwardedAddress() throws IOException, InterruptedException {
+		for (int i = 0; i < LOGIN_CAPACITY; i++) {
+			assertEquals(302, login("203.0.113.10").statusCode());
+		}
+
+		assertEquals(429, login("203.0.113.10").statusCode());
+		assertEquals(302, login("203.0.113.11").statusCode());
+	}
+
+	private HttpResponse<String> login(String clientAddress) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.header("X-Forwarded-For", clientAddress)
+				.POST(HttpRequest.BodyPublishers.ofString("username=nobody&password=wrong-password"))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+}
@@ -0,0 +1,42 @@
+package com.example.demo.configurations;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты фабрики рабочих потоков.
+ */
+@DisplayName("Тесты фабрики рабочих потоков")
+class WorkerThreadsTests {
+
+	@Test
+	@DisplayName("В режиме виртуальных потоков рабочие потоки виртуальные")
+	void virtualThreadsWhenEnabled() {
+		WorkerThreads workerThreads = new WorkerThreads(new MockEnvironment()
+				.withProperty("spring.threads.virtual.enabled", "true"));
+
+		Thread thread = workerThreads.factory("upload-ingest-").newThread(() -> {
+		});
+
+		assertTrue(workerThreads.isVirtual());
+		assertTrue(thread.isVirtual());
+		assertEquals("upload-ingest-1", thread.getName());
+	}
+
+	@Test
+	@DisplayName("По умолчанию рабочие потоки - потоки платформы")
+	void platformThreadsByDefault() {
+		WorkerThreads workerThreads = new WorkerThreads(new MockEnvironment());
+
+		Thread thread = workerThreads.factory("upload-ingest-").newThread(() -> {
+		});
+
+		assertFalse(workerThreads.isVirtual());
+		assertFalse(thread.isVirtual());
+		assertEquals("upload-ingest-1", thread.getName());
+	}
+}
@@ -0,0 +1,293 @@
+package com.example.demo.controllers;
+
+import com.example.demo.configurations.CacheConfig;
+import com.example.demo.models.Image;
+import com.example.demo.models.Product;
+import com.example.demo.models.User;
+import com.example.demo.repositories.ProductRepository;
+import com.example.demo.repositories.UserRepository;
+import com.example.demo.services.ImageStorage;
+import com.example.demo.services.ProductService;
+import com.example.demo.support.SqlStatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты количества SQL-запросов на основных страницах.
+ * Каждая страница должна загружать данные одним запросом независимо от количества
+ * продуктов и изображений, поэтому появление N+1 запросов приводит к падению теста.
+ * Перед каждым тестом кеши очищаются; повторные просмотры должны обслуживаться из кешей.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+@DisplayName("Тесты количества SQL-запросов")
+class FetchPlanQueryCountTests {
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ImageStorage imageStorage;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Product product;
+
+	/**
+	 * Удаляет продукты предыдущих тестов и создает несколько продуктов, один из которых с тремя изображениями.
+	 *
+	 * @throws IOException если не удалось сохранить содержимое изображений
+	 */
+	@BeforeEach
+	void setUp() throws IOException {
+		productRepository.deleteAll();
+		User owner = userRepository.findByUsername("reader")
+				.orElseGet(() -> userRepository.save(new User("reader", "password", List.of("ROLE_USER"))));
+
+		for (int i = 0; i < 3; i++) {
+			saveProduct(owner, "Album " + i, 1);
+		}
+
+		product = saveProduct(owner, "Abbey Road", 3);
+		entityManagerFactory.getCache().evictAll();
+		cacheManager.getCache(CacheConfig.CATALOG_PAGES).clear();
+		cacheManager.getCache(CacheConfig.RENDERED_PAGES).clear();
+		SqlStatementCounter.reset();
+	}
+
+	@Test
+	@DisplayName("Каталог загружается одним запросом")
+	void catalogPage() throws Exception {
+		mockMvc.perform(get("/")).andExpect(status().isOk());
+
+		assertEquals(1, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Страница продукта загружает продукт и изображения одним запросом")
+	void productPage() throws Exception {
+		mockMvc.perform(get("/product/{id}", product.getId())).andExpect(status().isOk());
+
+		assertEquals(1, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Повторный просмотр каталога не обращается к базе данных")
+	void repeatCatalogPage() throws Exception {
+		mockMvc.perform(get("/")).andExpect(status().isOk());
+		SqlStatementCounter.reset();
+
+		mockMvc.perform(get("/")).andExpect(status().isOk());
+
+		assertEquals(0, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Неизмененная страница каталога возвращается ответом 304 без запросов")
+	void conditionalCatalogPage() throws Exception {
+		String eTag = mockMvc.perform(get("/"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		SqlStatementCounter.reset();
+
+		mockMvc.perform(get("/").header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isNotModified());
+
+		assertEquals(0, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Поисковые запросы, отличающиеся регистром и пробелами, получают одну страницу и один ETag")
+	void searchPageKeyIsNormalized() throws Exception {
+		String eTag = mockMvc.perform(get("/").param("title", "Abbey "))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		SqlStatementCounter.reset();
+
+		String repeated = mockMvc.perform(get("/").param("title", "abbey"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		assertEquals(eTag, repeated);
+		assertEquals(0, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Изменение каталога через сервис обновляет страницу и ее ETag")
+	void catalogPageIsEvictedOnWrite() throws Exception {
+		String eTag = mockMvc.perform(get("/"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		productService.deleteProduct(product.getId());
+		SqlStatementCounter.reset();
+
+		mockMvc.perform(get("/").header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isOk());
+
+		assertEquals(1, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Повторный просмотр продукта не обращается к базе данных")
+	void repeatProductPage() throws Exception {
+		mockMvc.perform(get("/product/{id}", product.getId())).andExpect(status().isOk());
+		mockMvc.perform(get("/product/{id}", product.getId())).andExpect(status().isOk());
+		SqlStatementCounter.reset();
+
+		mockMvc.perform(get("/product/{id}", product.getId())).andExpect(status().isOk());
+
+		assertEquals(0, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Страница каталога в REST API загружается одним запросом")
+	void apiCatalogPage() throws Exception {
+		mockMvc.perform(get("/api/v1/products").param("fields", "id,title"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(4))
+				.andExpect(jsonPath("$.items[0].title").value("Abbey Road"))
+				.andExpect(jsonPath("$.items[0].price").doesNotExist());
+
+		assertEquals(1, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Неизмененный продукт в REST API возвращается ответом 304 без запросов")
+	void conditionalApiProduct() throws Exception {
+		String eTag = mockMvc.perform(get("/api/v1/products/{id}", product.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imageIds.length()").value(3))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		SqlStatementCounter.reset();
+
+		mockMvc.perform(get("/api/v1/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified());
+
+		assertEquals(0, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Весь каталог выводится потоком по одному запросу")
+	void streamedCatalog() throws Exception {
+		MvcResult result = mockMvc.perform(get("/catalog")).andExpect(request().asyncStarted()).andReturn();
+
+		mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("Abbey Road")));
+
+		assertEquals(1, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Форма редактирования не загружает изображения и владельца")
+	void editForm() throws Exception {
+		mockMvc.perform(get("/product/edit/{id}", product.getId())).andExpect(status().isOk());
+
+		assertEquals(1, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Выдача изображения читает только его метаданные")
+	void imageServing() throws Exception {
+		mockMvc.perform(get("/images/{id}", product.getImages().get(0).getId())).andExpect(status().isOk());
+
+		assertEquals(1, SqlStatementCounter.count());
+	}
+
+	@Test
+	@DisplayName("Новый продукт сохраняется с превью без повторной записи")
+	void newProductSavedWithoutUpdate() throws IOException {
+		User owner = userRepository.findByUsername("reader").orElseThrow();
+		SqlStatementCounter.reset();
+
+		Product saved = saveProduct(owner, "Let It Be", 2);
+
+		assertEquals(saved.getImages().get(0).getId(), saved.getPreviewImageId());
+		assertTrue(SqlStatementCounter.statements().stream().noneMatch(sql -> sql.startsWith("update")),
+				() -> String.join("\n", SqlStatementCounter.statements()));
+		assertEquals(saved.getPreviewImageId(),
+				productRepository.findFirstPage(PageRequest.of(0, 1)).get(0).getPreviewImageId());
+	}
+
+	/**
+	 * Сохраняет продукт с указанным количеством изображений.
+	 *
+	 * @param owner  владелец продукта
+	 * @param title  название продукта
+	 * @param images количество изображений
+	 * @return сохраненный продукт
+	 * @throws IOException если не удалось сохранить содержимое изображений
+	 */
+	private Product saveProduct(User owner, String title, int images) throws IOException {
+		Product product = new Product();
+		product.setTitle(title);
+		product.setPrice(100);
+		product.setUser(owner);
+
+		for (int i = 0; i < images; i++) {
+			byte[] content = png(i + 1);
+			Image image = new Image();
+			image.setName("file1");
+			image.setOriginalFilename("cover" + i + ".png");
+			image.setContentType("image/png");
+			image.setSize((long) content.length);
+			image.setContentHash(imageStorage.store(new ByteArrayInputStream(content)));
+			image.setPreviewImage(i == 0);
+			product.addImageToProduct(image);
+		}
+
+		return productRepository.saveNew(product);
+	}
+
+	/**
+	 * Создает небольшое изображение PNG.
+	 *
+	 * @param size сторона изображения в пикселях
+	 * @return содержимое PNG
+	 * @throws IOException если не удалось закодировать изображение
+	 */
+	private static byte[] png(int size) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB), "png", output);
+		return output.toByteArray();
+	}
+}
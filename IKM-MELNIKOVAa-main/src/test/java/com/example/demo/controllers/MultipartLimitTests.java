@@ -0,0 +1,93 @@
+package com.example.demo.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты ограничений размера multipart-запросов.
+ * Общий лимит Spring Boot действует на все формы, а большой лимит массового импорта
+ * применяется только к {@link com.example.demo.configurations.CatalogImportServletConfig#IMPORT_PATH}.
+ * Ограничения применяет Tomcat, поэтому тесты выполняются через настоящий HTTP-сервер.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DisplayName("Тесты ограничений размера multipart-запросов")
+class MultipartLimitTests {
+	private static final String BOUNDARY = "multipart-limit-test";
+	private static final int OVER_GLOBAL_LIMIT = 4 * 1024 * 1024;
+
+	@LocalServerPort
+	private int port;
+
+	private HttpClient client;
+
+	@BeforeEach
+	void setUp() throws IOException, InterruptedException {
+		client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+		String username = "limits-" + UUID.randomUUID();
+		postForm("/register", "username=" + username + "&password=limits-secret");
+		HttpResponse<String> login = postForm("/login", "username=" + username + "&password=limits-secret");
+		assertEquals(uri("/").toString(), login.headers().firstValue("Location").orElse(null));
+	}
+
+	@Test
+	@DisplayName("Обычная форма отклоняет файл больше общего лимита")
+	void regularFormRejectsLargeFile() throws IOException, InterruptedException {
+		HttpResponse<String> response = postMultipart("/product/create", "file1", "cover.png",
+				new byte[OVER_GLOBAL_LIMIT]);
+
+		assertEquals(413, response.statusCode());
+	}
+
+	@Test
+	@DisplayName("Импорт каталога принимает файл больше общего лимита")
+	void catalogImportAcceptsLargeFile() throws IOException, InterruptedException {
+		byte[] catalog = "{}\n".repeat(OVER_GLOBAL_LIMIT / 3 + 1).getBytes(StandardCharsets.UTF_8);
+
+		HttpResponse<String> response = postMultipart("/products/import", "catalog", "catalog.ndjson", catalog);
+
+		assertEquals(202, response.statusCode());
+	}
+
+	private HttpResponse<String> postForm(String path, String body) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> postMultipart(String path, String name, String filename, byte[] content)
+			throws IOException, InterruptedException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.writeBytes(("--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + filename + "\"\r\n"
+				+ "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.writeBytes(content);
+		body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		HttpRequest request = HttpRequest.newBuilder(uri(path))
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+}
@@ -0,0 +1,185 @@
+package com.example.demo.repositories;
+
+import com.example.demo.support.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты миграций схемы и планов выполнения запросов репозиториев.
+ * Схема создается миграциями Flyway в PostgreSQL (и сверяется Hibernate с сущностями),
+ * после чего для SQL, сгенерированного репозиториями, проверяется план EXPLAIN:
+ * каждая таблица должна читаться по индексу, созданному миграцией.
+ * Последовательное сканирование в сессии запрещено, поэтому оно остается в плане,
+ * только если подходящего индекса нет. Страницы каталога должны читаться сканированием
+ * только индекса. Без Docker тесты пропускаются, и при обычном {@code mvn test} планы не проверяются.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Тесты миграций и планов запросов")
+class MigrationQueryPlanTests {
+	@Container
+	private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	/**
+	 * Подключает приложение к контейнеру и включает миграции вместо генерации схемы Hibernate.
+	 *
+	 * @param registry реестр настроек
+	 */
+	@DynamicPropertySource
+	static void postgres(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		registry.add("spring.flyway.enabled", () -> "true");
+		registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+	}
+
+	/**
+	 * Заполняет каталог, чтобы у планировщика была статистика по таблицам.
+	 */
+	@BeforeEach
+	void setUp() {
+		Integer products = jdbcTemplate.queryForObject("SELECT count(*) FROM products", Integer.class);
+
+		if (products != null && products > 0) {
+			return;
+		}
+
+		jdbcTemplate.update("INSERT INTO users (username, password, created_at) VALUES ('planner', 'password', now())");
+		jdbcTemplate.update("INSERT INTO user_roles (user_id, role) SELECT id, 'ROLE_USER' FROM users WHERE username = 'planner'");
+		jdbcTemplate.update("INSERT INTO products (id, title, price, genre, author, date_of_created, user_id) " +
+				"SELECT g, 'Album ' || g, 10 + g % 90, 'genre ' || g % 10, 'Author ' || g % 500, " +
+				"now() - g * interval '1 minute', u.id " +
+				"FROM generate_series(1, 5000) g CROSS JOIN users u WHERE u.username = 'planner'");
+		jdbcTemplate.update("INSERT INTO images (id, name, original_filename, content_type, is_preview_image, size, " +
+				"content_hash, created_at, product_id) " +
+				"SELECT g, 'cover', 'cover.png', 'image/png', g % 3 = 0, 100, md5(g::text), now(), (g - 1) % 5000 + 1 " +
+				"FROM generate_series(1, 15000) g");
+		jdbcTemplate.execute("ANALYZE");
+	}
+
+	@Test
+	@DisplayName("Первая страница каталога читается только из индекса сортировки")
+	void firstCatalogPageUsesCatalogIndex() {
+		productRepository.findFirstPage(PageRequest.of(0, 20));
+
+		assertIndexOnlyScan(SqlStatementCounter.last(), "idx_products_catalog");
+	}
+
+	@Test
+	@DisplayName("Следующая страница каталога начинается с нужной строки индекса и читается только из него")
+	void nextCatalogPageUsesCatalogIndex() {
+		productRepository.findPageAfter(LocalDateTime.now().minusHours(1), 100L, PageRequest.of(0, 20));
+
+		assertIndexOnlyScan(SqlStatementCounter.last(), "idx_products_catalog");
+	}
+
+	@Test
+	@DisplayName("Поиск по подстроке использует триграммные индексы")
+	void searchUsesTrigramIndexes() {
+		productRepository.searchIds("road", PageRequest.of(0, 20));
+
+		assertIndexScan(SqlStatementCounter.last(), "idx_products_title_trgm");
+	}
+
+	@Test
+	@DisplayName("Изображения продукта выбираются по индексу product_id")
+	void productImagesUseProductIndex() {
+		imageRepository.findContentHashesByProductId(42L);
+
+		assertIndexScan(SqlStatementCounter.last(), "idx_images_product_id");
+	}
+
+	@Test
+	@DisplayName("Проверка использования содержимого выполняется по индексу хеша")
+	void contentHashLookupUsesHashIndex() {
+		imageRepository.existsByContentHash("0123456789abcdef");
+
+		assertIndexScan(SqlStatementCounter.last(), "idx_images_content_hash");
+	}
+
+	/**
+	 * Проверяет, что план запроса использует индекс и не содержит последовательного сканирования.
+	 *
+	 * @param sql   SQL, сгенерированный Hibernate
+	 * @param index ожидаемый индекс
+	 */
+	private void assertIndexScan(String sql, String index) {
+		String plan = explain(sql);
+
+		assertTrue(plan.contains(index), () -> "Индекс " + index + " не используется:\n" + sql + "\n" + plan);
+		assertFalse(plan.contains("Seq Scan"), () -> "Последовательное сканирование:\n" + sql + "\n" + plan);
+	}
+
+	/**
+	 * Проверяет, что запрос читает данные только из индекса, без обращения к таблице.
+	 *
+	 * @param sql   SQL, сгенерированный Hibernate
+	 * @param index ожидаемый индекс
+	 */
+	private void assertIndexOnlyScan(String sql, String index) {
+		String plan = explain(sql);
+
+		assertTrue(plan.contains("Index Only Scan using " + index),
+				() -> "Запрос не покрыт индексом " + index + ":\n" + sql + "\n" + plan);
+	}
+
+	/**
+	 * Строит обобщенный план запроса (без значений параметров) при запрещенном последовательном сканировании.
+	 *
+	 * @param sql SQL с параметрами в виде {@code ?}
+	 * @return текст плана
+	 */
+	private String explain(String sql) {
+		int[] parameter = {0};
+		String generic = PARAMETER.matcher(sql).replaceAll(match -> "\\$" + (++parameter[0]));
+
+		return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+			StringBuilder plan = new StringBuilder();
+
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("SET enable_seqscan = off");
+
+				try (ResultSet rows = statement.executeQuery("EXPLAIN (GENERIC_PLAN) " + generic)) {
+					while (rows.next()) {
+						plan.append(rows.getString(1)).append('\n');
+					}
+				}
+
+				statement.execute("RESET enable_seqscan");
+			}
+
+			return plan.toString();
+		});
+	}
+}
@@ -0,0 +1,138 @@
+package com.example.demo.repositories;
+
+import com.example.demo.models.Product;
+import com.example.demo.models.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты обновления существующей базы данных миграциями.
+ * До запуска приложения база приводится к исходной схеме (V1 выполняется напрямую, без Flyway,
+ * как если бы схему создал Hibernate) и заполняется данными с идентификаторами IDENTITY
+ * и содержимым изображений в столбце bytes. Затем приложение запускается с настройками
+ * по умолчанию: Flyway отмечает базу версией 1, применяет остальные миграции, а Hibernate
+ * сверяет результат с сущностями. Без Docker тесты пропускаются.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Тесты обновления существующей базы миграциями")
+class MigrationUpgradeTests {
+	@Container
+	private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final int LEGACY_PRODUCTS = 60;
+
+	private static final byte[] LEGACY_CONTENT = {(byte) 0x89, 0x50, 0x4e, 0x47};
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ImageRepository imageRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	/**
+	 * Готовит базу с исходной схемой и данными и подключает к ней приложение с миграциями.
+	 *
+	 * @param registry реестр настроек
+	 * @throws SQLException если не удалось подготовить базу
+	 */
+	@DynamicPropertySource
+	static void postgres(DynamicPropertyRegistry registry) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(),
+				POSTGRES.getPassword()); Statement statement = connection.createStatement()) {
+			ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/V1__baseline.sql"));
+			statement.execute("INSERT INTO users (username, password, created_at) VALUES ('legacy', 'password', now())");
+			statement.execute("INSERT INTO user_roles (user_id, role) SELECT id, 'ROLE_USER' FROM users");
+			statement.execute("INSERT INTO products (title, price, date_of_created, user_id) " +
+					"SELECT 'Legacy ' || g, 10, now() - g * interval '1 minute', u.id " +
+					"FROM generate_series(1, " + LEGACY_PRODUCTS + ") g CROSS JOIN users u");
+			statement.execute("INSERT INTO images (id, name, original_filename, content_type, is_preview_image, " +
+					"size, bytes, product_id) " +
+					"SELECT nextval('image_seq'), 'cover', 'cover.png', 'image/png', true, 4, " +
+					"lo_from_bytea(0, '\\x89504e47'::bytea), id FROM products");
+			statement.execute("UPDATE products p SET preview_image_id = " +
+					"(SELECT i.id FROM images i WHERE i.product_id = p.id)");
+		}
+
+		registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+		registry.add("spring.datasource.username", POSTGRES::getUsername);
+		registry.add("spring.datasource.password", POSTGRES::getPassword);
+		registry.add("spring.flyway.enabled", () -> "true");
+		registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+	}
+
+	@Test
+	@DisplayName("Существующая база отмечается исходной версией, остальные миграции применяются")
+	void migrationsAppliedOnTopOfBaseline() {
+		List<String> types = jdbcTemplate.queryForList(
+				"SELECT type FROM flyway_schema_history WHERE success ORDER BY installed_rank", String.class);
+
+		assertEquals("BASELINE", types.get(0));
+		assertEquals(List.of("SQL"), types.subList(1, types.size()).stream().distinct().toList());
+	}
+
+	@Test
+	@DisplayName("Новый продукт получает идентификатор больше существующих")
+	void newProductDoesNotCollide() {
+		Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM products", Long.class);
+		User owner = userRepository.findByUsername("legacy").orElseThrow();
+		Product product = new Product();
+		product.setTitle("After migration");
+		product.setPrice(20);
+		product.setUser(owner);
+
+		Product saved = productRepository.saveAndFlush(product);
+
+		assertTrue(saved.getId() > maxId, () -> saved.getId() + " <= " + maxId);
+	}
+
+	@Test
+	@DisplayName("Последовательность изображений не выдает занятые идентификаторы")
+	void imageSequenceAfterExistingIds() {
+		Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM images", Long.class);
+		Long next = jdbcTemplate.queryForObject("SELECT nextval('image_seq')", Long.class);
+
+		// Hibernate использует диапазон (next - 49, next]
+		assertTrue(next - 49 > maxId, () -> next + " - 49 <= " + maxId);
+	}
+
+	@Test
+	@DisplayName("Содержимое изображений, загруженных до перехода, остается доступным")
+	void legacyImageContentReadable() {
+		Long imageId = jdbcTemplate.queryForObject("SELECT min(id) FROM images", Long.class);
+
+		byte[] content = transactionTemplate.execute(status -> imageRepository.findById(imageId).orElseThrow().getBytes());
+
+		assertArrayEquals(LEGACY_CONTENT, content);
+	}
+}
@@ -0,0 +1,118 @@
+package com.example.demo.services;
+
+import com.example.demo.repositories.CatalogStateRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты общей для экземпляров приложения версии каталога.
+ * Изменения других экземпляров имитируются изменением версии, возвращаемой репозиторием.
+ */
+@DisplayName("Тесты версии каталога")
+class CatalogVersionTests {
+	private static final long INITIAL = 1_000L;
+
+	private CatalogStateRepository repository;
+
+	private Cache secondLevelCache;
+
+	private ApplicationEventPublisher eventPublisher;
+
+	private CatalogVersion catalogVersion;
+
+	/**
+	 * Создает версию каталога, прочитанную из базы данных.
+	 */
+	@BeforeEach
+	void setUp() {
+		repository = mock(CatalogStateRepository.class);
+		secondLevelCache = mock(Cache.class);
+		eventPublisher = mock(ApplicationEventPublisher.class);
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		when(entityManagerFactory.getCache()).thenReturn(secondLevelCache);
+		when(repository.findVersion()).thenReturn(Optional.of(INITIAL));
+
+		catalogVersion = new CatalogVersion(repository, mock(PlatformTransactionManager.class), entityManagerFactory,
+				eventPublisher);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	@DisplayName("Начальная версия читается из базы данных")
+	void initialVersionFromDatabase() {
+		assertEquals(INITIAL, catalogVersion.current());
+	}
+
+	@Test
+	@DisplayName("Изменение другим экземпляром подхватывается при сверке, очищает кеш второго уровня и публикуется")
+	void refreshPicksUpRemoteChange() {
+		when(repository.findVersion()).thenReturn(Optional.of(INITIAL + 1));
+
+		catalogVersion.refresh();
+
+		assertEquals(INITIAL + 1, catalogVersion.current());
+		verify(secondLevelCache).evictAll();
+		verify(eventPublisher).publishEvent(new RemoteCatalogChange(INITIAL + 1));
+	}
+
+	@Test
+	@DisplayName("Сверка без изменений не очищает кеш второго уровня")
+	void refreshWithoutChange() {
+		catalogVersion.refresh();
+
+		assertEquals(INITIAL, catalogVersion.current());
+		verify(secondLevelCache, never()).evictAll();
+		verify(eventPublisher, never()).publishEvent(any(RemoteCatalogChange.class));
+	}
+
+	@Test
+	@DisplayName("Внутри транзакции версия увеличивается только после фиксации")
+	void incrementAfterCommit() {
+		when(repository.incrementVersion()).thenReturn(1);
+		TransactionSynchronizationManager.initSynchronization();
+
+		catalogVersion.increment();
+
+		verify(repository, never()).incrementVersion();
+		assertEquals(INITIAL, catalogVersion.current());
+
+		when(repository.findVersion()).thenReturn(Optional.of(INITIAL + 1));
+		TransactionSynchronizationUtils.triggerAfterCommit();
+
+		assertEquals(INITIAL + 1, catalogVersion.current());
+		verify(secondLevelCache, never()).evictAll();
+	}
+
+	@Test
+	@DisplayName("Собственное изменение после изменения другим экземпляром очищает кеш второго уровня")
+	void incrementAfterRemoteChange() {
+		when(repository.incrementVersion()).thenReturn(1);
+		when(repository.findVersion()).thenReturn(Optional.of(INITIAL + 2));
+
+		catalogVersion.increment();
+
+		assertEquals(INITIAL + 2, catalogVersion.current());
+		verify(secondLevelCache).evictAll();
+	}
+}
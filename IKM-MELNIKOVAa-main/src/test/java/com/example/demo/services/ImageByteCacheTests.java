@@ -0,0 +1,99 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import java.nio.ByteBuffer;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты кеша содержимого изображений: сегментированное вытеснение, ограничение
+ * по размеру в байтах и копирование содержимого.
+ */
+@DisplayName("Тесты кеша содержимого изображений")
+class ImageByteCacheTests {
+
+	@Test
+	@DisplayName("Повторно запрошенная запись переходит в защищенный сегмент и переживает новые записи")
+	void promotedEntrySurvivesScan() {
+		ImageByteCache cache = cache(100, 100, false);
+		cache.put("a", new byte[30]);
+		assertTrue(cache.get("a").isPresent());
+
+		cache.put("b", new byte[30]);
+		cache.put("c", new byte[30]);
+		cache.put("d", new byte[30]);
+
+		assertTrue(cache.get("a").isPresent());
+		assertFalse(cache.get("b").isPresent());
+	}
+
+	@Test
+	@DisplayName("Суммарный размер записей не превышает ограничение, вытесняются самые давние")
+	void evictsEldestOverByteBudget() {
+		ImageByteCache cache = cache(100, 100, false);
+
+		for (String hash : new String[] {"a", "b", "c", "d"}) {
+			cache.put(hash, new byte[30]);
+		}
+
+		ImageByteCache.Stats stats = cache.stats();
+		assertEquals(90, stats.bytes());
+		assertEquals(3, stats.entries());
+		assertEquals(1, stats.evictions());
+		assertFalse(cache.get("a").isPresent());
+		assertTrue(cache.get("d").isPresent());
+	}
+
+	@Test
+	@DisplayName("Запись больше ограничения на запись не помещается в кеш")
+	void rejectsOversizedEntry() {
+		ImageByteCache cache = cache(100, 50, true);
+
+		ByteBuffer returned = cache.put("large", new byte[60]);
+
+		assertFalse(cache.accepts(60));
+		assertEquals(60, returned.remaining());
+		assertFalse(returned.isDirect());
+		assertEquals(0, cache.stats().entries());
+		assertFalse(cache.get("large").isPresent());
+	}
+
+	@Test
+	@DisplayName("Кеш хранит копию содержимого")
+	void copiesContent() {
+		ImageByteCache cache = cache(100, 100, false);
+		byte[] content = {1, 2, 3};
+
+		cache.put("a", content);
+		content[0] = 9;
+
+		ByteBuffer cached = cache.get("a").orElseThrow();
+		assertTrue(cached.isReadOnly());
+		assertEquals(1, cached.get(0));
+	}
+
+	@Test
+	@DisplayName("В режиме off-heap содержимое хранится в direct-буфере")
+	void storesOffHeap() {
+		ImageByteCache cache = cache(100, 100, true);
+
+		cache.put("a", new byte[] {1, 2, 3});
+
+		ByteBuffer cached = cache.get("a").orElseThrow();
+		assertTrue(cached.isDirect());
+		assertEquals(3, cached.remaining());
+	}
+
+	private static ImageByteCache cache(long maxBytes, long maxEntryBytes, boolean offHeap) {
+		ImageProperties properties = new ImageProperties();
+		properties.getCache().setMaxSize(DataSize.ofBytes(maxBytes));
+		properties.getCache().setMaxEntrySize(DataSize.ofBytes(maxEntryBytes));
+		properties.getCache().setProtectedRatio(0.5);
+		properties.getCache().setOffHeap(offHeap);
+		return new ImageByteCache(properties);
+	}
+}
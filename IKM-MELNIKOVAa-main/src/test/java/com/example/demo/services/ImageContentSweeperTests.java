@@ -0,0 +1,101 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import com.example.demo.repositories.ImageRepository;
+import com.example.demo.repositories.ImageVariantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты отложенного удаления освобожденного содержимого изображений.
+ */
+@DisplayName("Тесты удаления освобожденного содержимого")
+class ImageContentSweeperTests {
+	private static final Duration GRACE = Duration.ofMinutes(15);
+
+	@TempDir
+	private Path root;
+
+	private ImageRepository imageRepository;
+
+	private FileSystemImageStorage storage;
+
+	private ImageContentSweeper sweeper;
+
+	/**
+	 * Создает хранилище во временном каталоге; ссылок на содержимое в базе нет.
+	 */
+	@BeforeEach
+	void setUp() {
+		ImageProperties properties = new ImageProperties();
+		properties.getStorage().setRoot(root);
+		properties.getStorage().setReleaseGrace(GRACE);
+
+		imageRepository = mock(ImageRepository.class);
+		storage = new FileSystemImageStorage(properties);
+		sweeper = new ImageContentSweeper(imageRepository, mock(ImageVariantRepository.class), storage, properties);
+	}
+
+	@Test
+	@DisplayName("Содержимое без ссылок удаляется по истечении времени ожидания")
+	void deletesUnreferencedContentAfterGrace() throws IOException {
+		String hash = store("cover");
+		makeOld(hash);
+
+		sweeper.release(List.of(hash));
+		sweeper.sweep(Instant.now());
+		assertTrue(storage.exists(hash));
+
+		sweeper.sweep(Instant.now().plus(GRACE).plusSeconds(1));
+		assertFalse(storage.exists(hash));
+	}
+
+	@Test
+	@DisplayName("Содержимое, на которое снова ссылается изображение, не удаляется")
+	void keepsReferencedContent() throws IOException {
+		String hash = store("cover");
+		makeOld(hash);
+		when(imageRepository.existsByContentHash(hash)).thenReturn(true);
+
+		sweeper.release(List.of(hash));
+		sweeper.sweep(Instant.now().plus(GRACE).plusSeconds(1));
+
+		assertTrue(storage.exists(hash));
+	}
+
+	@Test
+	@DisplayName("Повторное сохранение защищает содержимое от удаления до фиксации транзакции")
+	void storingAgainProtectsContent() throws IOException {
+		String hash = store("cover");
+		makeOld(hash);
+		Instant cutoff = Instant.now().minusSeconds(60);
+
+		store("cover");
+
+		assertFalse(storage.deleteIfUnmodifiedSince(hash, cutoff));
+		assertTrue(storage.exists(hash));
+	}
+
+	private String store(String content) throws IOException {
+		return storage.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private void makeOld(String hash) throws IOException {
+		Files.setLastModifiedTime(storage.locate(hash), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+	}
+}
@@ -0,0 +1,64 @@
+package com.example.demo.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты уменьшения изображений.
+ */
+@DisplayName("Тесты уменьшения изображений")
+class ImageResizerTests {
+	private final ImageResizer resizer = new ImageResizer(1_000_000L, 0.8f);
+
+	@Test
+	@DisplayName("Наибольшая сторона уменьшается до требуемого размера с сохранением пропорций")
+	void resizesToBounds() throws IOException {
+		BufferedImage source = resizer.decode(new ByteArrayInputStream(png(800, 400, BufferedImage.TYPE_INT_RGB)), 100);
+
+		BufferedImage resized = resizer.resize(source, 100);
+
+		assertEquals(100, resized.getWidth());
+		assertEquals(50, resized.getHeight());
+	}
+
+	@Test
+	@DisplayName("Изображение не больше требуемого размера не изменяется")
+	void keepsSmallImage() {
+		BufferedImage source = new BufferedImage(80, 60, BufferedImage.TYPE_INT_RGB);
+
+		assertSame(source, resizer.resize(source, 100));
+	}
+
+	@Test
+	@DisplayName("Непрозрачные изображения кодируются в JPEG, прозрачные - в PNG")
+	void encodesByTransparency() throws IOException {
+		ImageResizer.EncodedImage opaque = resizer.encode(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
+		ImageResizer.EncodedImage transparent = resizer.encode(new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB));
+
+		assertEquals("image/jpeg", opaque.contentType());
+		assertEquals("image/png", transparent.contentType());
+	}
+
+	@Test
+	@DisplayName("Слишком большое и поврежденное изображения не декодируются")
+	void rejectsOversizedAndCorruptedImages() throws IOException {
+		byte[] large = png(2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+		assertThrows(IOException.class, () -> resizer.decode(new ByteArrayInputStream(large), 100));
+		assertThrows(IOException.class, () -> resizer.decode(new ByteArrayInputStream(new byte[] {1, 2, 3}), 100));
+	}
+
+	private static byte[] png(int width, int height, int type) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, type), "png", output);
+		return output.toByteArray();
+	}
+}
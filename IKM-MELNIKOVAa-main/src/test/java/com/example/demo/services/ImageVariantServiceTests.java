@@ -0,0 +1,126 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.ImageProperties;
+import com.example.demo.models.ImageMetadata;
+import com.example.demo.repositories.ImageRepository;
+import com.example.demo.repositories.ImageVariantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты выбора размера копии и отдачи исходного изображения при ошибке создания копии.
+ */
+@DisplayName("Тесты уменьшенных копий изображений")
+class ImageVariantServiceTests {
+	private static final String HASH = "ab".repeat(32);
+
+	@TempDir
+	private Path root;
+
+	private ImageStorage imageStorage;
+
+	private ImageProperties properties;
+
+	private ImageMetadata original;
+
+	/**
+	 * Готовит хранилище, в котором вместо изображения лежит поврежденный файл.
+	 */
+	@BeforeEach
+	void setUp() throws IOException {
+		Path corrupted = Files.write(root.resolve(HASH), new byte[] {1, 2, 3, 4});
+		imageStorage = mock(ImageStorage.class);
+		when(imageStorage.locate(HASH)).thenReturn(corrupted);
+
+		properties = new ImageProperties();
+		original = new ImageMetadata(5L, "cover.jpg", "image/jpeg", 4L, HASH, null);
+	}
+
+	@Test
+	@DisplayName("Запрошенный размер округляется вверх до ближайшего допустимого")
+	void roundsWidthUp() {
+		ImageVariantService service = service();
+
+		assertEquals(180, service.resolveWidth(1));
+		assertEquals(180, service.resolveWidth(180));
+		assertEquals(360, service.resolveWidth(181));
+		assertEquals(720, service.resolveWidth(5000));
+		assertThrows(IllegalArgumentException.class, () -> service.resolveWidth(0));
+	}
+
+	@Test
+	@DisplayName("При ошибке создания копии отдается исходное изображение без повторных попыток")
+	void fallsBackToOriginalAndRemembersFailure() {
+		ImageVariantService service = service();
+
+		assertEquals(original, service.getVariant(original, 200));
+		assertEquals(original, service.getVariant(original, 300));
+
+		verify(imageStorage, times(1)).locate(HASH);
+	}
+
+	@Test
+	@DisplayName("Без запоминания ошибок копия создается при каждом запросе")
+	void retriesWhenFailuresAreNotRemembered() {
+		properties.getVariants().setFailureTtl(Duration.ZERO);
+		ImageVariantService service = service();
+
+		assertEquals(original, service.getVariant(original, 200));
+		assertEquals(original, service.getVariant(original, 200));
+
+		verify(imageStorage, times(2)).locate(HASH);
+	}
+
+	@Test
+	@DisplayName("Когда все места для создания копий заняты, сразу отдается исходное изображение")
+	void fallsBackToOriginalWhenSaturated() throws Exception {
+		properties.getVariants().setMaxConcurrent(1);
+		ImageVariantService service = service();
+		Path corrupted = imageStorage.locate(HASH);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(imageStorage.locate(HASH)).thenAnswer(invocation -> {
+			started.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return corrupted;
+		});
+
+		CompletableFuture<ImageMetadata> busy = CompletableFuture.supplyAsync(() -> service.getVariant(original, 200));
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		assertEquals(original, service.getVariant(original, 700));
+		verify(imageStorage, times(2)).locate(HASH);
+
+		release.countDown();
+		assertEquals(original, busy.get(10, TimeUnit.SECONDS));
+
+		assertEquals(original, service.getVariant(original, 700));
+		verify(imageStorage, times(3)).locate(HASH);
+	}
+
+	private ImageVariantService service() {
+		ImageVariantRepository variantRepository = mock(ImageVariantRepository.class);
+		when(variantRepository.findMetadata(anyLong(), anyInt())).thenReturn(Optional.empty());
+		return new ImageVariantService(mock(ImageRepository.class), variantRepository, mock(ImageService.class),
+				imageStorage, properties);
+	}
+}
@@ -0,0 +1,117 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.CatalogProperties;
+import com.example.demo.models.ProductSearchDocument;
+import com.example.demo.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты встроенного триграммного поискового движка.
+ */
+@DisplayName("Тесты поискового индекса")
+class InMemoryProductSearchEngineTests {
+	private ProductRepository repository;
+
+	private InMemoryProductSearchEngine engine;
+
+	/**
+	 * Создает движок с пустым индексом, построенным по пустой базе.
+	 */
+	@BeforeEach
+	void setUp() {
+		repository = mock(ProductRepository.class);
+		when(repository.findSearchDocumentsAfter(anyLong(), any())).thenReturn(Collections.emptyList());
+
+		engine = new InMemoryProductSearchEngine(repository, new JpaProductSearchEngine(repository),
+				new CatalogProperties());
+		engine.rebuild();
+
+		engine.index(new ProductSearchDocument(1L, "Abbey Road", "The Beatles", "Rock", "Одиннадцатый альбом"));
+		engine.index(new ProductSearchDocument(2L, "Road to Nowhere", "Talking Heads", "New wave", null));
+		engine.index(new ProductSearchDocument(3L, "Kind of Blue", "Miles Davis", "Jazz", "Альбом на дороге"));
+	}
+
+	@Test
+	@DisplayName("Совпадение с началом названия ранжируется выше")
+	void titlePrefixRanksFirst() {
+		Slice<Long> hits = engine.search("road", PageRequest.of(0, 10));
+
+		assertEquals(List.of(2L, 1L), hits.getContent());
+	}
+
+	@Test
+	@DisplayName("Поиск идет по автору, жанру и описанию без учета регистра")
+	void searchesAllFields() {
+		assertEquals(List.of(3L), engine.search("MILES", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(2L), engine.search("new wave", PageRequest.of(0, 10)).getContent());
+		assertEquals(List.of(3L), engine.search("дорог", PageRequest.of(0, 10)).getContent());
+	}
+
+	@Test
+	@DisplayName("Обновление и удаление продукта сразу видны в поиске")
+	void incrementalUpdates() {
+		engine.index(new ProductSearchDocument(3L, "Bitches Brew", "Miles Davis", "Jazz", null));
+		assertTrue(engine.search("blue", PageRequest.of(0, 10)).isEmpty());
+
+		engine.remove(1L);
+		assertEquals(List.of(2L), engine.search("road", PageRequest.of(0, 10)).getContent());
+	}
+
+	@Test
+	@DisplayName("Результаты разбиваются на страницы")
+	void pagesResults() {
+		Slice<Long> first = engine.search("road", PageRequest.of(0, 1));
+		Slice<Long> second = engine.search("road", PageRequest.of(1, 1));
+
+		assertEquals(List.of(2L), first.getContent());
+		assertTrue(first.hasNext());
+		assertEquals(List.of(1L), second.getContent());
+		assertFalse(second.hasNext());
+	}
+
+	@Test
+	@DisplayName("Изменения, сделанные во время перестроения, не затираются прочитанными из базы данных")
+	void rebuildKeepsConcurrentWrites() {
+		when(repository.findSearchDocumentsAfter(anyLong(), any())).thenAnswer(invocation -> {
+			engine.index(new ProductSearchDocument(1L, "Let It Be", "The Beatles", "Rock", null));
+			engine.remove(2L);
+
+			return List.of(new ProductSearchDocument(1L, "Abbey Road", "The Beatles", "Rock", null),
+					new ProductSearchDocument(2L, "Road to Nowhere", "Talking Heads", "New wave", null));
+		});
+
+		engine.rebuild();
+
+		assertTrue(engine.search("road", PageRequest.of(0, 10)).isEmpty());
+		assertEquals(List.of(1L), engine.search("let it", PageRequest.of(0, 10)).getContent());
+	}
+
+	@Test
+	@DisplayName("Изменение каталога другим экземпляром перестраивает индекс по базе данных")
+	void remoteChangeRebuildsIndex() {
+		when(repository.findSearchDocumentsAfter(anyLong(), any()))
+				.thenReturn(List.of(new ProductSearchDocument(4L, "Blue Train", "John Coltrane", "Jazz", null)));
+
+		engine.refreshIfStale();
+		assertEquals(List.of(2L, 1L), engine.search("road", PageRequest.of(0, 10)).getContent());
+
+		engine.onRemoteChange(new RemoteCatalogChange(2L));
+		engine.refreshIfStale();
+
+		assertTrue(engine.search("road", PageRequest.of(0, 10)).isEmpty());
+		assertEquals(List.of(4L), engine.search("coltrane", PageRequest.of(0, 10)).getContent());
+	}
+}
\ No newline at end of file
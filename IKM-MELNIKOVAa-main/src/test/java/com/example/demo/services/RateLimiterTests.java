@@ -0,0 +1,90 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.RateLimitProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты ограничения частоты запросов.
+ */
+@DisplayName("Тесты ограничения частоты запросов")
+class RateLimiterTests {
+
+	@Test
+	@DisplayName("Разрешается не больше заданного количества запросов подряд")
+	void burstIsLimitedToCapacity() {
+		RateLimiter limiter = new RateLimiter(new RateLimitProperties());
+		RateLimitProperties.Policy policy = policy(3, Duration.ofHours(1));
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(Duration.ZERO, limiter.acquire("login:ip:10.0.0.1", policy));
+		}
+
+		Duration wait = limiter.acquire("login:ip:10.0.0.1", policy);
+
+		assertTrue(wait.compareTo(Duration.ofMinutes(19)) > 0);
+		assertEquals(1, limiter.rejectedCount());
+		assertEquals(Duration.ZERO, limiter.acquire("login:ip:10.0.0.2", policy));
+	}
+
+	@Test
+	@DisplayName("Количество отслеживаемых клиентов ограничено")
+	void keysAreBounded() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setMaxKeys(10);
+		RateLimiter limiter = new RateLimiter(properties);
+		RateLimitProperties.Policy policy = policy(1, Duration.ofHours(1));
+
+		for (int i = 0; i < 100; i++) {
+			limiter.acquire("register:ip:10.0.0." + i, policy);
+		}
+
+		assertTrue(limiter.size() <= 10);
+	}
+
+	@Test
+	@DisplayName("При переполнении новые клиенты отклоняются, а лимиты активных клиентов сохраняются")
+	void newKeysAreShedWhenFull() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setMaxKeys(2);
+		RateLimiter limiter = new RateLimiter(properties);
+		RateLimitProperties.Policy policy = policy(1, Duration.ofHours(1));
+
+		assertEquals(Duration.ZERO, limiter.acquire("login:ip:10.0.0.1", policy));
+		assertEquals(Duration.ZERO, limiter.acquire("login:ip:10.0.0.2", policy));
+
+		assertTrue(limiter.acquire("login:ip:10.0.0.3", policy).compareTo(Duration.ofMinutes(59)) > 0);
+		assertTrue(limiter.acquire("login:ip:10.0.0.1", policy).compareTo(Duration.ZERO) > 0);
+		assertTrue(limiter.acquire("login:ip:10.0.0.2", policy).compareTo(Duration.ZERO) > 0);
+		assertEquals(2, limiter.size());
+	}
+
+	@Test
+	@DisplayName("Место для новых клиентов освобождается записями с восстановленным запасом")
+	void idleKeysMakeRoom() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setMaxKeys(1);
+		RateLimiter limiter = new RateLimiter(properties);
+
+		assertEquals(Duration.ZERO, limiter.acquire("login:ip:10.0.0.1", policy(1, Duration.ofNanos(1))));
+		assertEquals(Duration.ZERO, limiter.acquire("login:ip:10.0.0.2", policy(1, Duration.ofHours(1))));
+		assertEquals(1, limiter.size());
+	}
+
+	/**
+	 * Создает правило ограничения.
+	 *
+	 * @param capacity количество запросов за период
+	 * @param period   период
+	 * @return правило
+	 */
+	private static RateLimitProperties.Policy policy(int capacity, Duration period) {
+		RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+		policy.setCapacity(capacity);
+		policy.setPeriod(period);
+		return policy;
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.AuthProperties;
+import com.example.demo.models.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import java.util.Base64;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты выпуска, проверки и отзыва токенов сессии.
+ */
+@DisplayName("Тесты токенов сессии")
+class SessionTokenServiceTests {
+	private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+	private SessionTokenService service;
+
+	private UserPrincipal principal;
+
+	@BeforeEach
+	void setUp() {
+		AuthProperties properties = new AuthProperties();
+		properties.getSessionToken().setEnabled(true);
+		properties.getSessionToken().getKeys().put("k1", SECRET);
+		service = new SessionTokenService(properties);
+		principal = new UserPrincipal(7L, "reader", "hash", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+	}
+
+	@Test
+	@DisplayName("Выпущенный токен проверяется без обращения к базе данных")
+	void issuedTokenIsVerified() {
+		SessionTokenService.VerifiedToken verified = service.verify(service.issue(principal)).orElseThrow();
+
+		assertEquals(7L, verified.principal().getId());
+		assertEquals("reader", verified.principal().getUsername());
+		assertEquals(principal.getAuthorities(), verified.principal().getAuthorities());
+		assertFalse(verified.shouldRenew());
+	}
+
+	@Test
+	@DisplayName("Токен с измененными данными отклоняется")
+	void tamperedTokenIsRejected() {
+		String token = service.issue(principal);
+		String[] parts = token.split("\\.");
+		String forged = parts[0] + "." + parts[1].substring(1) + "A." + parts[2];
+
+		assertTrue(service.verify(forged).isEmpty());
+		assertTrue(service.verify("garbage").isEmpty());
+	}
+
+	@Test
+	@DisplayName("Отозванные токены и токены пользователя с измененными ролями отклоняются")
+	void revokedTokensAreRejected() {
+		String token = service.issue(principal);
+		service.revoke(token);
+
+		assertTrue(service.verify(token).isEmpty());
+
+		String other = service.issue(principal);
+		service.revokeUser("reader");
+
+		assertTrue(service.verify(other).isEmpty());
+	}
+}
@@ -0,0 +1,93 @@
+package com.example.demo.services;
+
+import com.example.demo.configurations.UploadProperties;
+import com.example.demo.configurations.WorkerThreads;
+import com.example.demo.models.Product;
+import com.example.demo.models.UploadState;
+import com.example.demo.repositories.UploadStateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты хранения состояний загрузок, общих для экземпляров приложения.
+ * Два сервиса с общим репозиторием имитируют два экземпляра с общей базой данных.
+ */
+@DisplayName("Тесты состояний загрузок")
+class UploadIngestionServiceTests {
+
+	@TempDir
+	private Path stagingDir;
+
+	private final Map<String, UploadState> table = new ConcurrentHashMap<>();
+
+	private UploadIngestionService first;
+
+	private UploadIngestionService second;
+
+	/**
+	 * Создает два экземпляра сервиса с общим хранилищем состояний.
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		UploadStateRepository repository = mock(UploadStateRepository.class);
+		when(repository.save(any(UploadState.class))).thenAnswer(invocation -> {
+			UploadState state = invocation.getArgument(0);
+			table.put(state.getId(), state);
+			return state;
+		});
+		when(repository.findById(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+
+		Product saved = new Product();
+		saved.setId(42L);
+		ProductService productService = mock(ProductService.class);
+		when(productService.saveProduct(any(), any())).thenReturn(saved);
+
+		UploadProperties properties = new UploadProperties();
+		properties.setStagingDir(stagingDir);
+		WorkerThreads workerThreads = new WorkerThreads(new MockEnvironment());
+
+		first = new UploadIngestionService(productService, repository, mock(ImageVariantService.class),
+				properties, workerThreads);
+		second = new UploadIngestionService(productService, repository, mock(ImageVariantService.class),
+				properties, workerThreads);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		first.shutdown();
+		second.shutdown();
+	}
+
+	@Test
+	@DisplayName("Состояние загрузки, принятой одним экземпляром, видно другому")
+	void statusVisibleToOtherInstance() throws Exception {
+		UploadStatus queued = first.submit(new Product(), null);
+		first.shutdown();
+
+		UploadStatus status = second.getStatus(queued.getId()).orElseThrow();
+
+		assertEquals(UploadStatus.State.COMPLETED, status.getState());
+		assertEquals(42L, status.getProductId());
+	}
+
+	@Test
+	@DisplayName("Неизвестная загрузка не найдена")
+	void unknownUpload() {
+		assertTrue(second.getStatus("unknown").isEmpty());
+	}
+}
@@ -0,0 +1,75 @@
+package com.example.demo.services;
+
+import com.example.demo.models.User;
+import com.example.demo.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import java.util.List;
+import java.util.Optional;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты сброса кеша пользователей и токенов сессии при изменении пользователя.
+ * Транзакция имитируется синхронизацией {@link TransactionSynchronizationManager}.
+ */
+@DisplayName("Тесты изменения пользователей")
+class UserServiceTests {
+	private PrincipalCache principalCache;
+
+	private SessionTokenService sessionTokenService;
+
+	private UserService userService;
+
+	@BeforeEach
+	void setUp() {
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findByUsername("reader"))
+				.thenReturn(Optional.of(new User("reader", "hash", List.of("USER"))));
+
+		principalCache = mock(PrincipalCache.class);
+		sessionTokenService = mock(SessionTokenService.class);
+		userService = new UserService(userRepository, mock(PasswordEncoder.class), principalCache,
+				sessionTokenService);
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	@DisplayName("Кеш и токены сбрасываются только после фиксации транзакции")
+	void rolesChangeInvalidatesAfterCommit() {
+		userService.updateRoles("reader", List.of("ADMIN"));
+
+		verify(principalCache, never()).evict(any());
+		verify(sessionTokenService, never()).revokeUser(any());
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+
+		verify(principalCache).evict("reader");
+		verify(sessionTokenService).revokeUser("reader");
+	}
+
+	@Test
+	@DisplayName("При откате транзакции кеш и токены не сбрасываются")
+	void rollbackKeepsCacheAndTokens() {
+		userService.updateRoles("reader", List.of("ADMIN"));
+
+		TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		verify(principalCache, never()).evict(any());
+		verify(sessionTokenService, never()).revokeUser(any());
+	}
+}
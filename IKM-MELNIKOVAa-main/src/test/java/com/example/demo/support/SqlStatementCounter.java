@@ -0,0 +1,63 @@
+package com.example.demo.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Счетчик SQL-запросов, выполняемых Hibernate. Запоминает также тексты запросов с момента обнуления.
+ * Подключается в тестовом профиле через {@code hibernate.session_factory.statement_inspector}.
+ */
+public class SqlStatementCounter implements StatementInspector {
+	private static final AtomicInteger COUNT = new AtomicInteger();
+
+	private static final AtomicReference<String> LAST = new AtomicReference<>();
+
+	private static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+	@Override
+	public String inspect(String sql) {
+		COUNT.incrementAndGet();
+		LAST.set(sql);
+		STATEMENTS.add(sql);
+		return sql;
+	}
+
+	/**
+	 * Обнуляет счетчик.
+	 */
+	public static void reset() {
+		COUNT.set(0);
+		STATEMENTS.clear();
+	}
+
+	/**
+	 * Возвращает количество запросов с момента последнего обнуления.
+	 *
+	 * @return количество запросов
+	 */
+	public static int count() {
+		return COUNT.get();
+	}
+
+	/**
+	 * Возвращает текст последнего выполненного запроса.
+	 *
+	 * @return SQL с параметрами в виде {@code ?} или null, если запросов не было
+	 */
+	public static String last() {
+		return LAST.get();
+	}
+
+	/**
+	 * Возвращает тексты запросов с момента последнего обнуления.
+	 *
+	 * @return SQL с параметрами в виде {@code ?} в порядке выполнения
+	 */
+	public static List<String> statements() {
+		return List.copyOf(STATEMENTS);
+	}
+}